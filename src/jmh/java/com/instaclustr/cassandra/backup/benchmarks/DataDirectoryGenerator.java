@@ -0,0 +1,303 @@
+package com.instaclustr.cassandra.backup.benchmarks;
+
+import static com.instaclustr.cassandra.backup.benchmarks.Fixtures.COMPONENTS;
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Generates a data directory of Cassandra with a snapshot of all its tables, as big as a node in question, e.g.
+ * <pre>
+ * data/ks0/tb0-8a3f.../mc-1-big-Data.db
+ * data/ks0/tb0-8a3f.../.tb0_idx0/mc-1-big-Data.db
+ * data/ks0/tb0-8a3f.../snapshots/snapshot/mc-1-big-Data.db
+ * data/ks0/tb0-8a3f.../snapshots/snapshot/.tb0_idx0/mc-1-big-Data.db
+ * </pre>
+ * Files of a snapshot are hard links to live SSTables, as Cassandra makes them, so both a backup and a restore
+ * to an existing node see the same files. Content is random, digests are computed over Data.db components
+ * the way Cassandra does.
+ */
+public class DataDirectoryGenerator {
+
+    public enum Digest {
+        CRC32("crc32"),
+        ADLER32("adler32"),
+        SHA1("sha1");
+
+        private final String extension;
+
+        Digest(final String extension) {
+            this.extension = extension;
+        }
+
+        public String component() {
+            return "Digest." + extension;
+        }
+    }
+
+    /**
+     * Formats of SSTables, they differ in naming of files and layout of directories.
+     */
+    public enum Format {
+        // 2.0 - instaclustr-recovery_codes-jb-1-Data.db in a directory without table id, indexes next to their table
+        JB("jb", Digest.SHA1),
+        // 2.1 - ks-tb-ka-1-Data.db, indexes next to their table
+        KA("ka", Digest.SHA1),
+        // 2.2 - lb-1-big-Data.db, indexes in their own directories
+        LB("lb", Digest.ADLER32),
+        // 3.0
+        MC("mc", Digest.CRC32),
+        // 3.11
+        MD("md", Digest.CRC32),
+        // 4.0
+        NB("nb", Digest.CRC32);
+
+        private final String version;
+        private final Digest digest;
+
+        Format(final String version, final Digest digest) {
+            this.version = version;
+            this.digest = digest;
+        }
+
+        public Digest getDigest() {
+            return digest;
+        }
+
+        String tableDirectory(final String table, final String tableId) {
+            return this == JB ? table : table + "-" + tableId;
+        }
+
+        String fileName(final String keyspace, final String table, final int generation, final String component) {
+            if (this == JB || this == KA) {
+                return format("%s-%s-%s-%s-%s", keyspace, table, version, generation, component);
+            }
+
+            return format("%s-%s-big-%s", version, generation, component);
+        }
+
+        boolean hasIndexDirectories() {
+            return this != JB && this != KA;
+        }
+    }
+
+    /**
+     * Distribution of sizes of Data.db components, sizes of other components are derived from them.
+     */
+    public enum SizeDistribution {
+        FIXED,
+        UNIFORM,
+        // few big SSTables and many small ones, as levels and tiers of compaction leave them
+        LOG_NORMAL;
+
+        private static final double SIGMA = 1.5;
+
+        long next(final Random random, final long mean) {
+            switch (this) {
+                case UNIFORM:
+                    return (long) (random.nextDouble() * 2 * mean);
+                case LOG_NORMAL:
+                    return (long) Math.exp(Math.log(mean) - SIGMA * SIGMA / 2 + SIGMA * random.nextGaussian());
+                default:
+                    return mean;
+            }
+        }
+    }
+
+    public int keyspaces = 2;
+
+    public int tablesPerKeyspace = 5;
+
+    public int sstablesPerTable = 10;
+
+    public int secondaryIndexesPerTable = 0;
+
+    public Format format = Format.MC;
+
+    // if null, digest Cassandra of the format writes
+    public Digest digest;
+
+    public SizeDistribution sizeDistribution = SizeDistribution.LOG_NORMAL;
+
+    public long meanDataSize = 64 * 1024;
+
+    public String snapshotTag = "snapshot";
+
+    public long seed = 0;
+
+    /**
+     * @return number of SSTables a table consists of, to have about as many files in a snapshot in total
+     */
+    public static int sstablesPerTable(final long files, final int tables, final int secondaryIndexesPerTable) {
+        return (int) Math.max(1, files / ((long) tables * filesPerSSTable() * (1 + secondaryIndexesPerTable)));
+    }
+
+    public static int filesPerSSTable() {
+        return COMPONENTS.size() + 1;
+    }
+
+    /**
+     * @param cassandraDirectory directory "data" directory is created in
+     * @return number of files in the snapshot
+     */
+    public long generate(final Path cassandraDirectory) throws IOException {
+        final Random random = new Random(seed);
+        final Path dataDirectory = cassandraDirectory.resolve("data");
+
+        long files = 0;
+
+        for (int k = 0; k < keyspaces; k++) {
+            final String keyspace = "ks" + k;
+
+            for (int t = 0; t < tablesPerKeyspace; t++) {
+                final String table = "tb" + t;
+                final String tableId = format("%016x%016x", random.nextLong(), random.nextLong());
+                final Path tableDirectory = dataDirectory.resolve(keyspace).resolve(format.tableDirectory(table, tableId));
+                final Path snapshotDirectory = tableDirectory.resolve("snapshots").resolve(snapshotTag);
+
+                files += sstables(keyspace, table, tableDirectory, snapshotDirectory, random);
+
+                for (int i = 0; i < secondaryIndexesPerTable; i++) {
+                    final String index = format("%s_idx%s", table, i);
+
+                    if (format.hasIndexDirectories()) {
+                        files += sstables(keyspace, table, tableDirectory.resolve("." + index), snapshotDirectory.resolve("." + index), random);
+                    } else {
+                        files += sstables(keyspace, table + "." + index, tableDirectory, snapshotDirectory, random);
+                    }
+                }
+            }
+        }
+
+        return files;
+    }
+
+    private long sstables(final String keyspace,
+                          final String table,
+                          final Path directory,
+                          final Path snapshotDirectory,
+                          final Random random) throws IOException {
+        Files.createDirectories(directory);
+        Files.createDirectories(snapshotDirectory);
+
+        final Digest sstableDigest = digest == null ? format.getDigest() : digest;
+
+        long files = 0;
+
+        for (int generation = 1; generation <= sstablesPerTable; generation++) {
+            final long dataSize = Math.max(1, sizeDistribution.next(random, meanDataSize));
+            String digestValue = null;
+
+            for (final String component : COMPONENTS) {
+                final Path file = directory.resolve(format.fileName(keyspace, table, generation, component));
+
+                if (component.equals("Data.db")) {
+                    digestValue = write(file, dataSize, random, sstableDigest);
+                } else {
+                    write(file, componentSize(component, dataSize), random, null);
+                }
+            }
+
+            final String digestFileName = format.fileName(keyspace, table, generation, sstableDigest.component());
+
+            // sha1 digests are followed by the name of the file, like sha1sum prints them
+            Files.write(directory.resolve(digestFileName),
+                        (sstableDigest == Digest.SHA1 ? digestValue + "  " + format.fileName(keyspace, table, generation, "Data.db") : digestValue)
+                            .getBytes(StandardCharsets.UTF_8));
+
+            for (final String component : ImmutableList.<String>builder().addAll(COMPONENTS).add(sstableDigest.component()).build()) {
+                final String fileName = format.fileName(keyspace, table, generation, component);
+
+                link(snapshotDirectory.resolve(fileName), directory.resolve(fileName));
+                files++;
+            }
+        }
+
+        return files;
+    }
+
+    private static long componentSize(final String component, final long dataSize) {
+        switch (component) {
+            case "Index.db":
+                return Math.max(16, dataSize / 20);
+            case "Filter.db":
+            case "CompressionInfo.db":
+                return Math.max(16, dataSize / 100);
+            case "TOC.txt":
+                return 80;
+            default:
+                return Math.max(64, Math.min(dataSize / 100, 4096));
+        }
+    }
+
+    /**
+     * Writes random content to a file.
+     *
+     * @return value of the digest of the content, if any
+     */
+    private static String write(final Path file, final long size, final Random random, final Digest digest) throws IOException {
+        final byte[] buffer = new byte[(int) Math.min(64 * 1024, size)];
+        final Checksum checksum = digest == Digest.CRC32 ? new CRC32() : digest == Digest.ADLER32 ? new Adler32() : null;
+        final Hasher sha1 = digest == Digest.SHA1 ? Hashing.sha1().newHasher() : null;
+
+        try (final OutputStream outputStream = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                final int length = (int) Math.min(buffer.length, size - written);
+
+                random.nextBytes(buffer);
+                outputStream.write(buffer, 0, length);
+
+                if (checksum != null) {
+                    checksum.update(buffer, 0, length);
+                } else if (sha1 != null) {
+                    sha1.putBytes(buffer, 0, length);
+                }
+            }
+        }
+
+        if (checksum != null) {
+            return Long.toString(checksum.getValue());
+        }
+
+        return sha1 == null ? null : sha1.hash().toString();
+    }
+
+    private static void link(final Path link, final Path existing) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (final UnsupportedOperationException | FileSystemException ex) {
+            // file systems without hard links
+            Files.copy(existing, link);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("keyspaces", keyspaces)
+            .add("tablesPerKeyspace", tablesPerKeyspace)
+            .add("sstablesPerTable", sstablesPerTable)
+            .add("secondaryIndexesPerTable", secondaryIndexesPerTable)
+            .add("format", format)
+            .add("digest", digest)
+            .add("sizeDistribution", sizeDistribution)
+            .add("meanDataSize", meanDataSize)
+            .add("snapshotTag", snapshotTag)
+            .add("seed", seed)
+            .toString();
+    }
+}
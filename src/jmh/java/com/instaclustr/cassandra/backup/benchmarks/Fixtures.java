@@ -0,0 +1,109 @@
+package com.instaclustr.cassandra.backup.benchmarks;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Generates fixtures benchmarks run against: directories of tables with SSTables, files of random content
+ * and manifests of snapshots.
+ */
+public final class Fixtures {
+
+    public static final List<String> COMPONENTS = ImmutableList.of("CompressionInfo.db",
+                                                                   "Data.db",
+                                                                   "Filter.db",
+                                                                   "Index.db",
+                                                                   "Statistics.db",
+                                                                   "Summary.db",
+                                                                   "TOC.txt");
+
+    private Fixtures() {
+    }
+
+    /**
+     * Creates a table directory of SSTables in the 3.x format, each with all its components and a digest.
+     *
+     * @param dataDirectory data directory of Cassandra the table is created in
+     * @param sstables      number of SSTables of the table
+     * @param dataSize      size of the Data.db component of each SSTable, other components have 1KB
+     * @return directory of the table
+     */
+    public static Path table(final Path dataDirectory,
+                             final String keyspace,
+                             final String table,
+                             final int sstables,
+                             final int dataSize) throws IOException {
+        final Path tableDirectory = dataDirectory.resolve(keyspace).resolve(table + "-ce555490463111e7be3e3d534d5cadea");
+        final Random random = new Random(0);
+
+        Files.createDirectories(tableDirectory);
+
+        for (int generation = 1; generation <= sstables; generation++) {
+            for (final String component : COMPONENTS) {
+                randomFile(tableDirectory.resolve(format("mc-%s-big-%s", generation, component)), component.equals("Data.db") ? dataSize : 1024, random);
+            }
+
+            Files.write(tableDirectory.resolve(format("mc-%s-big-Digest.crc32", generation)),
+                        Long.toString(random.nextInt() & 0xffffffffL).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return tableDirectory;
+    }
+
+    public static Path randomFile(final Path file, final long size) throws IOException {
+        return randomFile(file, size, new Random(0));
+    }
+
+    /**
+     * Generates lines of a manifest of a snapshot of keyspaces, a fifth of them in system keyspaces.
+     *
+     * @param lines     number of lines of the manifest
+     * @param keyspaces number of keyspaces of the snapshot, other than system ones
+     * @param tables    number of tables in each keyspace
+     */
+    public static List<String> manifest(final int lines, final int keyspaces, final int tables) {
+        final String[] systemKeyspaces = {"system", "system_schema", "system_auth", "system_distributed", "system_traces"};
+        final List<String> manifest = new ArrayList<>(lines);
+        final Random random = new Random(0);
+
+        for (int i = 0; i < lines; i++) {
+            final String keyspace = i % 5 == 0 ? systemKeyspaces[random.nextInt(systemKeyspaces.length)] : "ks" + random.nextInt(keyspaces);
+            final String table = "tb" + random.nextInt(tables);
+            final int generation = i / COMPONENTS.size() + 1;
+
+            manifest.add(format("%s data/%s/%s-ce555490463111e7be3e3d534d5cadea/%s-%s/mc-%s-big-%s",
+                                random.nextInt(Integer.MAX_VALUE),
+                                keyspace,
+                                table,
+                                generation,
+                                random.nextInt(Integer.MAX_VALUE),
+                                generation,
+                                COMPONENTS.get(i % COMPONENTS.size())));
+        }
+
+        return manifest;
+    }
+
+    private static Path randomFile(final Path file, final long size, final Random random) throws IOException {
+        final byte[] buffer = new byte[64 * 1024];
+
+        try (final OutputStream outputStream = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                outputStream.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,101 @@
+package com.instaclustr.cassandra.backup.benchmarks;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimitedInputStream;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimiter;
+import com.instaclustr.io.RateLimitedInputStream;
+import com.instaclustr.io.SeekableByteChannelInputStream;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read throughput of streams files are uploaded through. Limits are set far above what a disk can do,
+ * so the benchmarks measure the overhead of limiting, not the limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InputStreamBenchmark {
+
+    private static final long UNLIMITED_BYTES_PER_SECOND = 1L << 40;
+
+    @Param({"67108864"})
+    public long fileSize;
+
+    @Param({"8192", "65536"})
+    public int bufferSize;
+
+    private Path root;
+    private Path file;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("input-stream-benchmark");
+        file = Fixtures.randomFile(root.resolve("mc-1-big-Data.db"), fileSize);
+        buffer = new byte[bufferSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Benchmark
+    public long seekableByteChannelInputStream() throws Exception {
+        try (final InputStream inputStream = new SeekableByteChannelInputStream(FileChannel.open(file, READ))) {
+            return read(inputStream);
+        }
+    }
+
+    @Benchmark
+    public long rateLimitedInputStream() throws Exception {
+        try (final InputStream inputStream = new RateLimitedInputStream(new SeekableByteChannelInputStream(FileChannel.open(file, READ)),
+                                                                        RateLimiter.create(UNLIMITED_BYTES_PER_SECOND))) {
+            return read(inputStream);
+        }
+    }
+
+    @Benchmark
+    public long bandwidthLimitedInputStream() throws Exception {
+        try (final InputStream inputStream = new BandwidthLimitedInputStream(new SeekableByteChannelInputStream(FileChannel.open(file, READ)),
+                                                                             new BandwidthLimiter(UNLIMITED_BYTES_PER_SECOND, null))) {
+            return read(inputStream);
+        }
+    }
+
+    private long read(final InputStream inputStream) throws IOException {
+        long total = 0;
+        int n;
+
+        while ((n = inputStream.read(buffer)) != -1) {
+            total += n;
+        }
+
+        return total;
+    }
+}
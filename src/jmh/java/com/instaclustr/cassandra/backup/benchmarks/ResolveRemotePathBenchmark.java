@@ -0,0 +1,56 @@
+package com.instaclustr.cassandra.backup.benchmarks;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+import com.instaclustr.cassandra.backup.impl.StorageInteractor;
+import com.instaclustr.cassandra.backup.impl.StorageLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of an object key to its remote path, done for every object a backup or restore touches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolveRemotePathBenchmark {
+
+    private StorageInteractor storageInteractor;
+    private Path objectKey;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        storageInteractor = new StorageInteractor(new StorageLocation("s3://bucket/cluster/dc/node")) {
+            @Override
+            public RemoteObjectReference objectKeyToRemoteReference(final Path objectKey) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected void cleanup() {
+            }
+        };
+
+        objectKey = Paths.get("data/ks/tb-ce555490463111e7be3e3d534d5cadea/1-1160807146/mc-1-big-Data.db");
+    }
+
+    @Benchmark
+    public String resolveRemotePath() {
+        return storageInteractor.resolveRemotePath(objectKey);
+    }
+}
@@ -0,0 +1,79 @@
+package com.instaclustr.cassandra.backup.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.SSTableUtils;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Manifest generation of a table, done for every table of a backup, and hashing of SSTables it consists of.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SSTableUtilsBenchmark {
+
+    @Param({"100", "1000"})
+    public int sstables;
+
+    // big enough for the checksum of the Data.db component to be computed over its last 10MB
+    @Param({"16777216"})
+    public int checksumFileSize;
+
+    private Path root;
+    private Path tableDirectory;
+    private Path dataComponent;
+    private Path checksumFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("sstable-utils-benchmark");
+        tableDirectory = Fixtures.table(root.resolve("data"), "ks", "tb", sstables, 1024);
+        dataComponent = tableDirectory.resolve("mc-1-big-Data.db");
+        checksumFile = Fixtures.randomFile(root.resolve("mc-1-big-Data.db"), checksumFileSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Benchmark
+    public void ssTableManifest(final Blackhole blackhole) throws Exception {
+        try (final Stream<ManifestEntry> manifest = SSTableUtils.ssTableManifest(tableDirectory, Paths.get("data/ks/tb"))) {
+            manifest.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public String sstableHash() throws Exception {
+        return SSTableUtils.sstableHash(dataComponent);
+    }
+
+    @Benchmark
+    public String calculateChecksum() throws Exception {
+        return SSTableUtils.calculateChecksum(checksumFile);
+    }
+}
@@ -0,0 +1,181 @@
+package com.instaclustr.cassandra.backup.benchmarks;
+
+import static java.lang.String.format;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Stage;
+import com.google.inject.TypeLiteral;
+import com.instaclustr.cassandra.backup.guice.BackuperFactory;
+import com.instaclustr.cassandra.backup.guice.BucketServiceFactory;
+import com.instaclustr.cassandra.backup.guice.RestorerFactory;
+import com.instaclustr.cassandra.backup.guice.StorageModules;
+import com.instaclustr.cassandra.backup.impl.backup.BackupOperation;
+import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreOperation;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreOperation.RestorePlan;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
+import com.instaclustr.cassandra.backup.impl.restore.Restorer;
+import com.instaclustr.cassandra.backup.sim.SimulatedStorage;
+import com.instaclustr.operations.Operation;
+import com.instaclustr.threading.ExecutorsModule;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+
+/**
+ * Backups and restore planning of nodes with many files, against the local and the simulated storage.
+ * <p>
+ * The snapshot is uploaded once before measurements, so a measured backup generates the manifest and
+ * freshens every file, as a backup of an unchanged node does. A measured restore plan downloads the manifest
+ * and compares it with SSTables of the node, which are all up to date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ScaleBenchmark {
+
+    private static final String SNAPSHOT_TAG = "scale";
+
+    private static final int KEYSPACES = 10;
+    private static final int TABLES_PER_KEYSPACE = 10;
+
+    // files of the snapshot, roughly
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    @Param({"file", "sim"})
+    public String provider;
+
+    @Param({"MC"})
+    public DataDirectoryGenerator.Format format;
+
+    @Param({"0"})
+    public int secondaryIndexesPerTable;
+
+    // latency of every request to the simulated storage
+    @Param({"0"})
+    public int simLatencyMillis;
+
+    // components of an SSTable smaller than this are packed into one object, none are if 0
+    @Param({"0", "65536"})
+    public long packThreshold;
+
+    private Path root;
+    private Map<String, BackuperFactory> backuperFactoryMap;
+    private Map<String, BucketServiceFactory> bucketServiceFactoryMap;
+    private Map<String, RestorerFactory> restorerFactoryMap;
+    private BackupOperationRequest backupRequest;
+    private RestoreOperationRequest restoreRequest;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("scale-benchmark");
+
+        final Path cassandraDirectory = root.resolve("cassandra");
+
+        final DataDirectoryGenerator generator = new DataDirectoryGenerator();
+        generator.keyspaces = KEYSPACES;
+        generator.tablesPerKeyspace = TABLES_PER_KEYSPACE;
+        generator.sstablesPerTable = DataDirectoryGenerator.sstablesPerTable(files, KEYSPACES * TABLES_PER_KEYSPACE, secondaryIndexesPerTable);
+        generator.secondaryIndexesPerTable = secondaryIndexesPerTable;
+        generator.format = format;
+        generator.meanDataSize = 1024;
+        generator.snapshotTag = SNAPSHOT_TAG;
+        generator.generate(cassandraDirectory);
+
+        // the simulated storage keeps objects so the manifest can be downloaded back
+        System.setProperty(SimulatedStorage.Configuration.DIRECTORY, root.resolve("sim").toString());
+        System.setProperty(SimulatedStorage.Configuration.LATENCY_MS, Integer.toString(simLatencyMillis));
+
+        final Injector injector = Guice.createInjector(Stage.PRODUCTION, new StorageModules(), new ExecutorsModule());
+
+        backuperFactoryMap = injector.getInstance(Key.get(new TypeLiteral<Map<String, BackuperFactory>>() {}));
+        bucketServiceFactoryMap = injector.getInstance(Key.get(new TypeLiteral<Map<String, BucketServiceFactory>>() {}));
+        restorerFactoryMap = injector.getInstance(Key.get(new TypeLiteral<Map<String, RestorerFactory>>() {}));
+
+        final String storageLocation = provider.equals("file")
+            ? format("file://%s/bucket/cluster/dc/node", root.resolve("storage"))
+            : format("%s://bucket/cluster/dc/node", provider);
+
+        backupRequest = CommandLine.populateCommand(new BackupOperationRequest(),
+                                                    "--storage-location=" + storageLocation,
+                                                    "--data-directory=" + cassandraDirectory,
+                                                    "--shared-path=" + root,
+                                                    "--lock-file=" + root.resolve("lock"),
+                                                    "--snapshot-tag=" + SNAPSHOT_TAG,
+                                                    "--offline");
+
+        if (packThreshold > 0) {
+            backupRequest.packThreshold = packThreshold;
+        }
+
+        restoreRequest = CommandLine.populateCommand(new RestoreOperationRequest(),
+                                                     "--storage-location=" + storageLocation,
+                                                     "--data-directory=" + cassandraDirectory,
+                                                     "--config-directory=" + root.resolve("conf"),
+                                                     "--lock-file=" + root.resolve("lock"),
+                                                     "--snapshot-tag=" + SNAPSHOT_TAG);
+
+        backup();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.clearProperty(SimulatedStorage.Configuration.DIRECTORY);
+        System.clearProperty(SimulatedStorage.Configuration.LATENCY_MS);
+
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Benchmark
+    public BackupOperation backup() {
+        final BackupOperation operation = new BackupOperation(() -> {
+            throw new UnsupportedOperationException("Backup is offline.");
+        }, backuperFactoryMap, bucketServiceFactoryMap, backupRequest);
+
+        operation.run();
+
+        if (operation.state == Operation.State.FAILED) {
+            throw new IllegalStateException("Backup has failed.", operation.failureCause);
+        }
+
+        return operation;
+    }
+
+    @Benchmark
+    public RestorePlan restorePlan() throws Exception {
+        final RestoreOperation operation = new RestoreOperation(restorerFactoryMap, restoreRequest);
+
+        try (final Restorer restorer = restorerFactoryMap.get(provider).createRestorer(restoreRequest)) {
+            final RestorePlan plan = operation.plan(restorer);
+
+            if (!plan.downloads.isEmpty()) {
+                throw new IllegalStateException(format("%s files of an up to date node would be downloaded.", plan.downloads.size()));
+            }
+
+            return plan;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.instaclustr.cassandra.backup.impl.restore;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import com.instaclustr.cassandra.backup.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filtering of a manifest of a snapshot before a restore. It is in the package of {@link RestorePredicates}
+ * as they are not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RestorePredicatesBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int manifestLines;
+
+    private List<String> manifest;
+    private Predicate<String> fullRestore;
+    private Predicate<String> subsetRestore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manifest = Fixtures.manifest(manifestLines, 10, 50);
+
+        final Multimap<String, String> keyspaceTables = ImmutableMultimap.of("ks1", "tb1", "ks2", "tb2", "ks3", "tb3");
+
+        fullRestore = RestorePredicates.getManifestFilesForFullNewRestore(false);
+        subsetRestore = RestorePredicates.getManifestFilesForSubsetNewRestore(keyspaceTables, false);
+    }
+
+    @Benchmark
+    public long fullRestore() {
+        return manifest.stream().filter(fullRestore).count();
+    }
+
+    @Benchmark
+    public long subsetRestore() {
+        return manifest.stream().filter(subsetRestore).count();
+    }
+}
@@ -2,13 +2,23 @@ package com.instaclustr.cassandra.backup.aws;
 
 import static com.amazonaws.event.ProgressEventType.TRANSFER_COMPLETED_EVENT;
 import static com.amazonaws.event.ProgressEventType.TRANSFER_FAILED_EVENT;
+import static java.nio.file.StandardOpenOption.READ;
 import static java.util.Optional.ofNullable;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -16,18 +26,29 @@ import com.amazonaws.event.ProgressEvent;
 import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
 import com.amazonaws.services.s3.model.MultipartUploadListing;
+import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.StorageClass;
+import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.transfer.PersistableTransfer;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.internal.S3ProgressListener;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.aws.S3Module.TransferManagerFactory;
+import com.instaclustr.cassandra.backup.aws.S3MultipartUploadJournal.MultipartUpload;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
@@ -41,14 +62,25 @@ public class S3Backuper extends Backuper {
 
     private static final Logger logger = LoggerFactory.getLogger(S3Backuper.class);
 
+    // S3 limits
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10000;
+
+    private static final String JOURNAL_DIRECTORY = "tmp/cassandra-operator/uploads";
+
+    private final ClientCache.Lease<TransferManager> transferManagerLease;
     private final TransferManager transferManager;
 
+    private final S3MultipartUploadJournal journal;
+
     @AssistedInject
     public S3Backuper(final TransferManagerFactory transferManagerFactory,
                       final ExecutorServiceSupplier executorSupplier,
                       @Assisted final BackupOperationRequest request) {
         super(request, executorSupplier);
-        this.transferManager = transferManagerFactory.build(request);
+        this.transferManagerLease = transferManagerFactory.lease(request);
+        this.transferManager = transferManagerLease.get();
+        this.journal = new S3MultipartUploadJournal(request.sharedContainerPath.resolve(JOURNAL_DIRECTORY));
     }
 
     @AssistedInject
@@ -56,7 +88,9 @@ public class S3Backuper extends Backuper {
                       final ExecutorServiceSupplier executorServiceSupplier,
                       @Assisted final BackupCommitLogsOperationRequest request) {
         super(request, executorServiceSupplier);
-        this.transferManager = transferManagerFactory.build(request);
+        this.transferManagerLease = transferManagerFactory.lease(request);
+        this.transferManager = transferManagerLease.get();
+        this.journal = new S3MultipartUploadJournal(request.sharedContainerPath.resolve(JOURNAL_DIRECTORY));
     }
 
     @Override
@@ -116,6 +150,155 @@ public class S3Backuper extends Backuper {
         }
     }
 
+    @Override
+    public void consumeRemoteObjectKeys(final Consumer<Path> consumer) {
+        final AmazonS3 s3Client = transferManager.getAmazonS3Client();
+
+        final Path nodePath = Paths.get(request.storageLocation.clusterId, request.storageLocation.datacenterId, request.storageLocation.nodeId);
+
+        ObjectListing objectListing = s3Client.listObjects(request.storageLocation.bucket, nodePath.toString() + "/");
+
+        while (true) {
+            objectListing.getObjectSummaries().stream()
+                .filter(objectSummary -> !objectSummary.getKey().endsWith("/"))
+                .forEach(objectSummary -> consumer.accept(nodePath.relativize(Paths.get(objectSummary.getKey()))));
+
+            if (!objectListing.isTruncated()) {
+                break;
+            }
+
+            objectListing = s3Client.listNextBatchOfObjects(objectListing);
+        }
+    }
+
+    /**
+     * Files of at least --multipart-threshold are split into parts which are read by positional reads of the file
+     * and uploaded concurrently, at most --part-concurrency parts of a file at once.
+     * <p>
+     * Uploaded parts are journaled so an interrupted upload of the same file is resumed by the next backup.
+     */
+    @Override
+    protected void uploadFile(final ManifestEntry manifestEntry,
+                              final RemoteObjectReference object,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        if (manifestEntry.size < request.multipartThreshold) {
+            super.uploadFile(manifestEntry, object, operationProgressTracker);
+            return;
+        }
+
+        final AmazonS3 s3Client = transferManager.getAmazonS3Client();
+
+        final String bucket = request.storageLocation.bucket;
+        final String key = object.canonicalPath;
+        final long size = manifestEntry.size;
+        final long partSize = partSize(request.partSize, size);
+        final long lastModified = Files.getLastModifiedTime(manifestEntry.localFile).toMillis();
+
+        try {
+            MultipartUpload upload = null;
+            Map<Integer, PartETag> uploadedParts = new HashMap<>();
+
+            final Optional<MultipartUpload> journaledUpload = journal.find(bucket, key, manifestEntry.localFile, size, lastModified, partSize);
+
+            if (journaledUpload.isPresent()) {
+                try {
+                    uploadedParts = listUploadedParts(s3Client, journaledUpload.get());
+                    upload = journaledUpload.get();
+
+                    logger.info("Resuming upload of {}, {} parts of {} are already uploaded.", key, uploadedParts.size(), numberOfParts(size, partSize));
+                } catch (final AmazonS3Exception ex) {
+                    if (ex.getStatusCode() != 404) {
+                        throw ex;
+                    }
+
+                    logger.info("Journaled upload {} does not exist anymore, starting over.", journaledUpload.get().uploadId);
+                    journal.remove(journaledUpload.get());
+                }
+            }
+
+            if (upload == null) {
+                final String uploadId = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key)).getUploadId();
+                upload = journal.create(bucket, key, uploadId, manifestEntry.localFile, size, lastModified, partSize);
+            }
+
+            final MultipartUpload multipartUpload = upload;
+
+            logger.debug("Uploading {} in {} parts of {}.", key, numberOfParts(size, partSize), partSize);
+
+            final List<PartETag> partETags;
+
+            try (final FileChannel fileChannel = FileChannel.open(manifestEntry.localFile, READ)) {
+                partETags = uploadParts(fileChannel, size, partSize, uploadedParts, operationProgressTracker, (partNumber, partStream, length) -> {
+                    final PartETag partETag = s3Client.uploadPart(new UploadPartRequest()
+                                                                      .withBucketName(bucket)
+                                                                      .withKey(key)
+                                                                      .withUploadId(multipartUpload.uploadId)
+                                                                      .withPartNumber(partNumber)
+                                                                      .withPartSize(length)
+                                                                      .withInputStream(partStream)).getPartETag();
+
+                    journal.partUploaded(multipartUpload, partETag.getPartNumber(), partETag.getETag());
+
+                    return partETag;
+                });
+            }
+
+            // failed part uploads stay journaled and are resumed next time, failed completion is started over
+            try {
+                s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, upload.uploadId, partETags));
+            } catch (final Exception ex) {
+                abortMultipartUpload(s3Client, upload);
+                throw ex;
+            } finally {
+                journal.remove(upload);
+            }
+        } finally {
+            operationProgressTracker.update();
+        }
+    }
+
+    /**
+     * Parts listed by S3 are authoritative, the journal is used only when parts can not be listed.
+     */
+    private Map<Integer, PartETag> listUploadedParts(final AmazonS3 s3Client, final MultipartUpload upload) {
+        final Map<Integer, PartETag> uploadedParts = new HashMap<>();
+
+        final ListPartsRequest listPartsRequest = new ListPartsRequest(upload.bucket, upload.key, upload.uploadId);
+
+        try {
+            while (true) {
+                final PartListing partListing = s3Client.listParts(listPartsRequest);
+
+                partListing.getParts().forEach(part -> uploadedParts.put(part.getPartNumber(), new PartETag(part.getPartNumber(), part.getETag())));
+
+                if (!partListing.isTruncated()) {
+                    return uploadedParts;
+                }
+
+                listPartsRequest.setPartNumberMarker(partListing.getNextPartNumberMarker());
+            }
+        } catch (final AmazonS3Exception ex) {
+            if (ex.getStatusCode() != 403) {
+                throw ex;
+            }
+
+            logger.warn("Not allowed to list parts of upload {}, resuming from journal.", upload.uploadId);
+
+            uploadedParts.clear();
+            upload.parts.forEach((partNumber, eTag) -> uploadedParts.put(partNumber, new PartETag(partNumber, eTag)));
+
+            return uploadedParts;
+        }
+    }
+
+    private void abortMultipartUpload(final AmazonS3 s3Client, final MultipartUpload upload) {
+        try {
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(upload.bucket, upload.key, upload.uploadId));
+        } catch (final Exception ex) {
+            logger.warn("Failed to abort multipart upload {} of {}.", upload.uploadId, upload.key, ex);
+        }
+    }
+
     private static class UploadProgressListener implements S3ProgressListener {
 
         private final S3RemoteObjectReference s3RemoteObjectReference;
@@ -147,10 +330,15 @@ public class S3Backuper extends Backuper {
 
         @Override
         public void onPersistableTransfer(final PersistableTransfer persistableTransfer) {
-            // We don't resume uploads
+            // Uploads of streams are not resumed, multipart uploads are resumed from the journal
         }
     }
 
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        return S3Module.isRetryable(throwable) || super.isRetryable(throwable);
+    }
+
     @Override
     public void cleanup() {
         try {
@@ -160,28 +348,28 @@ public class S3Backuper extends Backuper {
             logger.warn("Failed to cleanup multipart uploads.", e);
         }
 
-        try {
-            transferManager.shutdownNow(true);
-        } catch (final Exception ex) {
-            logger.warn("Exception occurred while shutting down transfer manager for S3Backuper", ex);
-        }
+        transferManagerLease.close();
     }
 
-    private void cleanupMultipartUploads() {
+    private void cleanupMultipartUploads() throws IOException {
         final AmazonS3 s3Client = transferManager.getAmazonS3Client();
 
         final Instant yesterdayInstant = ZonedDateTime.now().minusDays(1).toInstant();
 
-        logger.info("Cleaning up multipart uploads older than {}.", yesterdayInstant);
+        // uploads of other nodes are journaled by them, so only uploads of this node are cleaned up
+        final Set<String> journaledUploadIds = journal.uploadIds();
+
+        logger.info("Cleaning up multipart uploads older than {} which can not be resumed.", yesterdayInstant);
 
         final ListMultipartUploadsRequest listMultipartUploadsRequest = new ListMultipartUploadsRequest(request.storageLocation.bucket)
-            .withPrefix(request.storageLocation.clusterId + "/" + request.storageLocation.datacenterId);
+            .withPrefix(request.storageLocation.clusterId + "/" + request.storageLocation.datacenterId + "/" + request.storageLocation.nodeId + "/");
 
         while (true) {
             final MultipartUploadListing multipartUploadListing = s3Client.listMultipartUploads(listMultipartUploadsRequest);
 
             multipartUploadListing.getMultipartUploads().stream()
                 .filter(u -> u.getInitiated().toInstant().isBefore(yesterdayInstant))
+                .filter(u -> !journaledUploadIds.contains(u.getUploadId()))
                 .forEach(u -> {
                     logger.info("Aborting multi-part upload for key \"{}\" initiated on {}", u.getKey(), u.getInitiated().toInstant());
 
@@ -198,8 +386,16 @@ public class S3Backuper extends Backuper {
             }
 
             listMultipartUploadsRequest
-                .withKeyMarker(multipartUploadListing.getKeyMarker())
-                .withUploadIdMarker(multipartUploadListing.getUploadIdMarker());
+                .withKeyMarker(multipartUploadListing.getNextKeyMarker())
+                .withUploadIdMarker(multipartUploadListing.getNextUploadIdMarker());
         }
     }
+
+    /**
+     * @return size of parts of a multipart upload of a file, --part-size unless it is below the minimum of S3 or the file
+     * would have more parts than S3 allows
+     */
+    public static long partSize(final long requestedPartSize, final long size) {
+        return Math.max(Math.max(requestedPartSize, MIN_PART_SIZE), (size + MAX_PARTS - 1) / MAX_PARTS);
+    }
 }
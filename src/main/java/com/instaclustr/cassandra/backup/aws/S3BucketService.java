@@ -12,6 +12,7 @@ import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.aws.S3Module.S3ModuleException;
 import com.instaclustr.cassandra.backup.aws.S3Module.TransferManagerFactory;
 import com.instaclustr.cassandra.backup.impl.BucketService;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
 import org.slf4j.Logger;
@@ -21,18 +22,21 @@ public class S3BucketService implements BucketService {
 
     private static final Logger logger = LoggerFactory.getLogger(S3BucketService.class);
 
+    private final ClientCache.Lease<TransferManager> transferManagerLease;
     private final TransferManager transferManager;
 
     @AssistedInject
     public S3BucketService(final TransferManagerFactory transferManagerFactory,
                            @Assisted final BackupOperationRequest request) {
-        this.transferManager = transferManagerFactory.build(request);
+        this.transferManagerLease = transferManagerFactory.lease(request);
+        this.transferManager = transferManagerLease.get();
     }
 
     @AssistedInject
     public S3BucketService(final TransferManagerFactory transferManagerFactory,
                            @Assisted final BackupCommitLogsOperationRequest request) {
-        this.transferManager = transferManagerFactory.build(request);
+        this.transferManagerLease = transferManagerFactory.lease(request);
+        this.transferManager = transferManagerLease.get();
     }
 
     @Override
@@ -76,11 +80,7 @@ public class S3BucketService implements BucketService {
 
     @Override
     public void close() {
-        try {
-            transferManager.shutdownNow();
-        } catch (final Exception ex) {
-            logger.error("Unable to shutdown TransferManager!", ex);
-        }
+        transferManagerLease.close();
     }
 
     private void delete(final AmazonS3 s3Client, final ObjectListing objectListing, final String bucketName) {
@@ -0,0 +1,36 @@
+package com.instaclustr.cassandra.backup.aws;
+
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.RetryUtils;
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics;
+import com.instaclustr.cassandra.backup.impl.metrics.TransferMetrics;
+
+/**
+ * Counts attempts of requests the client retries by itself, and responses throttling them, to metrics of S3.
+ */
+public class S3MetricsRequestHandler extends RequestHandler2 {
+
+    private static final HandlerContextKey<Boolean> ATTEMPTED = new HandlerContextKey<>("Attempted");
+
+    private final StorageMetrics metrics = TransferMetrics.getInstance().storage("s3");
+
+    @Override
+    public void beforeAttempt(final HandlerBeforeAttemptContext context) {
+        if (context.getRequest().getHandlerContext(ATTEMPTED) != null) {
+            metrics.retried();
+        }
+
+        context.getRequest().addHandlerContext(ATTEMPTED, true);
+    }
+
+    @Override
+    public void afterAttempt(final HandlerAfterAttemptContext context) {
+        if (context.getException() instanceof SdkBaseException && RetryUtils.isThrottlingException((SdkBaseException) context.getException())) {
+            metrics.throttled();
+        }
+    }
+}
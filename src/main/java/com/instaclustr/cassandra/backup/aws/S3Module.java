@@ -6,18 +6,22 @@ import static java.lang.String.format;
 
 import java.util.Map;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.KubernetesAwareRequest;
 import com.instaclustr.kubernetes.KubernetesHelper;
 import com.instaclustr.kubernetes.KubernetesSecretsReader;
@@ -37,6 +41,19 @@ public class S3Module extends AbstractModule {
                         S3BucketService.class);
     }
 
+    /**
+     * @return true if S3 throttled a request or failed on its side (5xx), or the error code of its response is
+     * one the client retries too. Failures of a connection are I/O failures the caller recognises.
+     */
+    static boolean isRetryable(final Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream()
+            .filter(AmazonServiceException.class::isInstance)
+            .map(AmazonServiceException.class::cast)
+            .anyMatch(cause -> RetryUtils.isRetryableServiceException(cause)
+                || RetryUtils.isThrottlingException(cause)
+                || cause.getStatusCode() >= 500);
+    }
+
     @Provides
     @Singleton
     TransferManagerFactory provideTransferManagerFactory(final Provider<CoreV1Api> coreV1ApiProvider) {
@@ -49,6 +66,9 @@ public class S3Module extends AbstractModule {
 
         private final Provider<CoreV1Api> coreV1ApiProvider;
 
+        // shutting down a transfer manager shuts down its client too
+        private final ClientCache<String, TransferManager> transferManagers = new ClientCache<>("s3", transferManager -> transferManager.shutdownNow(true));
+
         public TransferManagerFactory(final Provider<CoreV1Api> coreV1ApiProvider) {
             this.coreV1ApiProvider = coreV1ApiProvider;
         }
@@ -58,6 +78,22 @@ public class S3Module extends AbstractModule {
             return TransferManagerBuilder.standard().withS3Client(amazonS3).build();
         }
 
+        /**
+         * Leases a transfer manager shared with other operations which use the same secret, or the same endpoint
+         * and region outside of Kubernetes. It must not be shut down, the lease is closed instead.
+         */
+        public ClientCache.Lease<TransferManager> lease(final KubernetesAwareRequest operationRequest) {
+            return transferManagers.lease(cacheKey(operationRequest), () -> build(operationRequest));
+        }
+
+        private String cacheKey(final KubernetesAwareRequest operationRequest) {
+            if (isRunningInKubernetes()) {
+                return format("secret %s/%s", resolveKubernetesKeyspace(operationRequest), operationRequest.getSecretName());
+            } else {
+                return format("endpoint %s, region %s", System.getenv("AWS_ENDPOINT"), System.getenv("AWS_REGION"));
+            }
+        }
+
         public boolean isRunningInKubernetes() {
             return KubernetesHelper.isRunningInKubernetes() || isRunningAsClient();
         }
@@ -66,7 +102,7 @@ public class S3Module extends AbstractModule {
 
             final S3Configuration s3Conf = resolveS3Configuration(coreV1ApiProvider, operationRequest);
 
-            final AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard();
+            final AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard().withRequestHandlers(new S3MetricsRequestHandler());
 
             if (s3Conf.awsEndpoint != null) {
                 // AWS_REGION must be set if AWS_ENDPOINT is set
@@ -0,0 +1,203 @@
+package com.instaclustr.cassandra.backup.aws;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local journal of multipart uploads in progress, so an upload interrupted e.g. by a restart of a pod is
+ * resumed by the next backup instead of being started over. There is one json file per uploaded object,
+ * rewritten after each uploaded part and removed once the upload is completed.
+ */
+public class S3MultipartUploadJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3MultipartUploadJournal.class);
+
+    // journaled uploads not touched for this long are considered abandoned
+    private static final long EXPIRATION_DAYS = 7;
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public S3MultipartUploadJournal(final Path directory) {
+        this.directory = directory;
+    }
+
+    public static class MultipartUpload {
+
+        public String bucket;
+        public String key;
+        public String uploadId;
+        public String localFile;
+        public long size;
+        public long lastModified;
+        public long partSize;
+        public SortedMap<Integer, String> parts = new TreeMap<>();
+
+        public MultipartUpload() {
+            // for jackson
+        }
+
+        MultipartUpload(final String bucket,
+                        final String key,
+                        final String uploadId,
+                        final Path localFile,
+                        final long size,
+                        final long lastModified,
+                        final long partSize) {
+            this.bucket = bucket;
+            this.key = key;
+            this.uploadId = uploadId;
+            this.localFile = localFile.toString();
+            this.size = size;
+            this.lastModified = lastModified;
+            this.partSize = partSize;
+        }
+
+        /**
+         * The local file is not compared, a backup taken again after a restart uploads the same SSTable from a snapshot
+         * of another tag. The key holds the hash of the SSTable and snapshots are hard links, so the size and the
+         * modification time of the file are the same.
+         */
+        boolean isUploadOf(final String bucket, final String key, final long size, final long lastModified, final long partSize) {
+            return this.bucket.equals(bucket) && this.key.equals(key) && this.size == size && this.lastModified == lastModified && this.partSize == partSize;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("bucket", bucket)
+                .add("key", key)
+                .add("uploadId", uploadId)
+                .add("localFile", localFile)
+                .add("size", size)
+                .add("partSize", partSize)
+                .add("parts", parts.size())
+                .toString();
+        }
+    }
+
+    /**
+     * @return upload to the key journaled for a file of the same size, modification time and part size, if any
+     */
+    public Optional<MultipartUpload> find(final String bucket,
+                                          final String key,
+                                          final Path localFile,
+                                          final long size,
+                                          final long lastModified,
+                                          final long partSize) {
+        final Path journalFile = journalFile(bucket, key);
+
+        if (!Files.exists(journalFile)) {
+            return Optional.empty();
+        }
+
+        try {
+            final MultipartUpload upload = objectMapper.readValue(journalFile.toFile(), MultipartUpload.class);
+
+            if (upload.isUploadOf(bucket, key, size, lastModified, partSize)) {
+                return Optional.of(upload);
+            }
+
+            logger.info("Journaled upload {} is not an upload of {}, it will not be resumed.", upload, localFile);
+        } catch (final IOException ex) {
+            logger.warn("Unable to read journal {}, upload of {} will not be resumed.", journalFile, key, ex);
+        }
+
+        return Optional.empty();
+    }
+
+    public MultipartUpload create(final String bucket,
+                                  final String key,
+                                  final String uploadId,
+                                  final Path localFile,
+                                  final long size,
+                                  final long lastModified,
+                                  final long partSize) throws IOException {
+        final MultipartUpload upload = new MultipartUpload(bucket, key, uploadId, localFile, size, lastModified, partSize);
+
+        save(upload);
+
+        return upload;
+    }
+
+    public void partUploaded(final MultipartUpload upload, final int partNumber, final String eTag) throws IOException {
+        synchronized (upload) {
+            upload.parts.put(partNumber, eTag);
+            save(upload);
+        }
+    }
+
+    public void remove(final MultipartUpload upload) {
+        try {
+            Files.deleteIfExists(journalFile(upload.bucket, upload.key));
+        } catch (final IOException ex) {
+            logger.warn("Unable to remove journal of upload {}.", upload, ex);
+        }
+    }
+
+    /**
+     * Removes expired journals.
+     *
+     * @return ids of journaled uploads which may still be resumed
+     */
+    public Set<String> uploadIds() throws IOException {
+        final Set<String> uploadIds = new HashSet<>();
+
+        if (!Files.isDirectory(directory)) {
+            return uploadIds;
+        }
+
+        final Instant expiration = Instant.now().minus(EXPIRATION_DAYS, ChronoUnit.DAYS);
+
+        try (final Stream<Path> journalFiles = Files.list(directory)) {
+            for (final Path journalFile : (Iterable<Path>) journalFiles.filter(p -> p.toString().endsWith(".json"))::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(journalFile).toInstant().isBefore(expiration)) {
+                        logger.info("Removing expired journal {}.", journalFile);
+                        Files.deleteIfExists(journalFile);
+                        continue;
+                    }
+
+                    uploadIds.add(objectMapper.readValue(journalFile.toFile(), MultipartUpload.class).uploadId);
+                } catch (final IOException ex) {
+                    logger.warn("Unable to read journal {}.", journalFile, ex);
+                }
+            }
+        }
+
+        return uploadIds;
+    }
+
+    private void save(final MultipartUpload upload) throws IOException {
+        Files.createDirectories(directory);
+
+        final Path journalFile = journalFile(upload.bucket, upload.key);
+        final Path tempFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+
+        Files.write(tempFile, objectMapper.writeValueAsBytes(upload));
+        Files.move(tempFile, journalFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private Path journalFile(final String bucket, final String key) {
+        return directory.resolve(Hashing.sha256().hashString(bucket + "/" + key, StandardCharsets.UTF_8).toString() + ".json");
+    }
+}
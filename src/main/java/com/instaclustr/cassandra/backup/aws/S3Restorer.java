@@ -2,6 +2,7 @@ package com.instaclustr.cassandra.backup.aws;
 
 import static java.util.Optional.ofNullable;
 
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -21,6 +22,7 @@ import com.amazonaws.services.s3.transfer.internal.S3ProgressListener;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.aws.S3Module.TransferManagerFactory;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
@@ -34,6 +36,7 @@ public class S3Restorer extends Restorer {
     private static final Logger logger = LoggerFactory.getLogger(S3Restorer.class);
 
     private final AmazonS3 amazonS3;
+    private final ClientCache.Lease<TransferManager> transferManagerLease;
     private final TransferManager transferManager;
 
     @AssistedInject
@@ -41,7 +44,8 @@ public class S3Restorer extends Restorer {
                       final ExecutorServiceSupplier executorServiceSupplier,
                       @Assisted final RestoreOperationRequest request) {
         super(request, executorServiceSupplier);
-        this.transferManager = transferManagerFactory.build(request);
+        this.transferManagerLease = transferManagerFactory.lease(request);
+        this.transferManager = transferManagerLease.get();
         this.amazonS3 = this.transferManager.getAmazonS3Client();
     }
 
@@ -50,7 +54,8 @@ public class S3Restorer extends Restorer {
                       final ExecutorServiceSupplier executorServiceSupplier,
                       @Assisted final RestoreCommitLogsOperationRequest request) {
         super(request, executorServiceSupplier);
-        this.transferManager = transferManagerFactory.build(request);
+        this.transferManagerLease = transferManagerFactory.lease(request);
+        this.transferManager = transferManagerLease.get();
         this.amazonS3 = this.transferManager.getAmazonS3Client();
     }
 
@@ -78,6 +83,19 @@ public class S3Restorer extends Restorer {
         }
     }
 
+    @Override
+    public long getRemoteObjectSize(final RemoteObjectReference objectReference) {
+        return amazonS3.getObjectMetadata(request.storageLocation.bucket, objectReference.canonicalPath).getContentLength();
+    }
+
+    @Override
+    protected InputStream readRange(final RemoteObjectReference objectReference, final long offset, final long length) {
+        final GetObjectRequest getObjectRequest = new GetObjectRequest(request.storageLocation.bucket, objectReference.canonicalPath)
+            .withRange(offset, offset + length - 1);
+
+        return amazonS3.getObject(getObjectRequest).getObjectContent();
+    }
+
     private static class DownloadProgressListener implements S3ProgressListener {
 
         private final RemoteObjectReference objectReference;
@@ -122,8 +140,13 @@ public class S3Restorer extends Restorer {
         }
     }
 
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        return S3Module.isRetryable(throwable) || super.isRetryable(throwable);
+    }
+
     @Override
     public void cleanup() {
-        transferManager.shutdownNow();
+        transferManagerLease.close();
     }
 }
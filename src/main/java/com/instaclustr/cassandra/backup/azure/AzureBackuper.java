@@ -1,15 +1,26 @@
 package com.instaclustr.cassandra.backup.azure;
 
+import static java.nio.file.StandardOpenOption.READ;
+
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
 
+import com.google.common.io.BaseEncoding;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.azure.AzureModule.CloudStorageAccountFactory;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
@@ -20,21 +31,32 @@ import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.BlobListingDetails;
 import com.microsoft.azure.storage.blob.BlobProperties;
+import com.microsoft.azure.storage.blob.BlockEntry;
 import com.microsoft.azure.storage.blob.CloudBlob;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
 import com.microsoft.azure.storage.blob.CloudBlobDirectory;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
 import com.microsoft.azure.storage.blob.ListBlobItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class AzureBackuper extends Backuper {
 
+    private static final Logger logger = LoggerFactory.getLogger(AzureBackuper.class);
+
+    // Azure limits
+    private static final long MAX_BLOCK_SIZE = 100L * 1024 * 1024;
+    private static final int MAX_BLOCKS = 50000;
+
     private static final String DATE_TIME_METADATA_KEY = "LastFreshened";
 
     private final CloudBlobContainer blobContainer;
 
     private final CloudBlobClient cloudBlobClient;
 
+    private final ClientCache.Lease<CloudStorageAccount> cloudStorageAccountLease;
+
     private final CloudStorageAccount cloudStorageAccount;
 
     @AssistedInject
@@ -43,7 +65,8 @@ public class AzureBackuper extends Backuper {
                          @Assisted final BackupOperationRequest request) throws Exception {
         super(request, executorServiceSupplier);
 
-        cloudStorageAccount = cloudStorageAccountFactory.build(request);
+        cloudStorageAccountLease = cloudStorageAccountFactory.lease(request);
+        cloudStorageAccount = cloudStorageAccountLease.get();
         cloudBlobClient = cloudStorageAccount.createCloudBlobClient();
 
         this.blobContainer = cloudBlobClient.getContainerReference(request.storageLocation.bucket);
@@ -55,7 +78,8 @@ public class AzureBackuper extends Backuper {
                          @Assisted final BackupCommitLogsOperationRequest request) throws Exception {
         super(request, executorServiceSupplier);
 
-        cloudStorageAccount = cloudStorageAccountFactory.build(request);
+        cloudStorageAccountLease = cloudStorageAccountFactory.lease(request);
+        cloudStorageAccount = cloudStorageAccountLease.get();
         cloudBlobClient = cloudStorageAccount.createCloudBlobClient();
 
         this.blobContainer = cloudBlobClient.getContainerReference(request.storageLocation.bucket);
@@ -102,9 +126,71 @@ public class AzureBackuper extends Backuper {
         }
     }
 
+    /**
+     * Files of at least --multipart-threshold are uploaded as blocks staged concurrently from positional reads
+     * of the file, at most --part-concurrency blocks of a file at once, then the block list is committed.
+     */
+    @Override
+    protected void uploadFile(final ManifestEntry manifestEntry,
+                              final RemoteObjectReference object,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        if (manifestEntry.size < request.multipartThreshold) {
+            super.uploadFile(manifestEntry, object, operationProgressTracker);
+            return;
+        }
+
+        final CloudBlockBlob blob = ((AzureRemoteObjectReference) object).blob;
+
+        final long size = manifestEntry.size;
+        final long blockSize = blockSize(request.partSize, size);
+
+        logger.debug("Uploading {} in {} blocks of {}.", object.canonicalPath, numberOfParts(size, blockSize), blockSize);
+
+        try (final FileChannel fileChannel = FileChannel.open(manifestEntry.localFile, READ)) {
+            final List<BlockEntry> blocks = uploadParts(fileChannel, size, blockSize, Collections.emptyMap(), operationProgressTracker, (partNumber, partStream, length) -> {
+                // ids of all blocks of a blob have to be of the same length
+                final String blockId = BaseEncoding.base64().encode(String.format("%08d", partNumber).getBytes(StandardCharsets.UTF_8));
+
+                blob.uploadBlock(blockId, partStream, length);
+
+                return new BlockEntry(blockId);
+            });
+
+            blob.commitBlockList(blocks);
+        } finally {
+            operationProgressTracker.update();
+        }
+    }
+
+    @Override
+    public void consumeRemoteObjectKeys(final Consumer<Path> consumer) throws Exception {
+        final Path nodePath = Paths.get(request.storageLocation.clusterId, request.storageLocation.datacenterId, request.storageLocation.nodeId);
+
+        for (final ListBlobItem blob : blobContainer.listBlobs(nodePath.toString() + "/", true, EnumSet.noneOf(BlobListingDetails.class), null, null)) {
+            if (blob instanceof CloudBlob) {
+                consumer.accept(nodePath.relativize(Paths.get(((CloudBlob) blob).getName())));
+            }
+        }
+    }
+
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        return AzureModule.isRetryable(throwable) || super.isRetryable(throwable);
+    }
+
     @Override
     public void cleanup() throws Exception {
-        deleteStaleBlobs();
+        try {
+            if (request.skipFreshen) {
+                // blobs are not freshened so their last modification time does not say whether they are still referenced
+                logger.info("Skipping deletion of stale blobs as freshening of uploaded blobs is turned off.");
+                return;
+            }
+
+            deleteStaleBlobs();
+        } finally {
+            cloudStorageAccountLease.close();
+        }
     }
 
     private void deleteStaleBlobs() throws Exception {
@@ -127,4 +213,12 @@ public class AzureBackuper extends Backuper {
             }
         }
     }
+
+    /**
+     * @return size of blocks of a file uploaded in blocks, --part-size unless the file would have more blocks than Azure
+     * allows, and never more than the maximum size of a block
+     */
+    public static long blockSize(final long requestedBlockSize, final long size) {
+        return Math.min(MAX_BLOCK_SIZE, Math.max(requestedBlockSize, (size + MAX_BLOCKS - 1) / MAX_BLOCKS));
+    }
 }
@@ -9,6 +9,7 @@ import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.azure.AzureModule.AzureModuleException;
 import com.instaclustr.cassandra.backup.azure.AzureModule.CloudStorageAccountFactory;
 import com.instaclustr.cassandra.backup.impl.BucketService;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
 import com.microsoft.azure.storage.CloudStorageAccount;
@@ -20,6 +21,8 @@ import com.microsoft.azure.storage.blob.CloudBlobClient;
 
 public class AzureBucketService implements BucketService {
 
+    private final ClientCache.Lease<CloudStorageAccount> cloudStorageAccountLease;
+
     private final CloudStorageAccount cloudStorageAccount;
 
     private final CloudBlobClient cloudBlobClient;
@@ -27,14 +30,16 @@ public class AzureBucketService implements BucketService {
     @AssistedInject
     public AzureBucketService(final CloudStorageAccountFactory accountFactory,
                               @Assisted final BackupOperationRequest request) throws URISyntaxException {
-        this.cloudStorageAccount = accountFactory.build(request);
+        this.cloudStorageAccountLease = accountFactory.lease(request);
+        this.cloudStorageAccount = cloudStorageAccountLease.get();
         this.cloudBlobClient = cloudStorageAccount.createCloudBlobClient();
     }
 
     @AssistedInject
     public AzureBucketService(final CloudStorageAccountFactory accountFactory,
                               @Assisted final BackupCommitLogsOperationRequest request) throws URISyntaxException {
-        this.cloudStorageAccount = accountFactory.build(request);
+        this.cloudStorageAccountLease = accountFactory.lease(request);
+        this.cloudStorageAccount = cloudStorageAccountLease.get();
         this.cloudBlobClient = cloudStorageAccount.createCloudBlobClient();
     }
 
@@ -70,5 +75,6 @@ public class AzureBucketService implements BucketService {
 
     @Override
     public void close() {
+        cloudStorageAccountLease.close();
     }
 }
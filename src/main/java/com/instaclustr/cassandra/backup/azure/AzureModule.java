@@ -7,16 +7,19 @@ import static java.lang.String.format;
 import java.net.URISyntaxException;
 import java.util.Map;
 
+import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.KubernetesAwareRequest;
 import com.instaclustr.kubernetes.KubernetesHelper;
 import com.instaclustr.kubernetes.KubernetesSecretsReader;
 import com.instaclustr.kubernetes.SecretReader;
 import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.StorageCredentialsAccountAndKey;
+import com.microsoft.azure.storage.StorageException;
 import io.kubernetes.client.apis.CoreV1Api;
 
 public class AzureModule extends AbstractModule {
@@ -30,6 +33,16 @@ public class AzureModule extends AbstractModule {
                         AzureBucketService.class);
     }
 
+    /**
+     * @return true if Azure timed out a request (408), throttled it (429) or failed on its side (5xx)
+     */
+    static boolean isRetryable(final Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream()
+            .filter(StorageException.class::isInstance)
+            .map(cause -> ((StorageException) cause).getHttpStatusCode())
+            .anyMatch(code -> code == 408 || code == 429 || code >= 500);
+    }
+
     @Provides
     @Singleton
     CloudStorageAccountFactory provideCloudStorageAccountFactory(final Provider<CoreV1Api> coreV1ApiProvider) {
@@ -40,14 +53,35 @@ public class AzureModule extends AbstractModule {
 
         private final Provider<CoreV1Api> coreV1ApiProvider;
 
+        // account holds no connections, there is nothing to shut down
+        private final ClientCache<String, CloudStorageAccount> accounts = new ClientCache<>("azure", account -> { });
+
         public CloudStorageAccountFactory(final Provider<CoreV1Api> coreV1ApiProvider) {
             this.coreV1ApiProvider = coreV1ApiProvider;
         }
 
         public CloudStorageAccount build(final KubernetesAwareRequest operationRequest) throws AzureModuleException, URISyntaxException {
+            AzureRetryListener.register();
+
             return new CloudStorageAccount(provideStorageCredentialsAccountAndKey(coreV1ApiProvider, operationRequest), true);
         }
 
+        /**
+         * Leases an account shared with other operations which use the same secret, or the same storage account
+         * outside of Kubernetes.
+         */
+        public ClientCache.Lease<CloudStorageAccount> lease(final KubernetesAwareRequest operationRequest) throws AzureModuleException, URISyntaxException {
+            return accounts.lease(cacheKey(operationRequest), () -> build(operationRequest));
+        }
+
+        private String cacheKey(final KubernetesAwareRequest operationRequest) {
+            if (isRunningInKubernetes()) {
+                return format("secret %s/%s", resolveKubernetesKeyspace(operationRequest), operationRequest.getSecretName());
+            } else {
+                return format("account %s", System.getenv("AZURE_STORAGE_ACCOUNT"));
+            }
+        }
+
         public boolean isRunningInKubernetes() {
             return KubernetesHelper.isRunningInKubernetes() || isRunningAsClient();
         }
@@ -2,6 +2,7 @@ package com.instaclustr.cassandra.backup.azure;
 
 import static java.lang.String.format;
 
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,6 +14,7 @@ import java.util.regex.Pattern;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.azure.AzureModule.CloudStorageAccountFactory;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
@@ -36,6 +38,8 @@ public class AzureRestorer extends Restorer {
 
     private final CloudBlobClient cloudBlobClient;
 
+    private final ClientCache.Lease<CloudStorageAccount> cloudStorageAccountLease;
+
     private final CloudStorageAccount cloudStorageAccount;
 
     @AssistedInject
@@ -44,7 +48,8 @@ public class AzureRestorer extends Restorer {
                          @Assisted final RestoreOperationRequest request) throws Exception {
         super(request, executorServiceSupplier);
 
-        cloudStorageAccount = cloudStorageAccountFactory.build(request);
+        cloudStorageAccountLease = cloudStorageAccountFactory.lease(request);
+        cloudStorageAccount = cloudStorageAccountLease.get();
         cloudBlobClient = cloudStorageAccount.createCloudBlobClient();
 
         this.blobContainer = cloudBlobClient.getContainerReference(request.storageLocation.bucket);
@@ -56,7 +61,8 @@ public class AzureRestorer extends Restorer {
                          @Assisted final RestoreCommitLogsOperationRequest request) throws Exception {
         super(request, executorServiceSupplier);
 
-        cloudStorageAccount = cloudStorageAccountFactory.build(request);
+        cloudStorageAccountLease = cloudStorageAccountFactory.lease(request);
+        cloudStorageAccount = cloudStorageAccountLease.get();
         cloudBlobClient = cloudStorageAccount.createCloudBlobClient();
 
         this.blobContainer = cloudBlobClient.getContainerReference(request.storageLocation.bucket);
@@ -75,6 +81,18 @@ public class AzureRestorer extends Restorer {
         blob.downloadToFile(localPath.toAbsolutePath().toString());
     }
 
+    @Override
+    public long getRemoteObjectSize(final RemoteObjectReference objectReference) throws Exception {
+        final CloudBlockBlob blob = ((AzureRemoteObjectReference) objectReference).blob;
+        blob.downloadAttributes();
+        return blob.getProperties().getLength();
+    }
+
+    @Override
+    protected InputStream readRange(final RemoteObjectReference objectReference, final long offset, final long length) throws Exception {
+        return ((AzureRemoteObjectReference) objectReference).blob.openInputStream(offset, length, null, null, null);
+    }
+
     @Override
     public void consumeFiles(final RemoteObjectReference prefix,
                              final Consumer<RemoteObjectReference> consumer) throws Exception {
@@ -110,8 +128,13 @@ public class AzureRestorer extends Restorer {
         }
     }
 
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        return AzureModule.isRetryable(throwable) || super.isRetryable(throwable);
+    }
+
     @Override
     public void cleanup() {
-        // Nothing to cleanup
+        cloudStorageAccountLease.close();
     }
 }
@@ -0,0 +1,40 @@
+package com.instaclustr.cassandra.backup.azure;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics;
+import com.instaclustr.cassandra.backup.impl.metrics.TransferMetrics;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.RequestResult;
+import com.microsoft.azure.storage.RetryingEvent;
+import com.microsoft.azure.storage.StorageEvent;
+
+/**
+ * Counts requests the client retries by itself, and those retried because Azure is busy, to metrics of Azure.
+ * Retries of all clients of the process are reported by the client library to a single global listener.
+ */
+public class AzureRetryListener extends StorageEvent<RetryingEvent> {
+
+    private static final AtomicBoolean registered = new AtomicBoolean();
+
+    private final StorageMetrics metrics = TransferMetrics.getInstance().storage("azure");
+
+    public static void register() {
+        if (registered.compareAndSet(false, true)) {
+            OperationContext.getGlobalRetryingEventHandler().addListener(new AzureRetryListener());
+        }
+    }
+
+    @Override
+    public void eventOccurred(final RetryingEvent event) {
+        metrics.retried();
+
+        final RequestResult lastRequestResult = event.getRetryContext().getLastRequestResult();
+
+        // server busy
+        if (lastRequestResult != null && lastRequestResult.getStatusCode() == HttpURLConnection.HTTP_UNAVAILABLE) {
+            metrics.throttled();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.instaclustr.cassandra.backup.cli;
+
+import static com.instaclustr.cassandra.backup.cli.BackupRestoreCLI.init;
+import static com.instaclustr.picocli.CLIApplication.execute;
+import static com.instaclustr.picocli.JarManifestVersionProvider.logCommandVersionInformation;
+import static java.util.Collections.singletonList;
+import static org.awaitility.Awaitility.await;
+
+import com.google.inject.Inject;
+import com.instaclustr.cassandra.backup.impl.backup.BackupIncrementalOperationRequest;
+import com.instaclustr.cassandra.backup.impl.backup.BackupModules.IncrementalBackupModule;
+import com.instaclustr.operations.Operation;
+import com.instaclustr.operations.OperationsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Spec;
+
+@Command(name = "incremental-backup",
+    mixinStandardHelpOptions = true,
+    description = "Upload SSTables of incremental backups to remote storage and delete them locally once uploaded.",
+    sortOptions = false,
+    versionProvider = BackupRestoreCLI.class
+)
+public class IncrementalBackupApplication implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalBackupApplication.class);
+
+    @Spec
+    private CommandSpec spec;
+
+    @Mixin
+    private BackupIncrementalOperationRequest request;
+
+    @Inject
+    private OperationsService operationsService;
+
+    public static void main(String[] args) {
+        System.exit(execute(new IncrementalBackupApplication(), args));
+    }
+
+    @Override
+    public void run() {
+        logCommandVersionInformation(spec);
+
+        init(this, null, request, logger, singletonList(new IncrementalBackupModule()));
+
+        final Operation<?> operation = operationsService.submitOperationRequest(request);
+
+        await().forever().until(() -> operation.state.isTerminalState());
+
+        if (operation.state == Operation.State.FAILED) {
+            throw new IllegalStateException("Incremental backup operation was not successful.");
+        }
+    }
+}
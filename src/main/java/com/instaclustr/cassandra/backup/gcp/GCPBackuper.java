@@ -1,30 +1,62 @@
 package com.instaclustr.cassandra.backup.gcp;
 
 import static com.google.cloud.storage.Storage.PredefinedAcl.BUCKET_OWNER_FULL_CONTROL;
+import static java.lang.Math.toIntExact;
+import static java.nio.file.StandardOpenOption.READ;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
+import com.google.api.gax.paging.Page;
 import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobListOption;
 import com.google.cloud.storage.StorageException;
+import com.google.common.collect.Lists;
 import com.google.common.io.ByteStreams;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.gcp.GCPModule.GoogleStorageFactory;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
 import com.instaclustr.cassandra.backup.impl.backup.Backuper;
 import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class GCPBackuper extends Backuper {
 
+    private static final Logger logger = LoggerFactory.getLogger(GCPBackuper.class);
+
+    // GCS limit of objects composed at once
+    private static final int MAX_COMPOSE_SOURCES = 32;
+
+    // GCS limit of requests in a batch
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    // slices of composite uploads, relative to the node prefix
+    private static final String COMPOSITE_UPLOAD_PREFIX = "composite-upload";
+
+    private final ClientCache.Lease<Storage> storageLease;
     private final Storage storage;
 
     @AssistedInject
@@ -32,7 +64,8 @@ public class GCPBackuper extends Backuper {
                        final ExecutorServiceSupplier executorServiceSupplier,
                        @Assisted final BackupOperationRequest backupOperationRequest) {
         super(backupOperationRequest, executorServiceSupplier);
-        this.storage = storageFactory.build(backupOperationRequest);
+        this.storageLease = storageFactory.lease(backupOperationRequest);
+        this.storage = storageLease.get();
     }
 
     @AssistedInject
@@ -40,7 +73,8 @@ public class GCPBackuper extends Backuper {
                        final ExecutorServiceSupplier executorServiceSupplier,
                        @Assisted final BackupCommitLogsOperationRequest backupOperationRequest) {
         super(backupOperationRequest, executorServiceSupplier);
-        this.storage = storageFactory.build(backupOperationRequest);
+        this.storageLease = storageFactory.lease(backupOperationRequest);
+        this.storage = storageLease.get();
     }
 
     @Override
@@ -75,15 +109,150 @@ public class GCPBackuper extends Backuper {
                            final OperationProgressTracker operationProgressTracker) throws Exception {
         final BlobId blobId = ((GCPRemoteObjectReference) object).blobId;
 
-        try (final WriteChannel outputChannel = storage.writer(BlobInfo.newBuilder(blobId).build(), Storage.BlobWriteOption.predefinedAcl(BUCKET_OWNER_FULL_CONTROL));
-            final ReadableByteChannel inputChannel = Channels.newChannel(localFileStream)) {
-            ByteStreams.copy(inputChannel, outputChannel);
+        try {
+            write(BlobInfo.newBuilder(blobId).build(), localFileStream);
+        } finally {
+            operationProgressTracker.update();
+        }
+    }
+
+    /**
+     * Files of at least --gcp-composite-threshold, if set, are uploaded as a parallel composite upload: slices of the file
+     * are read by positional reads and uploaded concurrently as temporary objects which are then composed into the final
+     * object and deleted.
+     */
+    @Override
+    protected void uploadFile(final ManifestEntry manifestEntry,
+                              final RemoteObjectReference object,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        if (request.gcpCompositeThreshold == null || manifestEntry.size < request.gcpCompositeThreshold) {
+            super.uploadFile(manifestEntry, object, operationProgressTracker);
+            return;
+        }
+
+        final BlobId blobId = ((GCPRemoteObjectReference) object).blobId;
+
+        final long size = manifestEntry.size;
+        final long sliceSize = sliceSize(request.gcpCompositeSliceSize, size);
+
+        final String slicePrefix = resolveRemotePath(Paths.get(COMPOSITE_UPLOAD_PREFIX, UUID.randomUUID().toString())) + "/";
+        final List<BlobId> slices = new ArrayList<>();
+
+        logger.debug("Uploading {} in {} slices of {}.", object.canonicalPath, numberOfParts(size, sliceSize), sliceSize);
+
+        try (final FileChannel fileChannel = FileChannel.open(manifestEntry.localFile, READ)) {
+            for (int sliceNumber = 1; sliceNumber <= numberOfParts(size, sliceSize); sliceNumber++) {
+                slices.add(BlobId.of(blobId.getBucket(), slicePrefix + sliceNumber));
+            }
+
+            final List<String> sliceNames = uploadParts(fileChannel, size, sliceSize, Collections.emptyMap(), operationProgressTracker, (sliceNumber, sliceStream, length) -> {
+                final BlobId slice = slices.get(sliceNumber - 1);
+                write(BlobInfo.newBuilder(slice).build(), sliceStream);
+                return slice.getName();
+            });
+
+            storage.compose(Storage.ComposeRequest.newBuilder()
+                                .addSource(sliceNames)
+                                .setTarget(BlobInfo.newBuilder(blobId).build())
+                                .setTargetOptions(Storage.BlobTargetOption.predefinedAcl(BUCKET_OWNER_FULL_CONTROL))
+                                .build());
         } finally {
+            try {
+                storage.delete(slices);
+            } catch (final Exception ex) {
+                logger.warn("Failed to delete temporary slices of {} under {}.", object.canonicalPath, slicePrefix, ex);
+            }
+
             operationProgressTracker.update();
         }
     }
 
+    private void write(final BlobInfo blobInfo, final InputStream inputStream) throws IOException {
+        try (final WriteChannel outputChannel = storage.writer(blobInfo, Storage.BlobWriteOption.predefinedAcl(BUCKET_OWNER_FULL_CONTROL));
+            final ReadableByteChannel inputChannel = Channels.newChannel(inputStream)) {
+            if (request.gcpWriteChunkSize != null) {
+                outputChannel.setChunkSize(toIntExact(request.gcpWriteChunkSize));
+            }
+
+            ByteStreams.copy(inputChannel, outputChannel);
+        }
+    }
+
+    @Override
+    public void consumeRemoteObjectKeys(final Consumer<Path> consumer) {
+        final Path nodePath = Paths.get(request.storageLocation.clusterId, request.storageLocation.datacenterId, request.storageLocation.nodeId);
+
+        final Page<Blob> storagePage = storage.list(request.storageLocation.bucket, BlobListOption.prefix(nodePath.toString() + "/"));
+
+        storagePage.iterateAll().forEach(blob -> {
+            if (!blob.getName().endsWith("/")) {
+                final Path objectKey = nodePath.relativize(Paths.get(blob.getName()));
+
+                if (!objectKey.startsWith(COMPOSITE_UPLOAD_PREFIX)) {
+                    consumer.accept(objectKey);
+                }
+            }
+        });
+    }
+
+    @Override
+    protected boolean isThrottleResponse(final Throwable throwable) {
+        // requests are retried by the client, only responses failing them are counted
+        return GCPModule.isThrottleResponse(throwable);
+    }
+
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        return GCPModule.isRetryable(throwable) || super.isRetryable(throwable);
+    }
+
     @Override
     public void cleanup() throws Exception {
+        try {
+            cleanupCompositeUploads();
+        } catch (final Exception e) {
+            logger.warn("Failed to cleanup slices of composite uploads.", e);
+        }
+
+        storageLease.close();
+    }
+
+    /**
+     * Deletes slices left by composite uploads of this node which were interrupted before they could delete them,
+     * e.g. by a killed process. Slices of uploads which may still be in progress are kept.
+     */
+    private void cleanupCompositeUploads() {
+        final Instant yesterdayInstant = ZonedDateTime.now().minusDays(1).toInstant();
+
+        logger.info("Cleaning up slices of composite uploads older than {}.", yesterdayInstant);
+
+        final String slicePrefix = resolveRemotePath(Paths.get(COMPOSITE_UPLOAD_PREFIX)) + "/";
+
+        final List<BlobId> staleSlices = new ArrayList<>();
+
+        storage.list(request.storageLocation.bucket, BlobListOption.prefix(slicePrefix)).iterateAll().forEach(blob -> {
+            if (blob.getCreateTime() != null && Instant.ofEpochMilli(blob.getCreateTime()).isBefore(yesterdayInstant)) {
+                staleSlices.add(blob.getBlobId());
+            }
+        });
+
+        if (staleSlices.isEmpty()) {
+            return;
+        }
+
+        logger.info("Deleting {} stale slices of composite uploads under {}.", staleSlices.size(), slicePrefix);
+
+        // a batch of deletes is limited in size
+        for (final List<BlobId> batch : Lists.partition(staleSlices, DELETE_BATCH_SIZE)) {
+            storage.delete(batch);
+        }
+    }
+
+    /**
+     * @return size of slices of a composite upload of a file, --gcp-composite-slice-size unless the file would have more
+     * slices than can be composed at once
+     */
+    public static long sliceSize(final long requestedSliceSize, final long size) {
+        return Math.max(requestedSliceSize, (size + MAX_COMPOSE_SOURCES - 1) / MAX_COMPOSE_SOURCES);
     }
 }
@@ -12,6 +12,7 @@ import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.gcp.GCPModule.GCPModuleException;
 import com.instaclustr.cassandra.backup.gcp.GCPModule.GoogleStorageFactory;
 import com.instaclustr.cassandra.backup.impl.BucketService;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
 import org.slf4j.Logger;
@@ -21,22 +22,22 @@ public class GCPBucketService implements BucketService {
 
     private static final Logger logger = LoggerFactory.getLogger(GCPBucketService.class);
 
-    private final GoogleStorageFactory storageFactory;
+    private final ClientCache.Lease<Storage> storageLease;
 
     private final Storage storage;
 
     @AssistedInject
     public GCPBucketService(final GoogleStorageFactory storageFactory,
                             @Assisted final BackupOperationRequest request) {
-        this.storageFactory = storageFactory;
-        this.storage = storageFactory.build(request);
+        this.storageLease = storageFactory.lease(request);
+        this.storage = storageLease.get();
     }
 
     @AssistedInject
     public GCPBucketService(final GoogleStorageFactory storageFactory,
                             @Assisted final BackupCommitLogsOperationRequest request) {
-        this.storageFactory = storageFactory;
-        this.storage = storageFactory.build(request);
+        this.storageLease = storageFactory.lease(request);
+        this.storage = storageLease.get();
     }
 
     @Override
@@ -78,5 +79,6 @@ public class GCPBucketService implements BucketService {
 
     @Override
     public void close() {
+        storageLease.close();
     }
 }
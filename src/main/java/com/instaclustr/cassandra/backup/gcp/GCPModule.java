@@ -10,12 +10,15 @@ import java.util.Optional;
 
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.KubernetesAwareRequest;
 import com.instaclustr.kubernetes.KubernetesHelper;
 import com.instaclustr.kubernetes.KubernetesSecretsReader;
@@ -35,6 +38,26 @@ public class GCPModule extends AbstractModule {
                         GCPBucketService.class);
     }
 
+    /**
+     * @return true if Google Cloud Storage responded it is throttling requests (429) or it is unavailable (503)
+     */
+    static boolean isThrottleResponse(final Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream()
+            .filter(StorageException.class::isInstance)
+            .map(cause -> ((StorageException) cause).getCode())
+            .anyMatch(code -> code == 429 || code == 503);
+    }
+
+    /**
+     * @return true if the client considers a failure transient, or Google Cloud Storage failed on its side (5xx)
+     */
+    static boolean isRetryable(final Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream()
+            .filter(StorageException.class::isInstance)
+            .map(StorageException.class::cast)
+            .anyMatch(cause -> cause.isRetryable() || cause.getCode() >= 500);
+    }
+
     @Provides
     @Singleton
     GoogleStorageFactory provideGoogleStorageFactory(final Provider<CoreV1Api> coreV1ApiProvider) {
@@ -47,10 +70,30 @@ public class GCPModule extends AbstractModule {
 
         private final Provider<CoreV1Api> coreV1ApiProvider;
 
+        // storage has nothing to shut down, its connections are released once it is not referenced anymore
+        private final ClientCache<String, Storage> storages = new ClientCache<>("gcp", storage -> { });
+
         public GoogleStorageFactory(final Provider<CoreV1Api> coreV1ApiProvider) {
             this.coreV1ApiProvider = coreV1ApiProvider;
         }
 
+        /**
+         * Leases a storage shared with other operations which use the same secret, or the same credentials file
+         * outside of Kubernetes.
+         */
+        public ClientCache.Lease<Storage> lease(final KubernetesAwareRequest operationRequest) {
+            return storages.lease(cacheKey(operationRequest), () -> build(operationRequest));
+        }
+
+        private String cacheKey(final KubernetesAwareRequest operationRequest) {
+            if (KubernetesHelper.isRunningInKubernetes() || KubernetesHelper.isRunningAsClient()) {
+                return format("secret %s/%s", resolveKubernetesKeyspace(operationRequest), operationRequest.getSecretName());
+            } else {
+                return format("credentials %s", Optional.ofNullable(System.getenv("GOOGLE_APPLICATION_CREDENTIALS"))
+                    .orElseGet(() -> System.getProperty("google.application.credentials")));
+            }
+        }
+
         public Storage build(final KubernetesAwareRequest operationRequest) {
 
             if (KubernetesHelper.isRunningInKubernetes() || KubernetesHelper.isRunningAsClient()) {
@@ -1,5 +1,8 @@
 package com.instaclustr.cassandra.backup.gcp;
 
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.InputStream;
 import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,9 +16,12 @@ import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.Storage.BlobListOption;
+import com.google.cloud.storage.StorageException;
+import com.google.common.io.ByteStreams;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.gcp.GCPModule.GoogleStorageFactory;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
@@ -24,6 +30,7 @@ import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
 
 public class GCPRestorer extends Restorer {
 
+    private final ClientCache.Lease<Storage> storageLease;
     private final Storage storage;
 
     @AssistedInject
@@ -31,7 +38,8 @@ public class GCPRestorer extends Restorer {
                        final ExecutorServiceSupplier executorServiceSupplier,
                        @Assisted final RestoreOperationRequest request) {
         super(request, executorServiceSupplier);
-        this.storage = storageFactory.build(request);
+        this.storageLease = storageFactory.lease(request);
+        this.storage = storageLease.get();
     }
 
     @AssistedInject
@@ -39,7 +47,8 @@ public class GCPRestorer extends Restorer {
                        final ExecutorServiceSupplier executorServiceSupplier,
                        @Assisted final RestoreCommitLogsOperationRequest request) {
         super(request, executorServiceSupplier);
-        this.storage = storageFactory.build(request);
+        this.storageLease = storageFactory.lease(request);
+        this.storage = storageLease.get();
     }
 
     @Override
@@ -54,8 +63,29 @@ public class GCPRestorer extends Restorer {
         Files.createDirectories(localFile.getParent());
 
         try (final ReadChannel inputChannel = storage.reader(blobId)) {
-            Files.copy(Channels.newInputStream(inputChannel), localFile);
+            Files.copy(Channels.newInputStream(inputChannel), localFile, REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public long getRemoteObjectSize(final RemoteObjectReference objectReference) {
+        final BlobId blobId = ((GCPRemoteObjectReference) objectReference).blobId;
+        final Blob blob = storage.get(blobId);
+
+        if (blob == null) {
+            throw new StorageException(404, "Remote object " + blobId + " does not exist.");
         }
+
+        return blob.getSize();
+    }
+
+    @Override
+    protected InputStream readRange(final RemoteObjectReference objectReference, final long offset, final long length) throws Exception {
+        final ReadChannel inputChannel = storage.reader(((GCPRemoteObjectReference) objectReference).blobId);
+
+        inputChannel.seek(offset);
+
+        return ByteStreams.limit(Channels.newInputStream(inputChannel), length);
     }
 
     @Override
@@ -78,8 +108,19 @@ public class GCPRestorer extends Restorer {
         });
     }
 
+    @Override
+    protected boolean isThrottleResponse(final Throwable throwable) {
+        // requests are retried by the client, only responses failing them are counted
+        return GCPModule.isThrottleResponse(throwable);
+    }
+
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        return GCPModule.isRetryable(throwable) || super.isRetryable(throwable);
+    }
+
     @Override
     public void cleanup() throws Exception {
-        // Nothing to cleanup
+        storageLease.close();
     }
 }
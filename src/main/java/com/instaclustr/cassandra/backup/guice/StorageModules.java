@@ -5,6 +5,7 @@ import com.instaclustr.cassandra.backup.aws.S3Module;
 import com.instaclustr.cassandra.backup.azure.AzureModule;
 import com.instaclustr.cassandra.backup.gcp.GCPModule;
 import com.instaclustr.cassandra.backup.local.LocalFileModule;
+import com.instaclustr.cassandra.backup.sim.SimulatedModule;
 import com.instaclustr.kubernetes.KubernetesApiModule;
 
 public class StorageModules extends AbstractModule {
@@ -16,5 +17,6 @@ public class StorageModules extends AbstractModule {
         install(new AzureModule());
         install(new GCPModule());
         install(new LocalFileModule());
+        install(new SimulatedModule());
     }
 }
@@ -0,0 +1,50 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Input stream drawing every byte it reads from a (possibly shared) {@link BandwidthLimiter}.
+ */
+public class BandwidthLimitedInputStream extends FilterInputStream {
+
+    private final BandwidthLimiter limiter;
+
+    public BandwidthLimitedInputStream(final InputStream in, final BandwidthLimiter limiter) {
+        super(in);
+        this.limiter = limiter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+
+        if (b != -1) {
+            acquire(1);
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int bytesRead = super.read(b, off, Math.min(len, limiter.getChunkSize()));
+
+        if (bytesRead > 0) {
+            acquire(bytesRead);
+        }
+
+        return bytesRead;
+    }
+
+    private void acquire(final int bytes) throws IOException {
+        try {
+            limiter.acquire(bytes);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bandwidth.");
+        }
+    }
+}
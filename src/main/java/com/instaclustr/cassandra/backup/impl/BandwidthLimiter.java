@@ -0,0 +1,97 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Token bucket shared by all concurrent transfers of an operation, so the configured rate caps
+ * the aggregate throughput of the process rather than the throughput of each file.
+ * <p>
+ * The bucket is kept as a single "theoretical arrival time" (GCRA) advanced by CAS, so readers
+ * never contend on a lock; each of them only sleeps for its own reservation. Reservations are
+ * served in the order they were made and streams acquire at most {@link #getChunkSize()} bytes
+ * at a time, which interleaves in-flight files fairly.
+ */
+public class BandwidthLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    private final long bytesPerSecond;
+    private final long burstBytes;
+    private final long burstNanos;
+    private final int chunkSize;
+
+    private final AtomicLong theoreticalArrivalTime;
+
+    /**
+     * @param bytesPerSecond rate the bucket is refilled with
+     * @param burstBytes     capacity of the bucket, if null or not positive, it holds one second worth of bytes
+     */
+    public BandwidthLimiter(final long bytesPerSecond, final Long burstBytes) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("Bandwidth has to be greater than 0.");
+        }
+
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = burstBytes == null || burstBytes <= 0 ? bytesPerSecond : burstBytes;
+        this.burstNanos = nanosFor(this.burstBytes);
+        this.chunkSize = (int) Math.max(1, Math.min(MAX_CHUNK_SIZE, this.burstBytes));
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Blocks until {@code bytes} may be transferred.
+     */
+    public void acquire(final long bytes) throws InterruptedException {
+        if (bytes <= 0) {
+            return;
+        }
+
+        final long cost = nanosFor(bytes);
+
+        long now, current, next;
+
+        do {
+            now = System.nanoTime();
+            current = theoreticalArrivalTime.get();
+            next = Math.max(current, now) + cost;
+        } while (!theoreticalArrivalTime.compareAndSet(current, next));
+
+        final long waitNanos = next - burstNanos - now;
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getBurstBytes() {
+        return burstBytes;
+    }
+
+    /**
+     * @return maximum number of bytes a single read should acquire so concurrent readers are interleaved
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    private long nanosFor(final long bytes) {
+        return (long) ((double) bytes * NANOS_PER_SECOND / bytesPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("bytesPerSecond", bytesPerSecond)
+            .add("burstBytes", burstBytes)
+            .toString();
+    }
+}
@@ -0,0 +1,221 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Clients of a storage shared by backupers, restorers and bucket services which use the same storage with the same
+ * credentials, so a process running operations one after another, e.g. commit log backups every few minutes, does not
+ * build a new client, with its connection pool and credentials, e.g. read from a Kubernetes secret, for each of them.
+ * <p>
+ * A client is leased and it is shut down only once no lease of it is open. A client nobody has leased for
+ * the idle timeout is shut down. A client older than the maximal age is not leased anymore, the next lease builds
+ * a new one, so rotated credentials are picked up.
+ *
+ * @param <K> key of a client, all clients of the same key are interchangeable, it must not hold secrets as it is logged
+ * @param <C> type of client
+ */
+public class ClientCache<K, C> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientCache.class);
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MINUTES = 10;
+    public static final long DEFAULT_MAX_AGE_MINUTES = 60;
+
+    @FunctionalInterface
+    public interface ClientFactory<C, E extends Exception> {
+
+        C build() throws E;
+    }
+
+    /**
+     * Lease of a client, the client must not be used once the lease is closed.
+     */
+    public static final class Lease<C> implements AutoCloseable {
+
+        private final ClientCache<?, C> cache;
+        private final Entry<C> entry;
+
+        private boolean closed;
+
+        private Lease(final ClientCache<?, C> cache, final Entry<C> entry) {
+            this.cache = cache;
+            this.entry = entry;
+        }
+
+        public C get() {
+            return entry.client;
+        }
+
+        @Override
+        public void close() {
+            synchronized (cache) {
+                if (!closed) {
+                    closed = true;
+                    cache.release(entry);
+                }
+            }
+        }
+    }
+
+    private static final class Entry<C> {
+
+        private final String name;
+        private final C client;
+        private final long builtNanos;
+
+        private int leases;
+        private long idleSinceNanos;
+        // not leased anymore, shut down once the last lease is closed
+        private boolean retired;
+
+        private Entry(final String name, final C client, final long builtNanos) {
+            this.name = name;
+            this.client = client;
+            this.builtNanos = builtNanos;
+        }
+    }
+
+    private final String storage;
+    private final Consumer<C> shutdown;
+    private final long idleTimeoutNanos;
+    private final long maxAgeNanos;
+    private final Ticker ticker;
+
+    private final Map<K, Entry<C>> entries = new HashMap<>();
+
+    /**
+     * Idle clients are shut down periodically by a daemon thread.
+     *
+     * @param storage  name of the storage, for logs
+     * @param shutdown shutdown of a client
+     */
+    public ClientCache(final String storage, final Consumer<C> shutdown) {
+        this(storage, shutdown, DEFAULT_IDLE_TIMEOUT_MINUTES, DEFAULT_MAX_AGE_MINUTES, TimeUnit.MINUTES, Ticker.systemTicker());
+
+        final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                                                                .setNameFormat(storage + "-client-cache-evictor")
+                                                                                                .setDaemon(true)
+                                                                                                .build());
+
+        evictor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Idle clients are shut down only by {@link #evictIdle()} and by leases and their closes.
+     */
+    public ClientCache(final String storage,
+                       final Consumer<C> shutdown,
+                       final long idleTimeout,
+                       final long maxAge,
+                       final TimeUnit unit,
+                       final Ticker ticker) {
+        this.storage = storage;
+        this.shutdown = shutdown;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.maxAgeNanos = unit.toNanos(maxAge);
+        this.ticker = ticker;
+    }
+
+    /**
+     * Leases a cached client of the key, or builds a new one if there is none or it is too old. The factory is called
+     * while the cache is locked, so a client is built once even if it is leased by many at once.
+     */
+    public synchronized <E extends Exception> Lease<C> lease(final K key, final ClientFactory<C, E> factory) throws E {
+        evictIdle();
+
+        final long now = ticker.read();
+
+        Entry<C> entry = entries.get(key);
+
+        if (entry != null && now - entry.builtNanos >= maxAgeNanos) {
+            logger.info("Client of {} for {} is {} minutes old, it is rebuilt.", storage, entry.name, TimeUnit.NANOSECONDS.toMinutes(now - entry.builtNanos));
+            entries.remove(key);
+            retire(entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            entry = new Entry<>(key.toString(), factory.build(), now);
+            entries.put(key, entry);
+            logger.debug("Client of {} for {} is built.", storage, entry.name);
+        }
+
+        entry.leases++;
+
+        return new Lease<>(this, entry);
+    }
+
+    /**
+     * Shuts down clients which have not been leased for the idle timeout.
+     */
+    public void evictIdle() {
+        final List<Entry<C>> evicted = new ArrayList<>();
+
+        synchronized (this) {
+            final long now = ticker.read();
+
+            for (final Iterator<Entry<C>> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                final Entry<C> entry = iterator.next();
+
+                if (entry.leases == 0 && now - entry.idleSinceNanos >= idleTimeoutNanos) {
+                    iterator.remove();
+                    evicted.add(entry);
+                }
+            }
+        }
+
+        for (final Entry<C> entry : evicted) {
+            logger.debug("Client of {} for {} is idle, it is shut down.", storage, entry.name);
+            shutdown(entry);
+        }
+    }
+
+    /**
+     * @return number of cached clients, leased or idle
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void release(final Entry<C> entry) {
+        entry.leases--;
+
+        if (entry.leases == 0) {
+            if (entry.retired) {
+                shutdown(entry);
+            } else {
+                entry.idleSinceNanos = ticker.read();
+            }
+        }
+    }
+
+    private void retire(final Entry<C> entry) {
+        entry.retired = true;
+
+        if (entry.leases == 0) {
+            shutdown(entry);
+        }
+    }
+
+    private void shutdown(final Entry<C> entry) {
+        try {
+            shutdown.accept(entry.client);
+        } catch (final Exception ex) {
+            // the client is not used anymore, a failed shutdown must not fail an operation
+            logger.warn(String.format("Unable to shut down client of %s for %s.", storage, entry.name), ex);
+        }
+    }
+}
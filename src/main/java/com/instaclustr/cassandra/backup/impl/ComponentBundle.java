@@ -0,0 +1,148 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+
+/**
+ * Small components of an SSTable packed into a single object, so a backup of many small SSTables takes a request
+ * per SSTable instead of a request per component.
+ * <p>
+ * A bundle starts with an index of its components, followed by their content in the same order:
+ * <pre>
+ * int    magic
+ * int    number of components
+ * UTF    file name of a component  } for each component
+ * long   size of a component       }
+ * bytes  content of each component
+ * </pre>
+ * The size of a bundle is thus known from file names and sizes of its components alone, which the manifest of a snapshot lists.
+ */
+public class ComponentBundle {
+
+    // "SSTB"
+    private static final int MAGIC = 0x53535442;
+
+    /**
+     * Receives a component read from a bundle.
+     */
+    @FunctionalInterface
+    public interface ComponentConsumer {
+
+        /**
+         * @param content stream of the component which ends with it, it is not to be closed
+         */
+        void accept(final String fileName, final long size, final InputStream content) throws Exception;
+    }
+
+    /**
+     * Components below the threshold go to the bundle, so its name says which threshold it was packed with. A bundle
+     * packed with another threshold holds other components and has to be a different object.
+     *
+     * @param descriptor path to SSTable without component suffix, e.g. /path/to/table/mc-1-big
+     * @return file name of the bundle of the SSTable, e.g. mc-1-big-Bundle-65536.db
+     */
+    public static String fileName(final Path descriptor, final long packThreshold) {
+        return format("%s-Bundle-%s.db", descriptor.getFileName(), packThreshold);
+    }
+
+    /**
+     * @param components entries of components with their local files, in the order they are packed in
+     * @return size of the bundle of the components in bytes
+     */
+    public static long size(final List<ManifestEntry> components) {
+        return index(components).length + components.stream().mapToLong(component -> component.size).sum();
+    }
+
+    /**
+     * @param components entries of components with their local files, in the order they are packed in
+     * @return stream of the bundle of the components, closed by the caller
+     */
+    public static InputStream open(final List<ManifestEntry> components) throws IOException {
+        final List<InputStream> streams = new ArrayList<>();
+
+        try {
+            streams.add(new ByteArrayInputStream(index(components)));
+
+            for (final ManifestEntry component : components) {
+                streams.add(ByteStreams.limit(Files.newInputStream(component.localFile), component.size));
+            }
+        } catch (final IOException ex) {
+            for (final InputStream stream : streams) {
+                stream.close();
+            }
+
+            throw ex;
+        }
+
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /**
+     * Reads components of a bundle one by one. Content of a component the consumer does not read is skipped.
+     *
+     * @throws IOException if the stream is not a bundle or it ends before its last component
+     */
+    public static void unpack(final InputStream bundle, final ComponentConsumer consumer) throws Exception {
+        final DataInputStream input = new DataInputStream(bundle);
+
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Stream is not a bundle of SSTable components.");
+        }
+
+        final int count = input.readInt();
+        final List<String> fileNames = new ArrayList<>(count);
+        final List<Long> sizes = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            fileNames.add(input.readUTF());
+            sizes.add(input.readLong());
+        }
+
+        for (int i = 0; i < count; i++) {
+            final CountingInputStream content = new CountingInputStream(ByteStreams.limit(input, sizes.get(i)));
+
+            consumer.accept(fileNames.get(i), sizes.get(i), content);
+
+            ByteStreams.exhaust(content);
+
+            if (content.getCount() != sizes.get(i)) {
+                throw new IOException(format("Bundle has ended after %s of %s bytes of %s.", content.getCount(), sizes.get(i), fileNames.get(i)));
+            }
+        }
+    }
+
+    private static byte[] index(final List<ManifestEntry> components) {
+        final ByteArrayOutputStream index = new ByteArrayOutputStream();
+
+        try (final DataOutputStream output = new DataOutputStream(index)) {
+            output.writeInt(MAGIC);
+            output.writeInt(components.size());
+
+            for (final ManifestEntry component : components) {
+                output.writeUTF(component.localFile.getFileName().toString());
+                output.writeLong(component.size);
+            }
+        } catch (final IOException ex) {
+            // writes to memory fail only on names too long for UTF of DataOutput
+            throw new UncheckedIOException(ex);
+        }
+
+        return index.toByteArray();
+    }
+}
@@ -0,0 +1,241 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.google.common.base.MoreObjects;
+import com.instaclustr.cassandra.backup.impl.metrics.RequestMetrics;
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adaptive limit of concurrent transfers, adjusted by additive increase and multiplicative decrease (AIMD).
+ * <p>
+ * Throughput is sampled in windows of a second. While transfers use the whole limit and throughput keeps improving,
+ * the limit grows by one per window. Once throughput stops improving, the limit has reached the "knee" where more
+ * concurrency only adds latency, and it is held there. When a storage throttles requests, or they fail or are retried,
+ * the limit is halved, at most once per window so one burst of failures halves it only once.
+ * <p>
+ * Small and large objects are limited separately as their knees are far apart: throughput of small objects is bound
+ * by requests per second, throughput of large ones by bandwidth. Small objects are measured in transfers per second,
+ * large ones in bytes per second.
+ */
+public class ConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    public static final long SMALL_OBJECT_SIZE = 1024 * 1024;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // throughput has to be better by this factor to be considered an improvement rather than noise
+    private static final double IMPROVEMENT = 1.05;
+
+    public enum TrafficClass {
+        SMALL,
+        LARGE;
+
+        public static TrafficClass of(final long size) {
+            return size < SMALL_OBJECT_SIZE ? SMALL : LARGE;
+        }
+    }
+
+    /**
+     * Right to run one transfer, it has to be released once the transfer is over.
+     */
+    public interface Permit {
+
+        void release(final long bytes, final boolean failed);
+    }
+
+    private final int maxConcurrency;
+    private final LongSupplier congestionSignals;
+    private final Map<TrafficClass, Limit> limits;
+
+    /**
+     * @param maxConcurrency    upper bound of the limit of each traffic class
+     * @param congestionSignals number of throttle responses, retries and failures of a storage so far
+     */
+    public ConcurrencyLimiter(final int maxConcurrency, final LongSupplier congestionSignals) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency has to be greater than 0.");
+        }
+
+        this.maxConcurrency = maxConcurrency;
+        this.congestionSignals = congestionSignals;
+
+        final Map<TrafficClass, Limit> limits = new EnumMap<>(TrafficClass.class);
+
+        for (final TrafficClass trafficClass : TrafficClass.values()) {
+            limits.put(trafficClass, new Limit(trafficClass));
+        }
+
+        this.limits = Collections.unmodifiableMap(limits);
+    }
+
+    /**
+     * Limits transfers by throttle responses, retries and failed requests of a storage.
+     */
+    public static ConcurrencyLimiter forStorage(final int maxConcurrency, final StorageMetrics metrics) {
+        return new ConcurrencyLimiter(maxConcurrency, () -> metrics.getThrottleResponses()
+            + metrics.getRetries()
+            + metrics.getRequests().values().stream().mapToLong(RequestMetrics::getErrors).sum());
+    }
+
+    /**
+     * Blocks until a transfer of an object of the size may start.
+     */
+    public Permit acquire(final long size) throws InterruptedException {
+        final Limit limit = limits.get(TrafficClass.of(size));
+
+        limit.acquire();
+
+        return limit::release;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getLimit(final TrafficClass trafficClass) {
+        return limits.get(trafficClass).getLimit();
+    }
+
+    /**
+     * @return concurrency at which throughput of a traffic class stopped improving, 0 if it has not been found yet
+     */
+    public int getKnee(final TrafficClass trafficClass) {
+        return limits.get(trafficClass).getKnee();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("maxConcurrency", maxConcurrency)
+            .add("limits", limits.values())
+            .toString();
+    }
+
+    private class Limit {
+
+        private final TrafficClass trafficClass;
+
+        private int limit;
+        private int inFlight;
+        private int knee;
+
+        private long windowStart = System.nanoTime();
+        private long windowBytes;
+        private long windowTransfers;
+        // whether transfers used the whole limit at some point of the window, otherwise throughput says nothing about it
+        private boolean saturated;
+
+        private double lastThroughput;
+        private long lastCongestionSignals = congestionSignals.getAsLong();
+        private long lastDecrease = System.nanoTime() - WINDOW_NANOS;
+
+        Limit(final TrafficClass trafficClass) {
+            this.trafficClass = trafficClass;
+            this.limit = Math.max(1, maxConcurrency / 2);
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            while (inFlight >= limit) {
+                wait();
+            }
+
+            inFlight++;
+
+            if (inFlight >= limit) {
+                saturated = true;
+            }
+        }
+
+        synchronized void release(final long bytes, final boolean failed) {
+            inFlight--;
+
+            final long now = System.nanoTime();
+
+            if (failed) {
+                decrease(now, "a transfer has failed");
+
+                // the failure is counted by the storage as well, it must not decrease the limit again at the end of the window
+                lastCongestionSignals = congestionSignals.getAsLong();
+            } else {
+                windowBytes += bytes;
+                windowTransfers++;
+            }
+
+            if (now - windowStart >= WINDOW_NANOS) {
+                endWindow(now);
+            }
+
+            notifyAll();
+        }
+
+        synchronized int getLimit() {
+            return limit;
+        }
+
+        synchronized int getKnee() {
+            return knee;
+        }
+
+        private void endWindow(final long now) {
+            final long signals = congestionSignals.getAsLong();
+            final double throughput = (trafficClass == TrafficClass.SMALL ? windowTransfers : windowBytes) * (double) WINDOW_NANOS / (now - windowStart);
+
+            if (signals > lastCongestionSignals) {
+                decrease(now, "storage throttled, retried or failed " + (signals - lastCongestionSignals) + " requests");
+            } else if (saturated && throughput > lastThroughput * IMPROVEMENT) {
+                if (limit < maxConcurrency) {
+                    limit++;
+                    logger.debug("Concurrency of {} transfers increased to {}.", trafficClass.name().toLowerCase(), limit);
+                }
+
+                lastThroughput = throughput;
+            } else if (saturated) {
+                if (knee != limit) {
+                    knee = limit;
+                    logger.info("Throughput of {} transfers stopped improving at concurrency {}.", trafficClass.name().toLowerCase(), limit);
+                }
+
+                lastThroughput = throughput;
+            }
+
+            lastCongestionSignals = signals;
+            windowStart = now;
+            windowBytes = 0;
+            windowTransfers = 0;
+            saturated = inFlight >= limit;
+        }
+
+        private void decrease(final long now, final String reason) {
+            if (now - lastDecrease < WINDOW_NANOS) {
+                return;
+            }
+
+            lastDecrease = now;
+            // throughput after the decrease is not comparable to the one before it
+            lastThroughput = 0;
+
+            if (limit > 1) {
+                limit = Math.max(1, limit / 2);
+                logger.info("Concurrency of {} transfers decreased to {}, {}.", trafficClass.name().toLowerCase(), limit, reason);
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("trafficClass", trafficClass)
+                .add("limit", limit)
+                .add("knee", knee)
+                .toString();
+        }
+    }
+}
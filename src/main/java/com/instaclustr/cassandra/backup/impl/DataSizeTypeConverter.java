@@ -0,0 +1,50 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import static java.lang.String.format;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import picocli.CommandLine;
+
+/**
+ * Converts sizes like "512", "64KB", "100MB" or "1GB" to number of bytes.
+ */
+public class DataSizeTypeConverter implements CommandLine.ITypeConverter<Long> {
+
+    private static final Pattern SIZE_PATTERN = Pattern.compile("^(\\d+)\\s*([KMGT]?)(?:i?B)?$", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public Long convert(final String value) {
+        if (value == null) {
+            return null;
+        }
+
+        final Matcher matcher = SIZE_PATTERN.matcher(value.trim());
+
+        if (!matcher.matches()) {
+            throw new CommandLine.TypeConversionException(format("Invalid size '%s', expected e.g. 512, 64KB, 100MB or 1GB.", value));
+        }
+
+        try {
+            return Math.multiplyExact(Long.parseLong(matcher.group(1)), unit(matcher.group(2)));
+        } catch (final NumberFormatException | ArithmeticException ex) {
+            throw new CommandLine.TypeConversionException(format("Size '%s' is too big, it has to be less than 8EB.", value));
+        }
+    }
+
+    private static long unit(final String unit) {
+        switch (unit.toUpperCase()) {
+            case "K":
+                return 1024L;
+            case "M":
+                return 1024L * 1024;
+            case "G":
+                return 1024L * 1024 * 1024;
+            case "T":
+                return 1024L * 1024 * 1024 * 1024;
+            default:
+                return 1L;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream of a region of a file read by positional reads, so many regions of the same
+ * {@link FileChannel} can be read concurrently. The channel is not closed by this stream.
+ * <p>
+ * Mark is supported without any buffering, so a part upload can be retried from its beginning.
+ */
+public class FileChannelRegionInputStream extends InputStream {
+
+    private final FileChannel fileChannel;
+    private final long end;
+
+    private long position;
+    private long mark;
+
+    /**
+     * @param fileChannel channel to read from
+     * @param offset      position in the file the region starts at
+     * @param length      number of bytes of the region
+     */
+    public FileChannelRegionInputStream(final FileChannel fileChannel, final long offset, final long length) {
+        this.fileChannel = fileChannel;
+        this.position = offset;
+        this.mark = offset;
+        this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        final long remaining = end - position;
+
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        final int bytesRead = fileChannel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+
+        if (bytesRead == -1) {
+            // file is shorter than expected
+            return -1;
+        }
+
+        position += bytesRead;
+
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(final long n) {
+        final long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+}
@@ -3,18 +3,24 @@ package com.instaclustr.cassandra.backup.impl;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 
 import com.google.common.base.MoreObjects;
 
 public class ManifestEntry {
     public enum Type {
         FILE,
-        MANIFEST_FILE
+        MANIFEST_FILE,
+        // small components of an SSTable packed into one object, see ComponentBundle
+        BUNDLE
     }
 
     public final Path objectKey, localFile;
     public final long size;
     public final Type type;
+    // packed components of a bundle, empty for other entries
+    public final List<ManifestEntry> components;
 
     public ManifestEntry(final Path objectKey,
                          final Path localFile,
@@ -23,6 +29,7 @@ public class ManifestEntry {
         this.localFile = localFile;
         this.size = Files.size(localFile);
         this.type = type;
+        this.components = Collections.emptyList();
     }
 
     public ManifestEntry(final Path objectKey,
@@ -33,6 +40,25 @@ public class ManifestEntry {
         this.localFile = localFile;
         this.size = size;
         this.type = type;
+        this.components = Collections.emptyList();
+    }
+
+    /**
+     * Bundle of small components of an SSTable.
+     *
+     * @param localFile  path to the SSTable without component suffix, e.g. /path/to/table/mc-1-big
+     * @param size       size of the whole bundle, it may hold more components than those to transfer
+     * @param components components to transfer, with their own object keys as if they were not packed
+     */
+    public ManifestEntry(final Path objectKey,
+                         final Path localFile,
+                         final long size,
+                         final List<ManifestEntry> components) {
+        this.objectKey = objectKey;
+        this.localFile = localFile;
+        this.size = size;
+        this.type = Type.BUNDLE;
+        this.components = components;
     }
 
     @Override
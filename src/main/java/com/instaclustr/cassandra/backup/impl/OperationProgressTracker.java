@@ -1,12 +1,51 @@
 package com.instaclustr.cassandra.backup.impl;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 import com.instaclustr.operations.Operation;
 import com.instaclustr.operations.OperationRequest;
 
+/**
+ * Tracks progress of an operation transferring files, in completed files and in transferred bytes.
+ * <p>
+ * Transfers report bytes as they stream them, chunk by chunk, from many threads at once, so all counters
+ * are {@link LongAdder}s and the tracker locks nothing. Once there are bytes to complete, progress of the operation
+ * is the ratio of completed bytes, otherwise the ratio of completed events (files).
+ * <p>
+ * Throughput is a moving average sampled at most once a second by whichever thread reports bytes or reads it.
+ * <p>
+ * A transfer which may be retried reports to an {@link Attempt} of its own, so bytes of a failed attempt are taken
+ * back before the next attempt reports them again, e.g. as skipped bytes of a resumed transfer. An attempt is the only
+ * thing which locks, its reports share a lock its rollback takes exclusively.
+ */
 public class OperationProgressTracker {
+
+    private static final long SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // weight of the last sample in the moving average of throughput
+    private static final double SMOOTHING = 0.2;
+
     private final Operation<? extends OperationRequest> operation;
-    private final int eventsToComplete;
-    private int eventsCompleted = 0;
+
+    private final LongAdder eventsToComplete = new LongAdder();
+    private final LongAdder eventsCompleted = new LongAdder();
+    private final LongAdder bytesToComplete = new LongAdder();
+    private final LongAdder bytesTransferred = new LongAdder();
+    private final LongAdder bytesSkipped = new LongAdder();
+
+    private final AtomicReference<ThroughputSample> lastSample = new AtomicReference<>(new ThroughputSample(System.nanoTime(), 0, -1));
+
+    /**
+     * Creates a tracker of events which are not known upfront, they are added by {@link #addEventsToComplete(int)}.
+     */
+    public OperationProgressTracker(final Operation<? extends OperationRequest> operation) {
+        this.operation = operation;
+    }
 
     public OperationProgressTracker(final Operation<? extends OperationRequest> operation,
                                     final int eventsToComplete) {
@@ -15,14 +54,294 @@ public class OperationProgressTracker {
         }
 
         this.operation = operation;
-        this.eventsToComplete = eventsToComplete;
+        this.eventsToComplete.add(eventsToComplete);
+    }
+
+    public void addEventsToComplete(final int events) {
+        eventsToComplete.add(events);
+    }
+
+    public void addBytesToComplete(final long bytes) {
+        bytesToComplete.add(bytes);
     }
 
-    public synchronized void update() {
-        this.operation.progress = (float) ++eventsCompleted / (float) eventsToComplete;
+    /**
+     * @param bytes number of bytes transferred, negative if a transfer was rewound to be retried
+     */
+    public void bytesTransferred(final long bytes) {
+        bytesTransferred.add(bytes);
+        sample(System.nanoTime());
+    }
+
+    /**
+     * @param bytes number of bytes which did not have to be transferred, e.g. of a file already stored remotely
+     */
+    public void bytesSkipped(final long bytes) {
+        bytesSkipped.add(bytes);
+    }
+
+    /**
+     * Completes an event, e.g. a transfer of a file. Its bytes are reported separately.
+     */
+    public void update() {
+        eventsCompleted(1);
+    }
+
+    /**
+     * @return tracker of a single attempt of a transfer, reporting to this tracker
+     */
+    public Attempt attempt() {
+        return new Attempt(this);
     }
 
     public void complete() {
         this.operation.progress = 1.0f;
     }
+
+    public long getBytesCompleted() {
+        return bytesTransferred.sum() + bytesSkipped.sum();
+    }
+
+    public long getBytesToComplete() {
+        return bytesToComplete.sum();
+    }
+
+    /**
+     * @return moving average of transferred bytes per second
+     */
+    public long getThroughput() {
+        sample(System.nanoTime());
+
+        return (long) Math.max(0, lastSample.get().throughput);
+    }
+
+    /**
+     * @return estimated number of seconds to complete the remaining bytes at the current throughput, null if it is not known
+     */
+    public Long getEtaSeconds() {
+        final long throughput = getThroughput();
+
+        if (throughput == 0) {
+            return null;
+        }
+
+        return Math.max(0, getBytesToComplete() - getBytesCompleted()) / throughput;
+    }
+
+    /**
+     * @return transfer progress as of now, to be exposed along with the operation
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(getBytesCompleted(), getBytesToComplete(), getThroughput(), getEtaSeconds());
+    }
+
+    private void eventsCompleted(final long events) {
+        eventsCompleted.add(events);
+        updateProgress();
+    }
+
+    private void updateProgress() {
+        final long bytes = getBytesToComplete();
+
+        if (bytes > 0) {
+            this.operation.progress = (float) Math.min(1.0, (double) getBytesCompleted() / (double) bytes);
+        } else {
+            final long events = eventsToComplete.sum();
+            this.operation.progress = events == 0 ? 0 : (float) eventsCompleted.sum() / (float) events;
+        }
+    }
+
+    private void sample(final long now) {
+        final ThroughputSample sample = lastSample.get();
+
+        if (now - sample.nanos < SAMPLE_NANOS) {
+            return;
+        }
+
+        final long bytes = bytesTransferred.sum();
+        final double rate = (double) (bytes - sample.bytes) * SAMPLE_NANOS / (now - sample.nanos);
+        final double throughput = sample.throughput < 0 ? rate : SMOOTHING * rate + (1 - SMOOTHING) * sample.throughput;
+
+        // losing the race means another thread has just taken the sample
+        if (lastSample.compareAndSet(sample, new ThroughputSample(now, bytes, throughput))) {
+            updateProgress();
+        }
+    }
+
+    /**
+     * Reports everything to the tracker it is an attempt of and counts what it has completed, so
+     * {@link #rollback()} takes it back once the attempt has failed.
+     */
+    public static final class Attempt extends OperationProgressTracker {
+
+        private final OperationProgressTracker tracker;
+
+        private final LongAdder eventsCompleted = new LongAdder();
+        private final LongAdder bytesToComplete = new LongAdder();
+        private final LongAdder bytesTransferred = new LongAdder();
+        private final LongAdder bytesSkipped = new LongAdder();
+
+        // parts of a failed attempt still running until they notice the interruption report nothing anymore,
+        // a report checks it and adds under the shared lock so a rollback does not take place in between
+        private final ReadWriteLock rollbackLock = new ReentrantReadWriteLock();
+        private boolean rolledBack = false;
+
+        private Attempt(final OperationProgressTracker tracker) {
+            super(tracker.operation);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void addEventsToComplete(final int events) {
+            tracker.addEventsToComplete(events);
+        }
+
+        /**
+         * Bytes to complete added by an attempt, e.g. once the size of a compressed file is known, are taken back as well.
+         */
+        @Override
+        public void addBytesToComplete(final long bytes) {
+            final Lock lock = rollbackLock.readLock();
+
+            lock.lock();
+
+            try {
+                if (!rolledBack) {
+                    bytesToComplete.add(bytes);
+                    tracker.addBytesToComplete(bytes);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void bytesTransferred(final long bytes) {
+            final Lock lock = rollbackLock.readLock();
+
+            lock.lock();
+
+            try {
+                if (!rolledBack) {
+                    bytesTransferred.add(bytes);
+                    tracker.bytesTransferred(bytes);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void bytesSkipped(final long bytes) {
+            final Lock lock = rollbackLock.readLock();
+
+            lock.lock();
+
+            try {
+                if (!rolledBack) {
+                    bytesSkipped.add(bytes);
+                    tracker.bytesSkipped(bytes);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void update() {
+            final Lock lock = rollbackLock.readLock();
+
+            lock.lock();
+
+            try {
+                if (!rolledBack) {
+                    eventsCompleted.increment();
+                    tracker.update();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void complete() {
+            tracker.complete();
+        }
+
+        @Override
+        public long getBytesCompleted() {
+            return tracker.getBytesCompleted();
+        }
+
+        @Override
+        public long getBytesToComplete() {
+            return tracker.getBytesToComplete();
+        }
+
+        @Override
+        public long getThroughput() {
+            return tracker.getThroughput();
+        }
+
+        @Override
+        public Long getEtaSeconds() {
+            return tracker.getEtaSeconds();
+        }
+
+        /**
+         * Takes back bytes and events reported by this attempt, the next attempt of the transfer reports them again.
+         */
+        public void rollback() {
+            final Lock lock = rollbackLock.writeLock();
+
+            lock.lock();
+
+            try {
+                rolledBack = true;
+
+                tracker.addBytesToComplete(-bytesToComplete.sumThenReset());
+                tracker.bytesTransferred(-bytesTransferred.sumThenReset());
+                tracker.bytesSkipped(-bytesSkipped.sumThenReset());
+                tracker.eventsCompleted(-eventsCompleted.sumThenReset());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Serializable view of a tracker, the tracker itself holds the operation it reports to.
+     */
+    public static final class Snapshot {
+
+        public long bytesCompleted;
+        public long bytesToComplete;
+        public long throughput;
+        public Long etaSeconds;
+
+        public Snapshot() {
+            // for jackson
+        }
+
+        Snapshot(final long bytesCompleted, final long bytesToComplete, final long throughput, final Long etaSeconds) {
+            this.bytesCompleted = bytesCompleted;
+            this.bytesToComplete = bytesToComplete;
+            this.throughput = throughput;
+            this.etaSeconds = etaSeconds;
+        }
+    }
+
+    private static final class ThroughputSample {
+
+        final long nanos;
+        final long bytes;
+        // negative until the first sample is taken
+        final double throughput;
+
+        ThroughputSample(final long nanos, final long bytes, final double throughput) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.throughput = throughput;
+        }
+    }
 }
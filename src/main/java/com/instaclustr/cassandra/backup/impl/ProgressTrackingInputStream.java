@@ -0,0 +1,70 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics;
+
+/**
+ * Reports bytes read from a stream of an upload to a tracker and to metrics of the storage as they are read.
+ * Bytes read again after a reset, e.g. when a storage client retries a request, are not counted twice.
+ */
+public class ProgressTrackingInputStream extends FilterInputStream {
+
+    private final OperationProgressTracker operationProgressTracker;
+    private final StorageMetrics storageMetrics;
+
+    private long bytesRead;
+    private long mark;
+
+    public ProgressTrackingInputStream(final InputStream inputStream,
+                                       final OperationProgressTracker operationProgressTracker,
+                                       final StorageMetrics storageMetrics) {
+        super(inputStream);
+        this.operationProgressTracker = operationProgressTracker;
+        this.storageMetrics = storageMetrics;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+
+        if (b != -1) {
+            bytesRead(1);
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int n = super.read(b, off, len);
+
+        if (n > 0) {
+            bytesRead(n);
+        }
+
+        return n;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+        super.mark(readLimit);
+        mark = bytesRead;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        operationProgressTracker.bytesTransferred(mark - bytesRead);
+        storageMetrics.bytesUploaded(mark - bytesRead);
+        bytesRead = mark;
+    }
+
+    private void bytesRead(final long bytes) {
+        bytesRead += bytes;
+        operationProgressTracker.bytesTransferred(bytes);
+        storageMetrics.bytesUploaded(bytes);
+    }
+}
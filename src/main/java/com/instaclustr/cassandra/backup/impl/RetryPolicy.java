@@ -0,0 +1,94 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Throwables;
+
+/**
+ * Decides whether a failed transfer of a file is attempted again and how long it waits before that.
+ * <p>
+ * Delays grow exponentially with decorrelated jitter: each one is random between the base delay and three times
+ * the previous one, capped by the maximal delay. Transfers failed at the same time are thus spread out instead
+ * of hitting a throttling storage again all at once.
+ */
+public class RetryPolicy {
+
+    public static final long DEFAULT_BASE_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    public static final long DEFAULT_MAX_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Predicate<Throwable> retryable;
+
+    /**
+     * @param maxAttempts     number of attempts of a transfer, including the first one
+     * @param baseDelayMillis delay before the first retry, at least
+     * @param maxDelayMillis  delay before any retry, at most
+     * @param retryable       whether a failure is transient, e.g. a throttle response or a broken connection
+     */
+    public RetryPolicy(final int maxAttempts,
+                       final long baseDelayMillis,
+                       final long maxDelayMillis,
+                       final Predicate<Throwable> retryable) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Number of attempts has to be greater than 0.");
+        }
+
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.retryable = retryable;
+    }
+
+    public RetryPolicy(final int maxAttempts, final Predicate<Throwable> retryable) {
+        this(maxAttempts, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, retryable);
+    }
+
+    /**
+     * @param failure failure of an attempt
+     * @param attempt number of the failed attempt, starting at 1
+     */
+    public boolean shouldRetry(final Throwable failure, final int attempt) {
+        return attempt < maxAttempts && !isInterruption(failure) && retryable.test(failure);
+    }
+
+    /**
+     * @param previousDelayMillis delay before the previous attempt, 0 if it was the first one
+     */
+    public long nextDelayMillis(final long previousDelayMillis) {
+        final long upperBound = Math.min(maxDelayMillis, Math.max(baseDelayMillis, previousDelayMillis * 3));
+
+        if (upperBound <= baseDelayMillis) {
+            return baseDelayMillis;
+        }
+
+        return ThreadLocalRandom.current().nextLong(baseDelayMillis, upperBound + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private static boolean isInterruption(final Throwable failure) {
+        return Throwables.getCausalChain(failure).stream().anyMatch(cause -> cause instanceof InterruptedException
+            // timeouts of sockets are interrupted I/O as well but they are the very failures to retry
+            || cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException)
+            || cause instanceof ClosedByInterruptException);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("maxAttempts", maxAttempts)
+            .add("baseDelayMillis", baseDelayMillis)
+            .add("maxDelayMillis", maxDelayMillis)
+            .toString();
+    }
+}
@@ -9,8 +9,11 @@ import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -41,25 +44,47 @@ public class SSTableUtils {
             throw new IllegalStateException("Can't compute SSTable hash for " + path + ": doesn't taste like sstable");
         }
 
+        return sstableHash(path.resolveSibling(matcher.group(SSTABLE_PREFIX_IDX)), matcher.group(SSTABLE_GENERATION_IDX));
+    }
+
+    /**
+     * @return path to SSTable a file is a component of without component suffix, e.g. /path/to/table/mc-1-big,
+     * or the file itself if it is not a component of an SSTable
+     */
+    public static Path sstableDescriptor(final Path path) {
+        final Matcher matcher = SSTABLE_RE.matcher(path.getFileName().toString());
+
+        return matcher.matches() ? path.resolveSibling(matcher.group(SSTABLE_PREFIX_IDX)) : path;
+    }
+
+    /**
+     * Computes the hash of an SSTable, shared by all its components.
+     *
+     * @param descriptor path to SSTable without component suffix, e.g. /path/to/table/mc-1-big
+     * @param generation generation of SSTable
+     */
+    private static String sstableHash(final Path descriptor, final String generation) throws IOException {
+        final String prefix = descriptor.getFileName().toString();
+
         for (String digest : DIGESTS) {
-            final Path digestPath = path.resolveSibling(matcher.group(SSTABLE_PREFIX_IDX) + "-Digest." + digest);
+            final Path digestPath = descriptor.resolveSibling(prefix + "-Digest." + digest);
             if (!Files.exists(digestPath)) {
                 continue;
             }
 
             final Matcher matcherChecksum = CHECKSUM_RE.matcher(new String(Files.readAllBytes(digestPath), StandardCharsets.UTF_8));
             if (matcherChecksum.matches()) {
-                return matcher.group(SSTABLE_GENERATION_IDX) + "-" + matcherChecksum.group(1);
+                return generation + "-" + matcherChecksum.group(1);
             }
         }
 
         // Ver. 2.0 doesn't create hash file, so do it ourselves
         try {
-            final Path dataFilePath = path.resolveSibling(matcher.group(SSTABLE_PREFIX_IDX) + "-Data.db");
+            final Path dataFilePath = descriptor.resolveSibling(prefix + "-Data.db");
             logger.warn("No digest file found, generating checksum based on {}.", dataFilePath);
-            return matcher.group(SSTABLE_GENERATION_IDX) + "-" + calculateChecksum(dataFilePath);
+            return generation + "-" + calculateChecksum(dataFilePath);
         } catch (IOException e) {
-            throw new IllegalStateException("Couldn't generate checksum for " + path.toString());
+            throw new IllegalStateException("Couldn't generate checksum for " + descriptor.toString());
         }
     }
 
@@ -95,12 +120,68 @@ public class SSTableUtils {
      * Traverses the {@code tablePath} directory and generates a stream of ManifestEntry to be uploaded to the {@code tableBackupPath}
      * directory. It includes files which only belongs to sstables or secondary indexes.
      *
+     * The hash of an SSTable is computed only once and it is shared by all its components.
+     *
      * @param tablePath
      * @param tableBackupPath
      * @return
      * @throws IOException
      */
     public static Stream<ManifestEntry> ssTableManifest(Path tablePath, Path tableBackupPath) throws IOException {
+        return ssTableManifest(tablePath, tableBackupPath, null);
+    }
+
+    /**
+     * Same as {@link #ssTableManifest(Path, Path)}, but components of an SSTable smaller than {@code packThreshold} are packed
+     * into a single bundle entry, see {@link ComponentBundle}. Larger components stay entries of their own, as does a single
+     * small component as there is nothing to save on it.
+     *
+     * @param packThreshold size in bytes components are packed below, if null, nothing is packed
+     */
+    public static Stream<ManifestEntry> ssTableManifest(Path tablePath, Path tableBackupPath, Long packThreshold) throws IOException {
+        return ssTableManifest(tablePath, tableBackupPath, packThreshold, descriptor -> true);
+    }
+
+    /**
+     * Same as {@link #ssTableManifest(Path, Path, Long)}, but only SSTables the filter accepts are included. Rejected SSTables
+     * are not hashed, so their components may be missing.
+     *
+     * @param sstableFilter tests path to SSTable without component suffix, e.g. /path/to/table/mc-1-big
+     */
+    public static Stream<ManifestEntry> ssTableManifest(Path tablePath, Path tableBackupPath, Long packThreshold, Predicate<Path> sstableFilter) throws IOException {
+        if (packThreshold == null) {
+            return componentManifest(tablePath, tableBackupPath, sstableFilter);
+        }
+
+        final Map<Path, List<ManifestEntry>> sstables;
+
+        try (final Stream<ManifestEntry> components = componentManifest(tablePath, tableBackupPath, sstableFilter)) {
+            sstables = components.collect(Collectors.groupingBy(entry -> sstableDescriptor(entry.localFile), LinkedHashMap::new, Collectors.toList()));
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        return sstables.entrySet().stream().flatMap(sstable -> {
+            final Map<Boolean, List<ManifestEntry>> isSmall = sstable.getValue().stream()
+                .collect(Collectors.partitioningBy(component -> component.size < packThreshold));
+
+            final List<ManifestEntry> smallComponents = isSmall.get(true);
+
+            if (smallComponents.size() < 2) {
+                return sstable.getValue().stream();
+            }
+
+            final Path bundleKey = smallComponents.get(0).objectKey.resolveSibling(ComponentBundle.fileName(sstable.getKey(), packThreshold));
+            final ManifestEntry bundle = new ManifestEntry(bundleKey, sstable.getKey(), ComponentBundle.size(smallComponents), smallComponents);
+
+            return Stream.concat(isSmall.get(false).stream(), Stream.of(bundle));
+        });
+    }
+
+    private static Stream<ManifestEntry> componentManifest(Path tablePath, Path tableBackupPath, Predicate<Path> sstableFilter) throws IOException {
+
+        // SSTable descriptor (path without component suffix) to its hash
+        final Map<Path, String> sstableHashes = new HashMap<>();
 
         return Files.list(tablePath)
                 .flatMap(path -> {
@@ -109,25 +190,61 @@ public class SSTableUtils {
                     }
                     return Stream.of(path);
                 })
-                .filter(path -> SSTABLE_RE.matcher(path.getFileName().toString()).matches())
                 .sorted()
-                .map(path -> {
-                    try {
-                        final String hash = sstableHash(path);
-                        final Path tableRelative = tablePath.relativize(path);
-                        final Path parent = tableRelative.getParent();
-                        Path backupPath = tableBackupPath;
-                        if (parent != null) {
-                            backupPath = backupPath.resolve(parent);
+                .flatMap(path -> {
+                    final Matcher matcher = SSTABLE_RE.matcher(path.getFileName().toString());
+                    if (!matcher.matches() || !sstableFilter.test(path.resolveSibling(matcher.group(SSTABLE_PREFIX_IDX)))) {
+                        return Stream.empty();
+                    }
+
+                    final String hash = sstableHashes.computeIfAbsent(path.resolveSibling(matcher.group(SSTABLE_PREFIX_IDX)), descriptor -> {
+                        try {
+                            return sstableHash(descriptor, matcher.group(SSTABLE_GENERATION_IDX));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
                         }
-                        backupPath = backupPath.resolve(hash).resolve(tableRelative.getFileName());
-                        return new ManifestEntry(backupPath, path, ManifestEntry.Type.FILE);
+                    });
+
+                    final Path tableRelative = tablePath.relativize(path);
+                    final Path parent = tableRelative.getParent();
+                    Path backupPath = tableBackupPath;
+                    if (parent != null) {
+                        backupPath = backupPath.resolve(parent);
+                    }
+                    backupPath = backupPath.resolve(hash).resolve(tableRelative.getFileName());
+
+                    try {
+                        return Stream.of(new ManifestEntry(backupPath, path, ManifestEntry.Type.FILE));
                     } catch (IOException e) {
                         throw new UncheckedIOException(e);
                     }
                 });
     }
 
+    /**
+     * Components of an SSTable are linked into a directory of incremental backups one by one, so an SSTable may be
+     * seen there before all of its components are.
+     *
+     * @param descriptor path to SSTable without component suffix, e.g. /path/to/table/mc-1-big
+     * @return true if the SSTable has a TOC and all components it lists exist
+     */
+    public static boolean isComplete(final Path descriptor) throws IOException {
+        final String prefix = descriptor.getFileName().toString();
+        final Path toc = descriptor.resolveSibling(prefix + "-TOC.txt");
+
+        if (!Files.exists(toc)) {
+            return false;
+        }
+
+        for (final String component : Files.readAllLines(toc, StandardCharsets.UTF_8)) {
+            if (!component.trim().isEmpty() && !Files.exists(descriptor.resolveSibling(prefix + "-" + component.trim()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public static Map<String, List<Path>> listSSTables(Path table) throws IOException {
         return Files.list(table)
                 .filter(path -> SSTABLE_RE.matcher(path.getFileName().toString()).matches())
@@ -1,23 +1,73 @@
 package com.instaclustr.cassandra.backup.impl;
 
 import java.io.IOException;
+import java.nio.file.FileSystemException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+
+import com.google.common.base.Throwables;
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics;
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType;
+import com.instaclustr.cassandra.backup.impl.metrics.TransferMetrics;
 
 public abstract class StorageInteractor implements AutoCloseable {
 
     private final StorageLocation storageLocation;
 
+    protected final StorageMetrics metrics;
+
     public abstract RemoteObjectReference objectKeyToRemoteReference(final Path objectKey) throws Exception;
 
     public StorageInteractor(final StorageLocation storageLocation) {
         this.storageLocation = storageLocation;
+        this.metrics = TransferMetrics.getInstance().storage(storageLocation.storageProvider);
     }
 
     public String resolveRemotePath(final Path objectKey) {
         return Paths.get(storageLocation.clusterId).resolve(storageLocation.datacenterId).resolve(storageLocation.nodeId).resolve(objectKey).toString();
     }
 
+    /**
+     * Runs a request to the storage, recording its duration and whether it failed to metrics of the storage.
+     */
+    protected <T> T timed(final RequestType requestType, final Callable<T> request) throws Exception {
+        final long start = System.nanoTime();
+
+        try {
+            final T result = request.call();
+
+            metrics.request(requestType).record(System.nanoTime() - start, false);
+
+            return result;
+        } catch (final Exception ex) {
+            metrics.request(requestType).record(System.nanoTime() - start, true);
+
+            if (isThrottleResponse(ex)) {
+                metrics.throttled();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * @return true if a failure of a request is caused by the storage throttling requests or being overloaded,
+     * e.g. HTTP 429 or 503, so it is counted to throttle responses of the storage
+     */
+    protected boolean isThrottleResponse(final Throwable throwable) {
+        return false;
+    }
+
+    /**
+     * @return true if a failed transfer is worth another attempt: the storage throttled it, the connection broke
+     * or the storage failed on its side. Failures of local files, e.g. a missing one, are not.
+     */
+    protected boolean isRetryable(final Throwable throwable) {
+        return isThrottleResponse(throwable) || Throwables.getCausalChain(throwable).stream()
+            .anyMatch(cause -> cause instanceof IOException && !(cause instanceof FileSystemException));
+    }
+
     protected abstract void cleanup() throws Exception;
 
     private boolean isClosed = false;
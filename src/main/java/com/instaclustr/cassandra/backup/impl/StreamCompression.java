@@ -0,0 +1,184 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Compression of files uploaded to and downloaded from a storage. A file is compressed once to a spool file on local disk
+ * before it is uploaded, so it is uploaded in parts and retried as any other file, a downloaded object is decompressed
+ * while it is streamed to its file.
+ * <p>
+ * The codec of an object is the suffix of its key, e.g. data/ks/tb/1-1234/mc-1-big-Index.db.deflate, so it is recorded
+ * in the manifest of a snapshot as well as in keys of commit logs, which have no manifest, and a compressed object
+ * never shares its key with an uncompressed one uploaded by an earlier backup.
+ * <p>
+ * The codec is chosen by the type of a component: index, summary, filter and other metadata components compress well,
+ * as do commit log segments, while data of compressed tables does not. Compressibility of other files is tested
+ * on a sample from their start.
+ */
+public class StreamCompression {
+
+    public enum Codec {
+        NONE(""),
+        DEFLATE(".deflate");
+
+        public final String suffix;
+
+        Codec(final String suffix) {
+            this.suffix = suffix;
+        }
+
+        /**
+         * @return codec the object of the key is compressed with
+         */
+        public static Codec of(final Path objectKey) {
+            return objectKey.getFileName().toString().endsWith(DEFLATE.suffix) ? DEFLATE : NONE;
+        }
+    }
+
+    // components of SSTables and commit logs which are worth compressing without testing them
+    private static final ImmutableList<String> COMPRESSIBLE_SUFFIXES = ImmutableList.of("-Index.db",
+                                                                                        "-Summary.db",
+                                                                                        "-Filter.db",
+                                                                                        "-Statistics.db",
+                                                                                        "-CompressionInfo.db",
+                                                                                        "-Partitions.db",
+                                                                                        "-Rows.db",
+                                                                                        "-TOC.txt",
+                                                                                        "-CRC.db",
+                                                                                        ".log");
+
+    // files smaller than this are not worth compressing, there are too few bytes to save
+    private static final long MIN_SIZE = 4 * 1024;
+
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    // sample has to shrink at least by a tenth, otherwise CPU is spent for nothing
+    private static final double MAX_SAMPLE_RATIO = 0.9;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @return the entry with the codec suffix appended to its object key, or the entry itself if its file is not
+     * worth compressing, bundles and manifest files are never compressed
+     */
+    public static ManifestEntry compressed(final ManifestEntry entry) throws IOException {
+        if (entry.type != ManifestEntry.Type.FILE || chooseCodec(entry.localFile, entry.size) == Codec.NONE) {
+            return entry;
+        }
+
+        return new ManifestEntry(entry.objectKey.resolveSibling(entry.objectKey.getFileName() + Codec.DEFLATE.suffix),
+                                 entry.localFile,
+                                 entry.type,
+                                 entry.size);
+    }
+
+    /**
+     * @return file name of the object of the key once it is decompressed, e.g. mc-1-big-Index.db
+     */
+    public static String uncompressedFileName(final Path objectKey) {
+        final String fileName = objectKey.getFileName().toString();
+
+        return fileName.substring(0, fileName.length() - Codec.of(objectKey).suffix.length());
+    }
+
+    static Codec chooseCodec(final Path localFile, final long size) throws IOException {
+        if (size < MIN_SIZE) {
+            return Codec.NONE;
+        }
+
+        final String fileName = localFile.getFileName().toString();
+
+        if (COMPRESSIBLE_SUFFIXES.stream().anyMatch(fileName::endsWith)) {
+            return Codec.DEFLATE;
+        }
+
+        if (fileName.endsWith("-Data.db")) {
+            final Path descriptor = SSTableUtils.sstableDescriptor(localFile);
+
+            if (Files.exists(descriptor.resolveSibling(descriptor.getFileName() + "-CompressionInfo.db"))) {
+                // data of a compressed table
+                return Codec.NONE;
+            }
+        }
+
+        return isCompressible(localFile) ? Codec.DEFLATE : Codec.NONE;
+    }
+
+    private static boolean isCompressible(final Path localFile) throws IOException {
+        final byte[] sample = new byte[SAMPLE_SIZE];
+        final int sampleSize;
+
+        try (final InputStream inputStream = Files.newInputStream(localFile)) {
+            sampleSize = ByteStreams.read(inputStream, sample, 0, sample.length);
+        }
+
+        try (final InputStream compressed = compress(new ByteArrayInputStream(sample, 0, sampleSize))) {
+            return ByteStreams.exhaust(compressed) < sampleSize * MAX_SAMPLE_RATIO;
+        }
+    }
+
+    /**
+     * Compresses the file to another one, which is then uploaded as any other file. A storage has to know the size
+     * of an object before its upload starts and a stream being compressed can not be rewound when a request is retried.
+     * Compression is deterministic, so the same file is always compressed to the same bytes.
+     *
+     * @return size of the compressed file in bytes
+     */
+    public static long compress(final Path localFile, final Path compressedFile) throws IOException {
+        try (final InputStream compressed = compress(Files.newInputStream(localFile))) {
+            return Files.copy(compressed, compressedFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return stream of compressed bytes read from the stream, closing it closes the stream
+     */
+    public static InputStream compress(final InputStream inputStream) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        return new DeflaterInputStream(inputStream, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return stream of decompressed bytes read from the stream, closing it closes the stream
+     */
+    public static InputStream decompress(final InputStream inputStream, final Codec codec) {
+        if (codec == Codec.NONE) {
+            return inputStream;
+        }
+
+        final Inflater inflater = new Inflater();
+
+        return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
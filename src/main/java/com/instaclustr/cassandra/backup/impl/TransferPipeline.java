@@ -0,0 +1,335 @@
+package com.instaclustr.cassandra.backup.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded producer / consumer pipeline of transfers.
+ * <p>
+ * Producers {@link #submit(Object)} items which are transferred by a fixed number of workers. Once the queue is full,
+ * producers are blocked until some worker takes an item so the memory needed does not depend on the number of items.
+ * The first failed transfer fails the whole pipeline: running transfers are interrupted, the rest of items are not
+ * transferred, and the failure is thrown from {@link #submit(Object)} and {@link #finish()}.
+ * <p>
+ * With a {@link RetryPolicy}, a failed transfer fails the pipeline only once its item has used up all its attempts
+ * or the failure is not worth retrying. Until then, the item waits for its backoff delay aside from the queue, so it
+ * neither holds a worker nor blocks producers meanwhile.
+ * <p>
+ * With a {@link ConcurrencyLimiter}, each traffic class of the limiter has a queue and workers of its own, the number
+ * of workers is the upper bound of concurrent transfers of each class and each transfer waits for a permit of the
+ * limiter first. A worker waiting for a permit of one class thus never holds back transfers of the other one.
+ *
+ * @param <T> type of items to transfer
+ */
+public class TransferPipeline<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferPipeline.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    @FunctionalInterface
+    public interface Transfer<T> {
+
+        void transfer(T item) throws Exception;
+    }
+
+    // a lane per traffic class of the limiter, a single one without it
+    private final List<Lane<T>> lanes = new ArrayList<>();
+    private final Transfer<T> transfer;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ToLongFunction<T> size;
+    private final RetryPolicy retryPolicy;
+    // items submitted but not transferred yet, either queued, in transfer or waiting for a retry
+    private final AtomicInteger pending = new AtomicInteger();
+    private final List<Future<?>> workers = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private volatile boolean finished = false;
+
+    /**
+     * @param executorService executor to run workers on, it has to be able to run all of them at once, see {@link #threads(int, ConcurrencyLimiter)}
+     * @param workers         number of concurrent transfers
+     * @param capacity        number of submitted items waiting for a worker before producers are blocked
+     * @param transfer        transfer of an item
+     */
+    public TransferPipeline(final ExecutorService executorService,
+                            final int workers,
+                            final int capacity,
+                            final Transfer<T> transfer) {
+        this(executorService, workers, capacity, null, item -> 0, transfer);
+    }
+
+    /**
+     * @param executorService    executor to run workers on, it has to be able to run all of them at once, see {@link #threads(int, ConcurrencyLimiter)}
+     * @param workers            maximal number of concurrent transfers, of each traffic class with a limiter
+     * @param capacity           number of submitted items waiting for a worker before producers are blocked
+     * @param concurrencyLimiter adaptive limit of concurrent transfers, if null, all workers transfer at once
+     * @param size               size of an item in bytes, as the limiter sees it
+     * @param transfer           transfer of an item
+     */
+    public TransferPipeline(final ExecutorService executorService,
+                            final int workers,
+                            final int capacity,
+                            final ConcurrencyLimiter concurrencyLimiter,
+                            final ToLongFunction<T> size,
+                            final Transfer<T> transfer) {
+        this(executorService, workers, capacity, concurrencyLimiter, size, null, transfer);
+    }
+
+    /**
+     * @param executorService    executor to run workers on, it has to be able to run all of them at once, see {@link #threads(int, ConcurrencyLimiter)}
+     * @param workers            maximal number of concurrent transfers, of each traffic class with a limiter
+     * @param capacity           number of submitted items waiting for a worker before producers are blocked
+     * @param concurrencyLimiter adaptive limit of concurrent transfers, if null, all workers transfer at once
+     * @param size               size of an item in bytes, as the limiter sees it
+     * @param retryPolicy        retries of failed transfers, if null, the first failure fails the pipeline
+     * @param transfer           transfer of an item
+     */
+    public TransferPipeline(final ExecutorService executorService,
+                            final int workers,
+                            final int capacity,
+                            final ConcurrencyLimiter concurrencyLimiter,
+                            final ToLongFunction<T> size,
+                            final RetryPolicy retryPolicy,
+                            final Transfer<T> transfer) {
+        this.transfer = transfer;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.size = size;
+        this.retryPolicy = retryPolicy;
+
+        for (int i = 0; i < (concurrencyLimiter == null ? 1 : ConcurrencyLimiter.TrafficClass.values().length); i++) {
+            final Lane<T> lane = new Lane<>(capacity);
+
+            lanes.add(lane);
+
+            for (int j = 0; j < workers; j++) {
+                this.workers.add(executorService.submit(() -> work(lane)));
+            }
+        }
+    }
+
+    /**
+     * @return number of threads an executor of a pipeline of the workers and the limiter has to have
+     */
+    public static int threads(final int workers, final ConcurrencyLimiter concurrencyLimiter) {
+        return concurrencyLimiter == null ? workers : workers * ConcurrencyLimiter.TrafficClass.values().length;
+    }
+
+    /**
+     * Blocks until there is a space for the item in the queue.
+     *
+     * @throws IllegalStateException if the pipeline has failed or the producer was interrupted
+     */
+    public void submit(final T item) {
+        pending.incrementAndGet();
+
+        try {
+            final BlockingQueue<T> queue = lane(item).queue;
+
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+
+            checkFailure();
+        } catch (final InterruptedException ex) {
+            pending.decrementAndGet();
+            Thread.currentThread().interrupt();
+            abort(ex);
+            throw new IllegalStateException("Interrupted while submitting a transfer.", ex);
+        }
+    }
+
+    /**
+     * Fails the pipeline because of a failure outside of it, e.g. of a producer.
+     */
+    public void abort(final Throwable cause) {
+        if (failure.compareAndSet(null, cause)) {
+            workers.forEach(worker -> worker.cancel(true));
+        }
+    }
+
+    /**
+     * Signals no more items will be submitted and waits until all submitted items are transferred.
+     *
+     * @throws Exception the first failure of the pipeline
+     */
+    public void finish() throws Exception {
+        finished = true;
+
+        for (final Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (final CancellationException | ExecutionException ex) {
+                // failure is recorded by the worker itself, or pipeline was aborted
+            }
+        }
+
+        final Throwable throwable = failure.get();
+
+        if (throwable instanceof Exception) {
+            throw (Exception) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else if (throwable != null) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    public boolean isFailed() {
+        return failure.get() != null;
+    }
+
+    @Override
+    public void close() {
+        if (!finished) {
+            abort(new CancellationException("Transfer pipeline was closed before it has finished."));
+        }
+    }
+
+    private void checkFailure() {
+        final Throwable throwable = failure.get();
+
+        if (throwable != null) {
+            throw new IllegalStateException("Transfer pipeline has failed.", throwable);
+        }
+    }
+
+    private Lane<T> lane(final T item) {
+        return concurrencyLimiter == null ? lanes.get(0) : lanes.get(ConcurrencyLimiter.TrafficClass.of(size.applyAsLong(item)).ordinal());
+    }
+
+    private void transfer(final T item) throws Exception {
+        if (concurrencyLimiter == null) {
+            transfer.transfer(item);
+            return;
+        }
+
+        final long itemSize = size.applyAsLong(item);
+        final ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(itemSize);
+
+        boolean failed = true;
+
+        try {
+            transfer.transfer(item);
+            failed = false;
+        } finally {
+            permit.release(itemSize, failed);
+        }
+    }
+
+    private void work(final Lane<T> lane) {
+        try {
+            while (failure.get() == null) {
+                // items are counted before they are enqueued and finished is set after the last one is
+                if (finished && pending.get() == 0) {
+                    return;
+                }
+
+                final Attempt<T> attempt = next(lane);
+
+                if (attempt == null) {
+                    continue;
+                }
+
+                try {
+                    transfer(attempt.item);
+                    pending.decrementAndGet();
+                } catch (final Exception ex) {
+                    if (retryPolicy == null || failure.get() != null || !retryPolicy.shouldRetry(ex, attempt.number)) {
+                        throw ex;
+                    }
+
+                    final long delayMillis = retryPolicy.nextDelayMillis(attempt.delayMillis);
+
+                    logger.warn("Transfer of {} has failed, attempt {} of {}, retrying in {} ms: {}",
+                                attempt.item, attempt.number, retryPolicy.getMaxAttempts(), delayMillis, ex.toString());
+
+                    lane.retries.put(new Attempt<>(attempt.item, attempt.number + 1, delayMillis));
+                }
+            }
+        } catch (final Throwable t) {
+            abort(t);
+        }
+    }
+
+    /**
+     * Takes a retry which is due first, as it has waited already, or a queued item otherwise.
+     *
+     * @return null if there is nothing to transfer at the moment
+     */
+    private Attempt<T> next(final Lane<T> lane) throws InterruptedException {
+        final Attempt<T> retry = lane.retries.poll();
+
+        if (retry != null) {
+            return retry;
+        }
+
+        long timeoutMillis = POLL_MILLIS;
+
+        final Attempt<T> nextRetry = lane.retries.peek();
+
+        if (nextRetry != null) {
+            timeoutMillis = Math.max(0, Math.min(timeoutMillis, nextRetry.getDelay(TimeUnit.MILLISECONDS)));
+        }
+
+        final T item = lane.queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        return item == null ? null : new Attempt<>(item, 1, 0);
+    }
+
+    /**
+     * Items of a traffic class waiting for a worker, either submitted or to be retried.
+     */
+    private static final class Lane<T> {
+
+        private final BlockingQueue<T> queue;
+        private final DelayQueue<Attempt<T>> retries = new DelayQueue<>();
+
+        private Lane(final int capacity) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+    }
+
+    private static final class Attempt<T> implements Delayed {
+
+        private final T item;
+        // starting at 1
+        private final int number;
+        // delay before this attempt, the next one is derived from it
+        private final long delayMillis;
+        private final long dueNanos;
+
+        private Attempt(final T item, final int number, final long delayMillis) {
+            this.item = item;
+            this.number = number;
+            this.delayMillis = delayMillis;
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(dueNanos, ((Attempt<?>) other).dueNanos);
+        }
+    }
+}
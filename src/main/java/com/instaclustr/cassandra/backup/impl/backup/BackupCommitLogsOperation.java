@@ -9,6 +9,8 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.cassandra.backup.guice.BackuperFactory;
@@ -16,6 +18,7 @@ import com.instaclustr.cassandra.backup.guice.BucketServiceFactory;
 import com.instaclustr.cassandra.backup.impl.BucketService;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
 import com.instaclustr.io.GlobalLock;
 import com.instaclustr.operations.Operation;
 import org.slf4j.Logger;
@@ -26,6 +29,10 @@ public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperati
     private static final Logger logger = LoggerFactory.getLogger(BackupCommitLogsOperation.class);
     private static final String CASSANDRA_COMMIT_LOGS = "commitlog";
 
+    // bytes transferred, throughput and ETA, exposed as a snapshot along with progress of the operation
+    @JsonIgnore
+    public final OperationProgressTracker progressTracker = new OperationProgressTracker(this);
+
     private final Map<String, BackuperFactory> backuperFactoryMap;
     private final Map<String, BucketServiceFactory> bucketServiceMap;
 
@@ -38,6 +45,11 @@ public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperati
         this.bucketServiceMap = bucketServiceMap;
     }
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public OperationProgressTracker.Snapshot getTransferProgress() {
+        return progressTracker.snapshot();
+    }
+
     @Override
     protected void run0() throws Exception {
         logger.info(request.toString());
@@ -66,12 +78,14 @@ public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperati
                 long commitLogLastModified = Files.getLastModifiedTime(commitLog.toFile().toPath()).toMillis();
 
                 final Path bucketKey = backupCommitLogRootKey.resolve(commitLog.getFileName().toString() + "." + commitLogLastModified);
-                manifest.add(new ManifestEntry(bucketKey, commitLog, ManifestEntry.Type.FILE));
+                final ManifestEntry entry = new ManifestEntry(bucketKey, commitLog, ManifestEntry.Type.FILE);
+
+                manifest.add(request.compress ? StreamCompression.compressed(entry) : entry);
             }
 
             logger.debug("{} files in manifest for commitlog backup.", manifest.size());
 
-            backuper.uploadOrFreshenFiles(manifest, new OperationProgressTracker(this, manifest.size()));
+            backuper.uploadOrFreshenFiles(manifest, progressTracker);
         }
     }
 
@@ -25,15 +25,27 @@ public class BackupCommitLogsOperationRequest extends BaseBackupOperationRequest
     public BackupCommitLogsOperationRequest(@JsonProperty("storageLocation") final StorageLocation storageLocation,
                                             @JsonProperty("duration") final Time duration,
                                             @JsonProperty("bandwidth") final DataRate bandwidth,
+                                            @JsonProperty("bandwidthBurst") final Long bandwidthBurst,
                                             @JsonProperty("concurrentConnections") final Integer concurrentConnections,
+                                            @JsonProperty("adaptiveConcurrency") final boolean adaptiveConcurrency,
+                                            @JsonProperty("transferAttempts") final Integer transferAttempts,
+                                            @JsonProperty("multipartThreshold") final Long multipartThreshold,
+                                            @JsonProperty("partSize") final Long partSize,
+                                            @JsonProperty("partConcurrency") final Integer partConcurrency,
+                                            @JsonProperty("gcpWriteChunkSize") final Long gcpWriteChunkSize,
+                                            @JsonProperty("gcpCompositeThreshold") final Long gcpCompositeThreshold,
+                                            @JsonProperty("gcpCompositeSliceSize") final Long gcpCompositeSliceSize,
                                             @JsonProperty("waitForLock") final boolean waitForLock,
                                             @JsonProperty("lockFile") final Path lockFile,
+                                            @JsonProperty("metricsFile") final Path metricsFile,
+                                            @JsonProperty("skipFreshen") final boolean skipFreshen,
+                                            @JsonProperty("compress") final boolean compress,
                                             @JsonProperty("sharedContainerPath") final Path sharedContainerPath,
                                             @JsonProperty("cassandraDirectory") final Path cassandraDirectory,
                                             @JsonProperty("commitLogRestoreDirectory") final Path commitLogArchiveOverride,
                                             @JsonProperty("k8sNamespace") final String k8sNamespace,
                                             @JsonProperty("k8sSecretName") final String k8sSecretName) {
-        super(storageLocation, duration, bandwidth, concurrentConnections, waitForLock, sharedContainerPath, cassandraDirectory, lockFile, k8sNamespace, k8sSecretName);
+        super(storageLocation, duration, bandwidth, bandwidthBurst, concurrentConnections, adaptiveConcurrency, transferAttempts, multipartThreshold, partSize, partConcurrency, gcpWriteChunkSize, gcpCompositeThreshold, gcpCompositeSliceSize, waitForLock, sharedContainerPath, cassandraDirectory, lockFile, metricsFile, skipFreshen, compress, k8sNamespace, k8sSecretName);
         this.commitLogArchiveOverride = commitLogArchiveOverride;
     }
 
@@ -43,9 +55,21 @@ public class BackupCommitLogsOperationRequest extends BaseBackupOperationRequest
                 .add("storageLocation", storageLocation)
                 .add("duration", duration)
                 .add("bandwidth", bandwidth)
+                .add("bandwidthBurst", bandwidthBurst)
                 .add("concurrentConnections", concurrentConnections)
+                .add("adaptiveConcurrency", adaptiveConcurrency)
+                .add("transferAttempts", transferAttempts)
+                .add("multipartThreshold", multipartThreshold)
+                .add("partSize", partSize)
+                .add("partConcurrency", partConcurrency)
+                .add("gcpWriteChunkSize", gcpWriteChunkSize)
+                .add("gcpCompositeThreshold", gcpCompositeThreshold)
+                .add("gcpCompositeSliceSize", gcpCompositeSliceSize)
                 .add("waitForLock", waitForLock)
                 .add("lockFile", lockFile)
+                .add("metricsFile", metricsFile)
+                .add("skipFreshen", skipFreshen)
+                .add("compress", compress)
                 .add("sharedContainerPath", sharedContainerPath)
                 .add("cassandraDirectory", cassandraDirectory)
                 .add("commitLogRestoreDirectory", commitLogArchiveOverride)
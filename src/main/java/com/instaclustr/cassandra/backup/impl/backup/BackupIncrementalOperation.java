@@ -0,0 +1,108 @@
+package com.instaclustr.cassandra.backup.impl.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import com.instaclustr.cassandra.backup.guice.BackuperFactory;
+import com.instaclustr.cassandra.backup.guice.BucketServiceFactory;
+import com.instaclustr.cassandra.backup.impl.BucketService;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.io.GlobalLock;
+import com.instaclustr.operations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uploads SSTables Cassandra has linked into directories of incremental backups since the last run, followed by
+ * a manifest listing them, incremental-manifests/tag. Once all of them are uploaded, their links are deleted,
+ * otherwise they would keep SSTables compacted away on disk forever. A failed upload deletes nothing, so files
+ * are uploaded, or freshened, by the next run.
+ */
+public class BackupIncrementalOperation extends Operation<BackupIncrementalOperationRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupIncrementalOperation.class);
+
+    // bytes transferred, throughput and ETA, exposed as a snapshot along with progress of the operation
+    @JsonIgnore
+    public final OperationProgressTracker progressTracker = new OperationProgressTracker(this);
+
+    private final Map<String, BackuperFactory> backuperFactoryMap;
+    private final Map<String, BucketServiceFactory> bucketServiceFactoryMap;
+
+    @AssistedInject
+    public BackupIncrementalOperation(final Map<String, BackuperFactory> backuperFactoryMap,
+                                      final Map<String, BucketServiceFactory> bucketServiceFactoryMap,
+                                      @Assisted final BackupIncrementalOperationRequest request) {
+        super(request);
+        this.backuperFactoryMap = backuperFactoryMap;
+        this.bucketServiceFactoryMap = bucketServiceFactoryMap;
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public OperationProgressTracker.Snapshot getTransferProgress() {
+        return progressTracker.snapshot();
+    }
+
+    @Override
+    protected void run0() throws Exception {
+        logger.info(request.toString());
+
+        new GlobalLock(request.lockFile).waitForLock(request.waitForLock);
+
+        final List<ManifestEntry> entries = new IncrementalManifestGenerator(request.cassandraDirectory.resolve("data"),
+                                                                             request.keyspaces,
+                                                                             request.table,
+                                                                             request.packThreshold,
+                                                                             request.compress).generate();
+
+        if (entries.isEmpty()) {
+            logger.info("No SSTables found in incremental backups.");
+            progressTracker.complete();
+            return;
+        }
+
+        logger.info("{} files in manifest for incremental backup \"{}\".", entries.size(), request.snapshotTag);
+
+        final Path manifestDirectory = Files.createDirectories(request.sharedContainerPath.resolve(Paths.get("tmp/cassandra-operator/incremental-manifests")));
+
+        final List<ManifestEntry> manifest = new ArrayList<>(entries);
+        manifest.add(BackupOperation.writeManifest(entries,
+                                                   manifestDirectory.resolve(request.snapshotTag),
+                                                   Paths.get("incremental-manifests").resolve(request.snapshotTag)));
+
+        try (final BucketService bucketService = bucketServiceFactoryMap.get(request.storageLocation.storageProvider).createBucketService(request)) {
+            bucketService.createIfMissing(request.storageLocation.bucket);
+        }
+
+        try (final Backuper backuper = backuperFactoryMap.get(request.storageLocation.storageProvider).createBackuper(request)) {
+            // fails if any file, or the manifest, is not uploaded
+            backuper.uploadOrFreshenFiles(manifest, progressTracker);
+        }
+
+        deleteUploaded(entries);
+    }
+
+    private void deleteUploaded(final List<ManifestEntry> entries) throws Exception {
+        int deleted = 0;
+
+        for (final ManifestEntry entry : entries) {
+            for (final ManifestEntry file : entry.type == ManifestEntry.Type.BUNDLE ? entry.components : Collections.singletonList(entry)) {
+                if (Files.deleteIfExists(file.localFile)) {
+                    deleted++;
+                }
+            }
+        }
+
+        logger.info("{} uploaded files deleted from incremental backups.", deleted);
+    }
+}
@@ -0,0 +1,95 @@
+package com.instaclustr.cassandra.backup.impl.backup;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.instaclustr.cassandra.backup.impl.StorageLocation;
+import com.instaclustr.measure.DataRate;
+import com.instaclustr.measure.Time;
+
+/**
+ * Request to upload SSTables of incremental backups. It is a backup request, so storages create backupers and bucket
+ * services for it as they do for a snapshot, its snapshot tag names the incremental manifest. Nothing is snapshotted,
+ * so Cassandra does not have to be running.
+ */
+public class BackupIncrementalOperationRequest extends BackupOperationRequest {
+
+    public BackupIncrementalOperationRequest() {
+        // for picocli
+        this.snapshotTag = incrementalTag();
+        this.offlineSnapshot = true;
+    }
+
+    @JsonCreator
+    public BackupIncrementalOperationRequest(@JsonProperty("storageLocation") final StorageLocation storageLocation,
+                                             @JsonProperty("duration") final Time duration,
+                                             @JsonProperty("bandwidth") final DataRate bandwidth,
+                                             @JsonProperty("bandwidthBurst") final Long bandwidthBurst,
+                                             @JsonProperty("concurrentConnections") final Integer concurrentConnections,
+                                             @JsonProperty("adaptiveConcurrency") final boolean adaptiveConcurrency,
+                                             @JsonProperty("transferAttempts") final Integer transferAttempts,
+                                             @JsonProperty("multipartThreshold") final Long multipartThreshold,
+                                             @JsonProperty("partSize") final Long partSize,
+                                             @JsonProperty("partConcurrency") final Integer partConcurrency,
+                                             @JsonProperty("gcpWriteChunkSize") final Long gcpWriteChunkSize,
+                                             @JsonProperty("gcpCompositeThreshold") final Long gcpCompositeThreshold,
+                                             @JsonProperty("gcpCompositeSliceSize") final Long gcpCompositeSliceSize,
+                                             @JsonProperty("waitForLock") final boolean waitForLock,
+                                             @JsonProperty("lockFile") final Path lockFile,
+                                             @JsonProperty("metricsFile") final Path metricsFile,
+                                             @JsonProperty("skipFreshen") final boolean skipFreshen,
+                                             @JsonProperty("compress") final boolean compress,
+                                             @JsonProperty("sharedContainerPath") final Path sharedContainerPath,
+                                             @JsonProperty("cassandraDirectory") final Path cassandraDirectory,
+                                             @JsonProperty("keyspaces") final List<String> keyspaces,
+                                             @JsonProperty("snapshotTag") final String snapshotTag,
+                                             @JsonProperty("table") final String table,
+                                             @JsonProperty("packThreshold") final Long packThreshold,
+                                             @JsonProperty("k8sNamespace") final String k8sNamespace,
+                                             @JsonProperty("k8sSecretName") final String k8sSecretName) {
+        super(storageLocation, duration, bandwidth, bandwidthBurst, concurrentConnections, adaptiveConcurrency, transferAttempts, multipartThreshold, partSize, partConcurrency, gcpWriteChunkSize, gcpCompositeThreshold, gcpCompositeSliceSize, waitForLock, lockFile, metricsFile, skipFreshen, compress, sharedContainerPath, cassandraDirectory, keyspaces, snapshotTag == null ? incrementalTag() : snapshotTag, true, table, packThreshold, k8sNamespace, k8sSecretName);
+    }
+
+    private static String incrementalTag() {
+        return format("incremental-%d", MILLISECONDS.toSeconds(currentTimeMillis()));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("storageLocation", storageLocation)
+                .add("duration", duration)
+                .add("bandwidth", bandwidth)
+                .add("bandwidthBurst", bandwidthBurst)
+                .add("concurrentConnections", concurrentConnections)
+                .add("adaptiveConcurrency", adaptiveConcurrency)
+                .add("transferAttempts", transferAttempts)
+                .add("multipartThreshold", multipartThreshold)
+                .add("partSize", partSize)
+                .add("partConcurrency", partConcurrency)
+                .add("gcpWriteChunkSize", gcpWriteChunkSize)
+                .add("gcpCompositeThreshold", gcpCompositeThreshold)
+                .add("gcpCompositeSliceSize", gcpCompositeSliceSize)
+                .add("waitForLock", waitForLock)
+                .add("lockFile", lockFile)
+                .add("metricsFile", metricsFile)
+                .add("skipFreshen", skipFreshen)
+                .add("compress", compress)
+                .add("sharedContainerPath", sharedContainerPath)
+                .add("cassandraDirectory", cassandraDirectory)
+                .add("keyspaces", keyspaces)
+                .add("snapshotTag", snapshotTag)
+                .add("table", table)
+                .add("packThreshold", packThreshold)
+                .add("k8sNamespace", k8sNamespace)
+                .add("k8sSecretName", k8sBackupSecretName)
+                .toString();
+    }
+}
@@ -27,4 +27,15 @@ public class BackupModules {
                                      BackupCommitLogsOperation.class);
         }
     }
+
+    public static final class IncrementalBackupModule extends AbstractModule {
+
+        @Override
+        protected void configure() {
+            installOperationBindings(binder(),
+                                     "incremental-backup",
+                                     BackupIncrementalOperationRequest.class,
+                                     BackupIncrementalOperation.class);
+        }
+    }
 }
@@ -1,9 +1,6 @@
 package com.instaclustr.cassandra.backup.impl.backup;
 
 import static java.lang.String.format;
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toList;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -11,14 +8,13 @@ import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.StreamSupport;
+import java.util.function.Consumer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
-import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.inject.Provider;
@@ -29,7 +25,6 @@ import com.instaclustr.cassandra.backup.guice.BucketServiceFactory;
 import com.instaclustr.cassandra.backup.impl.BucketService;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
-import com.instaclustr.cassandra.backup.impl.SSTableUtils;
 import com.instaclustr.io.GlobalLock;
 import com.instaclustr.operations.FunctionWithEx;
 import com.instaclustr.operations.Operation;
@@ -43,6 +38,10 @@ public class BackupOperation extends Operation<BackupOperationRequest> {
 
     private static final Logger logger = LoggerFactory.getLogger(BackupOperation.class);
 
+    // bytes transferred, throughput and ETA, exposed as a snapshot along with progress of the operation
+    @JsonIgnore
+    public final OperationProgressTracker progressTracker = new OperationProgressTracker(this);
+
     private final Provider<CassandraJMXService> cassandraJMXService;
     private final Map<String, BackuperFactory> backuperFactoryMap;
     final Map<String, BucketServiceFactory> bucketServiceFactoryMap;
@@ -58,6 +57,11 @@ public class BackupOperation extends Operation<BackupOperationRequest> {
         this.bucketServiceFactoryMap = bucketServiceFactoryMap;
     }
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public OperationProgressTracker.Snapshot getTransferProgress() {
+        return progressTracker.snapshot();
+    }
+
     @Override
     protected void run0() throws Exception {
         logger.info(request.toString());
@@ -91,89 +95,94 @@ public class BackupOperation extends Operation<BackupOperationRequest> {
     }
 
     private void executeUpload(List<String> tokens) throws Exception {
-        final Collection<ManifestEntry> manifest = generateManifest(request.keyspaces,
-                                                                    request.snapshotTag,
-                                                                    request.cassandraDirectory.resolve("data"));
-
-        Iterables.addAll(manifest, saveTokenList(tokens));
-        Iterables.addAll(manifest, saveManifest(manifest, request.snapshotTag));
-
         try (final BucketService bucketService = bucketServiceFactoryMap.get(request.storageLocation.storageProvider).createBucketService(request)) {
             bucketService.createIfMissing(request.storageLocation.bucket);
         }
 
         try (final Backuper backuper = backuperFactoryMap.get(request.storageLocation.storageProvider).createBackuper(request)) {
-            backuper.uploadOrFreshenFiles(manifest, new OperationProgressTracker(this, manifest.size()));
+            // files of a table are uploaded as soon as its part of manifest is generated, manifest itself is uploaded last
+            backuper.uploadOrFreshenFiles(sink -> {
+                final Path snapshotManifestDirectory = Files.createDirectories(request.sharedContainerPath.resolve(Paths.get("tmp/cassandra-operator/manifests")));
+
+                final ManifestWriter manifestWriter = new ManifestWriter(snapshotManifestDirectory.resolve(request.snapshotTag));
+
+                try {
+                    generateManifest(request.keyspaces,
+                                     request.snapshotTag,
+                                     request.cassandraDirectory.resolve("data"),
+                                     manifestWriter,
+                                     tableManifest -> tableManifest.forEach(entry -> {
+                                         manifestWriter.write(entry);
+                                         sink.accept(entry);
+                                     }));
+
+                    for (final ManifestEntry tokenList : saveTokenList(tokens)) {
+                        manifestWriter.write(tokenList);
+                        sink.accept(tokenList);
+                    }
+                } finally {
+                    manifestWriter.close();
+                }
+
+                sink.accept(manifestWriter.manifestEntry(Paths.get("manifests").resolve(request.snapshotTag)));
+            }, progressTracker);
         }
     }
 
-    private Collection<ManifestEntry> generateManifest(
+    /**
+     * Entries are passed to the manifest writer and uploaded as tables are walked, a snapshot without any Data.db
+     * fails the upload before the manifest file is uploaded.
+     */
+    private void generateManifest(
         final List<String> keyspaces,
         final String snapshotTag,
-        final Path cassandraDataDirectory) throws IOException {
-        // find files belonging to snapshot
-        final Map<String, ? extends Iterable<KeyspaceColumnFamilySnapshot>> snapshots = findKeyspaceColumnFamilySnapshots(cassandraDataDirectory);
-
-        final Iterable<KeyspaceColumnFamilySnapshot> kcfss = snapshots.get(snapshotTag);
-
-        if (kcfss != null) {
-            final String collect = StreamSupport.stream(kcfss.spliterator(), false)
-                .map(kcfs -> String.format("[%s %s %s]", kcfs.snapshotDirectory, kcfs.keyspace, kcfs.table))
-                .collect(joining(","));
-
-            logger.debug("Found snapshots {}", collect);
-        } else {
+        final Path cassandraDataDirectory,
+        final ManifestWriter manifestWriter,
+        final Consumer<List<ManifestEntry>> tableManifestConsumer) throws IOException {
+        // find files belonging to snapshot and generate manifest (set of object keys and source files defining the snapshot)
+        final SnapshotManifestGenerator manifestGenerator = new SnapshotManifestGenerator(cassandraDataDirectory,
+                                                                                          snapshotTag,
+                                                                                          tableManifestConsumer,
+                                                                                          Runtime.getRuntime().availableProcessors(),
+                                                                                          request.packThreshold,
+                                                                                          request.compress);
+
+        manifestGenerator.consume();
+
+        if (manifestGenerator.getSnapshotDirectories() == 0) {
             logger.debug("No keyspace-column family snapshots were found for snapshot {}", snapshotTag);
-        }
 
-        if (kcfss == null) {
             if (keyspaces != null && !keyspaces.isEmpty()) {
                 logger.warn("No keyspace column family snapshot directories were found for snapshot \"{}\" of {}", snapshotTag, Joiner.on(",").join(keyspaces));
-                return new LinkedList<>();
+                return;
             }
 
             // There should at least be system keyspace tables
             throw new IllegalStateException(format("No keyspace column family snapshot directories were found for snapshot \"%s\" of all data.", snapshotTag));
         }
 
-        // generate manifest (set of object keys and source files defining the snapshot)
-        final Collection<ManifestEntry> manifest = new LinkedList<>(); // linked list to maintain order
+        logger.info("{} files in manifest for snapshot \"{}\".", manifestWriter.getEntries(), snapshotTag);
 
-        // add snapshot files to the manifest
-        for (final KeyspaceColumnFamilySnapshot keyspaceColumnFamilySnapshot : kcfss) {
-            final Path bucketKey = Paths.get("data").resolve(Paths.get(keyspaceColumnFamilySnapshot.keyspace, keyspaceColumnFamilySnapshot.table));
-            Iterables.addAll(manifest, SSTableUtils.ssTableManifest(keyspaceColumnFamilySnapshot.snapshotDirectory, bucketKey).collect(toList()));
-        }
-
-        logger.info("{} files in manifest for snapshot \"{}\".", manifest.size(), snapshotTag);
-
-        if (manifest.stream().noneMatch(input -> input != null && input.localFile.toString().contains("-Data.db"))) {
+        if (!manifestWriter.hasDataFiles()) {
             throw new IllegalStateException("No Data.db SSTables found in manifest. Aborting backup.");
         }
-
-        return manifest;
     }
 
-    private Iterable<ManifestEntry> saveManifest(final Iterable<ManifestEntry> manifest, String tag) throws IOException {
-        final Path snapshotManifestDirectory = Files.createDirectories(request.sharedContainerPath.resolve(Paths.get("tmp/cassandra-operator/manifests")));
-        final Path manifestFilePath = snapshotManifestDirectory.resolve(tag);
-
-        Files.deleteIfExists(manifestFilePath);
-        Files.createFile(manifestFilePath);
+    /**
+     * Writes a line with the size and the object key of each entry, packed components are followed by the key of their bundle.
+     *
+     * @return entry of the manifest file to upload under the object key
+     */
+    static ManifestEntry writeManifest(final Iterable<ManifestEntry> manifest, final Path manifestFilePath, final Path objectKey) throws IOException {
+        final ManifestWriter manifestWriter = new ManifestWriter(manifestFilePath);
 
-        try (final OutputStream stream = Files.newOutputStream(manifestFilePath);
-            final PrintStream writer = new PrintStream(stream)) {
-            for (final ManifestEntry manifestEntry : manifest) {
-                writer.println(Joiner.on(' ').join(manifestEntry.size, manifestEntry.objectKey));
-            }
+        try {
+            manifest.forEach(manifestWriter::write);
+        } finally {
+            manifestWriter.close();
         }
 
-        // TODO - clean this up! dont wait until jvm is shut down, what if this runs in sidecar?
-        manifestFilePath.toFile().deleteOnExit();
-
-        return ImmutableList.of(new ManifestEntry(Paths.get("manifests").resolve(manifestFilePath.getFileName()),
-                                                  manifestFilePath,
-                                                  ManifestEntry.Type.MANIFEST_FILE));
+        return manifestWriter.manifestEntry(objectKey);
     }
 
     private Iterable<ManifestEntry> saveTokenList(List<String> tokens) throws IOException {
@@ -195,40 +204,6 @@ public class BackupOperation extends Operation<BackupOperationRequest> {
                                                   ManifestEntry.Type.FILE));
     }
 
-    private static Map<String, ? extends Iterable<KeyspaceColumnFamilySnapshot>> findKeyspaceColumnFamilySnapshots(final Path cassandraDataDirectory) throws IOException {
-        // /var/lib/cassandra /data /<keyspace> /<column family> /snapshots /<snapshot>
-        return Files.find(cassandraDataDirectory,
-                          4,
-                          (path, basicFileAttributes) -> path.getParent().endsWith("snapshots"))
-            .map((KeyspaceColumnFamilySnapshot::new))
-            .collect(groupingBy(k -> k.snapshotDirectory.getFileName().toString()));
-    }
-
-    static class KeyspaceColumnFamilySnapshot {
-
-        final String keyspace, table;
-        final Path snapshotDirectory;
-
-        KeyspaceColumnFamilySnapshot(final Path snapshotDirectory) {
-            // /data /<keyspace> /<column family> /snapshots /<snapshot>
-
-            final Path columnFamilyDirectory = snapshotDirectory.getParent().getParent();
-
-            this.table = columnFamilyDirectory.getFileName().toString();
-            this.keyspace = columnFamilyDirectory.getParent().getFileName().toString();
-            this.snapshotDirectory = snapshotDirectory;
-        }
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                .add("keyspace", keyspace)
-                .add("table", table)
-                .add("snapshotDirectory", snapshotDirectory)
-                .toString();
-        }
-    }
-
     public static class ClearSnapshotOperation extends Operation<ClearSnapshotOperation.ClearSnapshotOperationRequest> {
 
         private static final Logger logger = LoggerFactory.getLogger(ClearSnapshotOperation.class);
@@ -11,6 +11,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import com.instaclustr.cassandra.backup.impl.DataSizeTypeConverter;
 import com.instaclustr.cassandra.backup.impl.StorageLocation;
 import com.instaclustr.measure.DataRate;
 import com.instaclustr.measure.Time;
@@ -32,6 +33,12 @@ public class BackupOperationRequest extends BaseBackupOperationRequest {
             description = "The column family to snapshot/upload. Requires a keyspace to be specified.")
     public String table;
 
+    @Option(names = {"--pack-threshold"},
+            description = "Components of an SSTable smaller than this, e.g. 64KB, are packed into a single object per SSTable, " +
+                    "saving a request for each of them. Larger components are uploaded as they are. Nothing is packed by default.",
+            converter = DataSizeTypeConverter.class)
+    public Long packThreshold;
+
     @Parameters
     public List<String> keyspaces;
 
@@ -43,22 +50,36 @@ public class BackupOperationRequest extends BaseBackupOperationRequest {
     public BackupOperationRequest(@JsonProperty("storageLocation") final StorageLocation storageLocation,
                                   @JsonProperty("duration") final Time duration,
                                   @JsonProperty("bandwidth") final DataRate bandwidth,
+                                  @JsonProperty("bandwidthBurst") final Long bandwidthBurst,
                                   @JsonProperty("concurrentConnections") final Integer concurrentConnections,
+                                  @JsonProperty("adaptiveConcurrency") final boolean adaptiveConcurrency,
+                                  @JsonProperty("transferAttempts") final Integer transferAttempts,
+                                  @JsonProperty("multipartThreshold") final Long multipartThreshold,
+                                  @JsonProperty("partSize") final Long partSize,
+                                  @JsonProperty("partConcurrency") final Integer partConcurrency,
+                                  @JsonProperty("gcpWriteChunkSize") final Long gcpWriteChunkSize,
+                                  @JsonProperty("gcpCompositeThreshold") final Long gcpCompositeThreshold,
+                                  @JsonProperty("gcpCompositeSliceSize") final Long gcpCompositeSliceSize,
                                   @JsonProperty("waitForLock") final boolean waitForLock,
                                   @JsonProperty("lockFile") final Path lockFile,
+                                  @JsonProperty("metricsFile") final Path metricsFile,
+                                  @JsonProperty("skipFreshen") final boolean skipFreshen,
+                                  @JsonProperty("compress") final boolean compress,
                                   @JsonProperty("sharedContainerPath") final Path sharedContainerPath,
                                   @JsonProperty("cassandraDirectory") final Path cassandraDirectory,
                                   @JsonProperty("keyspaces") final List<String> keyspaces,
                                   @JsonProperty("snapshotTag") final String snapshotTag,
                                   @JsonProperty("offlineSnapshot") final boolean offlineSnapshot,
                                   @JsonProperty("table") final String table,
+                                  @JsonProperty("packThreshold") final Long packThreshold,
                                   @JsonProperty("k8sNamespace") final String k8sNamespace,
                                   @JsonProperty("k8sSecretName") final String k8sSecretName) {
-        super(storageLocation, duration, bandwidth, concurrentConnections, waitForLock, sharedContainerPath, cassandraDirectory, lockFile, k8sNamespace, k8sSecretName);
+        super(storageLocation, duration, bandwidth, bandwidthBurst, concurrentConnections, adaptiveConcurrency, transferAttempts, multipartThreshold, partSize, partConcurrency, gcpWriteChunkSize, gcpCompositeThreshold, gcpCompositeSliceSize, waitForLock, sharedContainerPath, cassandraDirectory, lockFile, metricsFile, skipFreshen, compress, k8sNamespace, k8sSecretName);
         this.keyspaces = keyspaces == null ? ImmutableList.of() : keyspaces;
         this.snapshotTag = snapshotTag == null ? format("autosnap-%d", MILLISECONDS.toSeconds(currentTimeMillis())) : snapshotTag;
         this.offlineSnapshot = offlineSnapshot;
         this.table = table;
+        this.packThreshold = packThreshold;
     }
 
     @Override
@@ -67,15 +88,28 @@ public class BackupOperationRequest extends BaseBackupOperationRequest {
                 .add("storageLocation", storageLocation)
                 .add("duration", duration)
                 .add("bandwidth", bandwidth)
+                .add("bandwidthBurst", bandwidthBurst)
                 .add("concurrentConnections", concurrentConnections)
+                .add("adaptiveConcurrency", adaptiveConcurrency)
+                .add("transferAttempts", transferAttempts)
+                .add("multipartThreshold", multipartThreshold)
+                .add("partSize", partSize)
+                .add("partConcurrency", partConcurrency)
+                .add("gcpWriteChunkSize", gcpWriteChunkSize)
+                .add("gcpCompositeThreshold", gcpCompositeThreshold)
+                .add("gcpCompositeSliceSize", gcpCompositeSliceSize)
                 .add("waitForLock", waitForLock)
                 .add("lockFile", lockFile)
+                .add("metricsFile", metricsFile)
+                .add("skipFreshen", skipFreshen)
+                .add("compress", compress)
                 .add("sharedContainerPath", sharedContainerPath)
                 .add("cassandraDirectory", cassandraDirectory)
                 .add("keyspaces", keyspaces)
                 .add("snapshotTag", snapshotTag)
                 .add("offlineSnapshot", offlineSnapshot)
                 .add("table", table)
+                .add("packThreshold", packThreshold)
                 .add("k8sNamespace", k8sNamespace)
                 .add("k8sSecretName", k8sBackupSecretName)
                 .toString();
@@ -1,27 +1,49 @@
 package com.instaclustr.cassandra.backup.impl.backup;
 
+import static com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType.FRESHEN;
+import static com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType.LIST;
+import static com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType.UPLOAD;
 import static java.nio.file.StandardOpenOption.READ;
-import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.CountDownLatch;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.RateLimiter;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimitedInputStream;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimiter;
+import com.instaclustr.cassandra.backup.impl.ComponentBundle;
+import com.instaclustr.cassandra.backup.impl.ConcurrencyLimiter;
+import com.instaclustr.cassandra.backup.impl.FileChannelRegionInputStream;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry.Type;
 import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.cassandra.backup.impl.ProgressTrackingInputStream;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+import com.instaclustr.cassandra.backup.impl.RetryPolicy;
 import com.instaclustr.cassandra.backup.impl.StorageInteractor;
-import com.instaclustr.io.RateLimitedInputStream;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
+import com.instaclustr.cassandra.backup.impl.TransferPipeline;
+import com.instaclustr.cassandra.backup.impl.metrics.PrometheusTextfileWriter;
+import com.instaclustr.cassandra.backup.impl.metrics.TransferMetrics;
 import com.instaclustr.io.SeekableByteChannelInputStream;
 import com.instaclustr.measure.DataRate;
 import com.instaclustr.measure.DataSize;
@@ -33,14 +55,28 @@ public abstract class Backuper extends StorageInteractor {
 
     private static final Logger logger = LoggerFactory.getLogger(Backuper.class);
 
+    private static final int QUEUED_UPLOADS_PER_CONNECTION = 2;
+
+    // files compressed before their upload, relative to the shared container path
+    private static final String SPOOL_DIRECTORY = "tmp/cassandra-operator/compressed";
+
     protected final BaseBackupOperationRequest request;
     private final ExecutorServiceSupplier executorServiceSupplier;
+    private final ExecutorService partExecutorService;
+
+    // null if metrics are not written to a file
+    private final PrometheusTextfileWriter metricsFileWriter;
+
+    // shared by all uploads of this backuper, created by the first upload as --duration derives the bandwidth from the size of files
+    private BandwidthLimiter bandwidthLimiter;
 
     protected Backuper(final BaseBackupOperationRequest request,
                        final ExecutorServiceSupplier executorServiceSupplier) {
         super(request.storageLocation);
         this.request = request;
         this.executorServiceSupplier = executorServiceSupplier;
+        this.partExecutorService = executorServiceSupplier.get(request.concurrentConnections * request.partConcurrency);
+        this.metricsFileWriter = request.metricsFile == null ? null : new PrometheusTextfileWriter(TransferMetrics.getInstance(), request.metricsFile);
     }
 
     public enum FreshenResult {
@@ -55,8 +91,190 @@ public abstract class Backuper extends StorageInteractor {
                                     final RemoteObjectReference object,
                                     final OperationProgressTracker operationProgressTracker) throws Exception;
 
-    public void uploadOrFreshenFiles(final Collection<ManifestEntry> manifest,
+    /**
+     * Uploads a local file of a manifest entry. By default, the file is streamed through
+     * {@link #uploadFile(long, InputStream, RemoteObjectReference, OperationProgressTracker)}; storages
+     * which are able to upload parts of a file in parallel override this.
+     */
+    protected void uploadFile(final ManifestEntry manifestEntry,
+                              final RemoteObjectReference object,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        try (final InputStream s = new SeekableByteChannelInputStream(FileChannel.open(manifestEntry.localFile, READ))) {
+            uploadFile(manifestEntry.size, uploadingInputStream(s, operationProgressTracker), object, operationProgressTracker);
+        }
+    }
+
+    /**
+     * Uploads small components of an SSTable packed into a single object, streamed from their local files.
+     */
+    private void uploadBundle(final ManifestEntry bundle,
+                              final RemoteObjectReference object,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        try (final InputStream s = ComponentBundle.open(bundle.components)) {
+            uploadFile(bundle.size, uploadingInputStream(s, operationProgressTracker), object, operationProgressTracker);
+        }
+    }
+
+    /**
+     * Uploads a file compressed once to a spool file, which is uploaded as any other file, in parts if it is large
+     * enough. The spool file keeps the modification time of the file so an interrupted multipart upload of it is
+     * resumed. Bandwidth and progress are counted in compressed bytes, those which are sent over the wire.
+     */
+    private void uploadCompressedFile(final ManifestEntry manifestEntry,
+                                      final RemoteObjectReference object,
+                                      final OperationProgressTracker operationProgressTracker) throws Exception {
+        final Path spoolDirectory = Files.createDirectories(request.sharedContainerPath.resolve(SPOOL_DIRECTORY));
+        final Path spoolFile = Files.createTempFile(spoolDirectory, manifestEntry.localFile.getFileName().toString(), StreamCompression.Codec.of(manifestEntry.objectKey).suffix);
+
+        try {
+            final long compressedSize = StreamCompression.compress(manifestEntry.localFile, spoolFile);
+
+            Files.setLastModifiedTime(spoolFile, Files.getLastModifiedTime(manifestEntry.localFile));
+
+            logger.debug("File \"{}\" is compressed from {} to {}.",
+                         manifestEntry.objectKey,
+                         DataSize.bytesToHumanReadable(manifestEntry.size),
+                         DataSize.bytesToHumanReadable(compressedSize));
+
+            operationProgressTracker.addBytesToComplete(compressedSize - manifestEntry.size);
+
+            uploadFile(new ManifestEntry(manifestEntry.objectKey, spoolFile, manifestEntry.type, compressedSize), object, operationProgressTracker);
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    /**
+     * @return stream limited by the bandwidth limiter shared by all uploads of this backuper, if any,
+     * which reports bytes read from it to the progress tracker of the upload
+     */
+    protected InputStream uploadingInputStream(final InputStream inputStream, final OperationProgressTracker operationProgressTracker) {
+        final BandwidthLimiter bandwidthLimiter = getBandwidthLimiter();
+
+        return new ProgressTrackingInputStream(bandwidthLimiter == null ? inputStream : new BandwidthLimitedInputStream(inputStream, bandwidthLimiter),
+                                               operationProgressTracker,
+                                               metrics);
+    }
+
+    /**
+     * Upload of one part of a file.
+     *
+     * @param <T> result of a part upload needed to finish the upload of the file, e.g. ETag or block id
+     */
+    @FunctionalInterface
+    protected interface PartUpload<T> {
+
+        /**
+         * @param partNumber number of part, starting with 1
+         * @param partStream stream of the part, see {@link #uploadingInputStream(InputStream, OperationProgressTracker)}, supporting mark and reset
+         * @param length     length of the part
+         */
+        T upload(final int partNumber, final InputStream partStream, final long length) throws Exception;
+    }
+
+    /**
+     * Uploads parts of a file, read by positional reads of {@code fileChannel}, concurrently. At most --part-concurrency
+     * parts of a file are uploaded at once. The first failed part stops the upload of the remaining parts.
+     *
+     * @param uploadedParts            results of parts already uploaded before, by part number, these are not uploaded again
+     * @param operationProgressTracker tracker the bytes of parts already uploaded are reported to
+     * @return results of all parts, ordered by part number
+     */
+    protected <T> List<T> uploadParts(final FileChannel fileChannel,
+                                      final long size,
+                                      final long partSize,
+                                      final Map<Integer, T> uploadedParts,
+                                      final OperationProgressTracker operationProgressTracker,
+                                      final PartUpload<T> partUpload) throws Exception {
+        final Semaphore permits = new Semaphore(request.partConcurrency);
+        final AtomicReference<Exception> partFailure = new AtomicReference<>();
+        final List<Future<T>> parts = new ArrayList<>();
+
+        try {
+            int partNumber = 1;
+
+            for (long offset = 0; offset < size && partFailure.get() == null; offset += partSize, partNumber++) {
+                if (uploadedParts.containsKey(partNumber)) {
+                    operationProgressTracker.bytesSkipped(Math.min(partSize, size - offset));
+                    parts.add(Futures.immediateFuture(uploadedParts.get(partNumber)));
+                    continue;
+                }
+
+                final int number = partNumber;
+                final long length = Math.min(partSize, size - offset);
+                final InputStream partStream = uploadingInputStream(new FileChannelRegionInputStream(fileChannel, offset, length), operationProgressTracker);
+
+                permits.acquire();
+
+                parts.add(partExecutorService.submit(() -> {
+                    try {
+                        return partUpload.upload(number, partStream, length);
+                    } catch (final Exception ex) {
+                        partFailure.compareAndSet(null, ex);
+                        throw ex;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            final List<T> results = new ArrayList<>();
+
+            for (final Future<T> part : parts) {
+                try {
+                    results.add(part.get());
+                } catch (final ExecutionException ex) {
+                    throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+                }
+            }
+
+            return results;
+        } finally {
+            // stops parts of a failed or interrupted upload, no-op otherwise
+            parts.forEach(part -> part.cancel(true));
+        }
+    }
+
+    /**
+     * @return number of parts of given size a file of given size is split into
+     */
+    protected static long numberOfParts(final long size, final long partSize) {
+        return (size + partSize - 1) / partSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            partExecutorService.shutdownNow();
+
+            if (metricsFileWriter != null) {
+                metricsFileWriter.close();
+            }
+        }
+    }
+
+    /**
+     * Streams object keys, relative to the node prefix (cluster/dc/node), of all objects already stored remotely for this node.
+     *
+     * @param consumer consumer of object keys, e.g. "data/ks/tb/1-1234/mc-1-big-Data.db"
+     */
+    public abstract void consumeRemoteObjectKeys(final Consumer<Path> consumer) throws Exception;
+
+    /**
+     * Produces manifest entries into a sink, possibly from multiple threads at once.
+     */
+    @FunctionalInterface
+    public interface ManifestEntryProducer {
+
+        void produce(final Consumer<ManifestEntry> sink) throws Exception;
+    }
+
+    public void uploadOrFreshenFiles(final Collection<ManifestEntry> entries,
                                      final OperationProgressTracker operationProgressTracker) throws Exception {
+        final Collection<ManifestEntry> manifest = request.skipFreshen ? filterUploadedEntries(entries) : entries;
+
         if (manifest.isEmpty()) {
             operationProgressTracker.complete();
             logger.info("0 files to upload.");
@@ -67,76 +285,194 @@ public abstract class Backuper extends StorageInteractor {
 
         computeBPS(request, filesSizeSum);
 
-        logger.info("{} files to upload. Total size {}.", manifest.size(), DataSize.bytesToHumanReadable(filesSizeSum));
+        operationProgressTracker.addEventsToComplete(manifest.size());
+        operationProgressTracker.addBytesToComplete(filesSizeSum);
 
-        final CountDownLatch completionLatch = new CountDownLatch(manifest.size() - 1); // latch to prevent the manifest from being uploaded until the very end
+        logger.info("{} files to upload. Total size {}.", manifest.size(), DataSize.bytesToHumanReadable(filesSizeSum));
 
-        final ExecutorService executorService = executorServiceSupplier.get(request.concurrentConnections);
+        upload(sink -> manifest.forEach(sink), entry -> false, operationProgressTracker);
+    }
 
-        final Iterable<Future<?>> uploadResults = manifest.stream().map((manifestEntry) -> {
-            try {
-                return executorService.submit(() -> {
-                    try (final InputStream s = new SeekableByteChannelInputStream(FileChannel.open(manifestEntry.localFile, READ))) {
+    /**
+     * Uploads entries while they are still being produced. Entries wait for an upload in a bounded queue, so the producer
+     * is blocked if it is faster than uploads. Manifest files are uploaded last, once all other entries are uploaded.
+     */
+    public void uploadOrFreshenFiles(final ManifestEntryProducer producer,
+                                     final OperationProgressTracker operationProgressTracker) throws Exception {
+        if (request.duration != null) {
+            // bandwidth is derived from the total size of files so all of them have to be known before the upload
+            final List<ManifestEntry> manifest = Collections.synchronizedList(new ArrayList<>());
 
-                        if (manifestEntry.type == ManifestEntry.Type.MANIFEST_FILE) {
-                            completionLatch.await();
-                        }
+            producer.produce(manifest::add);
 
-                        final RemoteObjectReference remoteObjectReference = objectKeyToRemoteReference(manifestEntry.objectKey);
+            uploadOrFreshenFiles(manifest, operationProgressTracker);
 
-                        try {
-                            if (manifestEntry.type != Type.MANIFEST_FILE && freshenRemoteObject(remoteObjectReference) == Backuper.FreshenResult.FRESHENED) {
-                                logger.debug("Skipping the upload of already uploaded file {}", remoteObjectReference.canonicalPath);
-                                return null; // file is fresh, skip upload
-                            }
+            return;
+        }
 
-                        } catch (final InterruptedException e) {
-                            throw e;
-                        } catch (final Exception e) {
-                            logger.warn("Failed to freshen file \"{}\".", manifestEntry.objectKey, e);
-                        }
+        final Set<Path> remoteObjectKeys = request.skipFreshen ? listRemoteObjectKeys() : Collections.emptySet();
 
-                        final InputStream rateLimitedStream = getUploadingInputStreamFunction().apply(s);
+        upload(sink -> producer.produce(entry -> {
+            operationProgressTracker.addEventsToComplete(1);
+            operationProgressTracker.addBytesToComplete(entry.size);
+            sink.accept(entry);
+        }), entry -> entry.type != Type.MANIFEST_FILE && remoteObjectKeys.contains(entry.objectKey), operationProgressTracker);
+    }
 
-                        logger.info("Uploading file \"{}\" ({}). {} files to go.",
-                                    manifestEntry.objectKey,
-                                    DataSize.bytesToHumanReadable(manifestEntry.size),
-                                    completionLatch.getCount());
+    private void upload(final ManifestEntryProducer producer,
+                        final Predicate<ManifestEntry> isUploaded,
+                        final OperationProgressTracker operationProgressTracker) throws Exception {
+        final List<ManifestEntry> manifestFiles = Collections.synchronizedList(new ArrayList<>()); // to be uploaded at the very end
 
-                        uploadFile(manifestEntry.size, rateLimitedStream, remoteObjectReference, operationProgressTracker);
+        // with an adaptive limit, concurrent connections are the upper bound of concurrent uploads of small and of large files
+        final ConcurrencyLimiter concurrencyLimiter = request.adaptiveConcurrency ? ConcurrencyLimiter.forStorage(request.concurrentConnections, metrics) : null;
 
-                        return null;
-                    } catch (final Throwable t) {
-                        logger.error("Failed to upload file \"{}\".", manifestEntry.objectKey, t);
+        final ExecutorService executorService = executorServiceSupplier.get(TransferPipeline.threads(request.concurrentConnections, concurrencyLimiter));
 
-                        executorService.shutdownNow(); // prevent new tasks or other tasks from running
+        // files waiting for an upload, those left by a failed upload are removed from the queue depth at the end
+        final AtomicInteger queued = new AtomicInteger();
 
-                        throw t;
-                    } finally {
-                        completionLatch.countDown();
+        try (final TransferPipeline<ManifestEntry> pipeline = uploadPipeline(executorService, concurrencyLimiter, queued, operationProgressTracker)) {
+            try {
+                producer.produce(entry -> {
+                    if (entry.type == Type.MANIFEST_FILE) {
+                        manifestFiles.add(entry);
+                    } else if (isUploaded.test(entry)) {
+                        logger.debug("Skipping the upload of already uploaded file {}", entry.objectKey);
+                        operationProgressTracker.bytesSkipped(entry.size);
+                        operationProgressTracker.update();
+                    } else {
+                        queued.incrementAndGet();
+                        metrics.queued(1);
+                        pipeline.submit(entry);
                     }
                 });
-
-            } catch (final RejectedExecutionException e) {
-                return Futures.immediateFailedFuture(e);
+            } catch (final Exception ex) {
+                // failure of an upload fails the producer as well, report the upload failure in that case
+                pipeline.abort(ex);
             }
-        }).collect(toList());
 
-        // wait for downloads to finish
-        executorService.shutdown();
+            pipeline.finish();
+
+            // workers of the finished pipeline are done, manifest files are uploaded by workers of their own once all files they list are uploaded
+            try (final TransferPipeline<ManifestEntry> manifestPipeline = uploadPipeline(executorService, concurrencyLimiter, queued, operationProgressTracker)) {
+                for (final ManifestEntry manifestFile : manifestFiles) {
+                    queued.incrementAndGet();
+                    metrics.queued(1);
+                    manifestPipeline.submit(manifestFile);
+                }
 
-        while (true) {
-            if (executorService.awaitTermination(1, TimeUnit.MINUTES)) {
-                break;
+                manifestPipeline.finish();
             }
+        } finally {
+            if (concurrencyLimiter != null) {
+                logger.info("Adaptive concurrency of uploads: {}", concurrencyLimiter);
+            }
+
+            executorService.shutdownNow();
+            metrics.queued(-queued.getAndSet(0));
         }
+    }
+
+    private TransferPipeline<ManifestEntry> uploadPipeline(final ExecutorService executorService,
+                                                           final ConcurrencyLimiter concurrencyLimiter,
+                                                           final AtomicInteger queued,
+                                                           final OperationProgressTracker operationProgressTracker) {
+        return new TransferPipeline<>(executorService,
+                                      request.concurrentConnections,
+                                      request.concurrentConnections * QUEUED_UPLOADS_PER_CONNECTION,
+                                      concurrencyLimiter,
+                                      entry -> entry.size,
+                                      new RetryPolicy(request.transferAttempts, this::isRetryable),
+                                      entry -> {
+                                          queued.decrementAndGet();
+                                          metrics.queued(-1);
+
+                                          try {
+                                              uploadOrFreshenFile(entry, operationProgressTracker);
+                                          } catch (final Exception ex) {
+                                              // waiting for a retry, if any
+                                              queued.incrementAndGet();
+                                              metrics.queued(1);
+                                              throw ex;
+                                          }
+                                      });
+    }
 
-        // rethrow any exception caused by a download task so we exit with failure
-        for (final Future<?> result : uploadResults) {
-            result.get();
+    /**
+     * Bytes and events an attempt has reported are taken back if it fails, the next attempt reports them again.
+     */
+    private void uploadOrFreshenFile(final ManifestEntry manifestEntry,
+                                     final OperationProgressTracker tracker) throws Exception {
+        final OperationProgressTracker.Attempt operationProgressTracker = tracker.attempt();
+
+        try {
+            final RemoteObjectReference remoteObjectReference = objectKeyToRemoteReference(manifestEntry.objectKey);
+
+            try {
+                if (!request.skipFreshen && manifestEntry.type != Type.MANIFEST_FILE && timed(FRESHEN, () -> freshenRemoteObject(remoteObjectReference)) == Backuper.FreshenResult.FRESHENED) {
+                    logger.debug("Skipping the upload of already uploaded file {}", remoteObjectReference.canonicalPath);
+                    operationProgressTracker.bytesSkipped(manifestEntry.size);
+                    operationProgressTracker.update();
+                    return; // file is fresh, skip upload
+                }
+
+            } catch (final InterruptedException e) {
+                throw e;
+            } catch (final Exception e) {
+                logger.warn("Failed to freshen file \"{}\".", manifestEntry.objectKey, e);
+            }
+
+            logger.info("Uploading file \"{}\" ({}).", manifestEntry.objectKey, DataSize.bytesToHumanReadable(manifestEntry.size));
+
+            timed(UPLOAD, () -> {
+                if (manifestEntry.type == Type.BUNDLE) {
+                    uploadBundle(manifestEntry, remoteObjectReference, operationProgressTracker);
+                } else if (StreamCompression.Codec.of(manifestEntry.objectKey) != StreamCompression.Codec.NONE) {
+                    uploadCompressedFile(manifestEntry, remoteObjectReference, operationProgressTracker);
+                } else {
+                    uploadFile(manifestEntry, remoteObjectReference, operationProgressTracker);
+                }
+                return null;
+            });
+        } catch (final Throwable t) {
+            logger.error("Failed to upload file \"{}\".", manifestEntry.objectKey, t);
+
+            operationProgressTracker.rollback();
+
+            throw t;
         }
     }
 
+    private Set<Path> listRemoteObjectKeys() throws Exception {
+        final Set<Path> remoteObjectKeys = new HashSet<>();
+
+        timed(LIST, () -> {
+            consumeRemoteObjectKeys(remoteObjectKeys::add);
+            return null;
+        });
+
+        logger.info("{} remote objects listed.", remoteObjectKeys.size());
+
+        return remoteObjectKeys;
+    }
+
+    /**
+     * Lists the node prefix once and drops entries which are already uploaded, instead of freshening them one by one.
+     * Manifest files are always uploaded.
+     */
+    private Collection<ManifestEntry> filterUploadedEntries(final Collection<ManifestEntry> manifest) throws Exception {
+        final Set<Path> remoteObjectKeys = listRemoteObjectKeys();
+
+        final List<ManifestEntry> entriesToUpload = manifest.stream()
+            .filter(entry -> entry.type == Type.MANIFEST_FILE || !remoteObjectKeys.contains(entry.objectKey))
+            .collect(toList());
+
+        logger.info("{} files of {} are already uploaded and will be skipped.", manifest.size() - entriesToUpload.size(), manifest.size());
+
+        return entriesToUpload;
+    }
+
     private long getFilesSizeSum(final Collection<ManifestEntry> manifestEntries) {
         return manifestEntries.stream().map(e -> e.size).reduce(0L, Long::sum);
     }
@@ -154,11 +490,22 @@ public abstract class Backuper extends StorageInteractor {
         }
     }
 
-    private Function<InputStream, InputStream> getUploadingInputStreamFunction() {
-        return request.bandwidth == null ? identity() : inputStream -> {
-            final RateLimiter rateLimiter = RateLimiter.create(request.bandwidth.asBytesPerSecond().value);
-            logger.info("Upload bandwidth capped at {}.", request.bandwidth);
-            return new RateLimitedInputStream(inputStream, rateLimiter);
-        };
+    /**
+     * Limiter is created once per backuper, i.e. per operation, and shared by all its uploads, manifest files
+     * included, so the bandwidth caps the total upload throughput, not the throughput of each concurrent upload
+     * or of each batch of uploads.
+     *
+     * @return null if uploads are not limited
+     */
+    private synchronized BandwidthLimiter getBandwidthLimiter() {
+        if (bandwidthLimiter == null && request.bandwidth != null) {
+            bandwidthLimiter = new BandwidthLimiter(request.bandwidth.asBytesPerSecond().value, request.bandwidthBurst);
+
+            logger.info("Upload bandwidth capped at {} in total, burst {}.",
+                        request.bandwidth,
+                        DataSize.bytesToHumanReadable(bandwidthLimiter.getBurstBytes()));
+        }
+
+        return bandwidthLimiter;
     }
 }
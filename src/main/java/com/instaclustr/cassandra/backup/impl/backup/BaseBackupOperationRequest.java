@@ -1,11 +1,13 @@
 package com.instaclustr.cassandra.backup.impl.backup;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.instaclustr.cassandra.backup.impl.DataSizeTypeConverter;
 import com.instaclustr.cassandra.backup.impl.KubernetesAwareRequest;
 import com.instaclustr.cassandra.backup.impl.StorageLocation;
 import com.instaclustr.cassandra.backup.impl.StorageLocation.StorageLocationDeserializer;
@@ -24,6 +26,10 @@ import picocli.CommandLine.Option;
 
 public class BaseBackupOperationRequest extends OperationRequest implements KubernetesAwareRequest {
 
+    public static final long DEFAULT_MULTIPART_THRESHOLD = 64L * 1024 * 1024;
+    public static final long DEFAULT_PART_SIZE = 64L * 1024 * 1024;
+    public static final long DEFAULT_GCP_COMPOSITE_SLICE_SIZE = 64L * 1024 * 1024;
+
     @Option(names = {"--sl", "--storage-location"},
             converter = StorageLocationTypeConverter.class,
             description = "Location to which files will be backed up, in form " +
@@ -64,15 +70,96 @@ public class BaseBackupOperationRequest extends OperationRequest implements Kube
             converter = DataRateMeasureTypeConverter.class)
     public DataRate bandwidth;
 
+    @Option(names = {"--bandwidth-burst"},
+            description = "Number of bytes uploads may send at once before --bandwidth is enforced, e.g. 16MB. " +
+                    "The limit is shared by all concurrent uploads. Default is one second worth of bandwidth.",
+            converter = DataSizeTypeConverter.class)
+    public Long bandwidthBurst;
+
     @Option(names = {"--cc", "--concurrent-connections"},
             description = "Number of files (or file parts) to upload concurrently. Higher values will increase throughput. Default is 10.",
             defaultValue = "10")
     public Integer concurrentConnections;
 
+    @Option(names = {"--adaptive-concurrency"},
+            description = "Adapt the number of concurrent uploads to throughput and throttling of the storage, separately for small and large files. " +
+                    "--concurrent-connections is then the upper bound of each, so set it higher than usual, e.g. 64.")
+    public boolean adaptiveConcurrency;
+
+    @Option(names = {"--transfer-attempts"},
+            description = "Number of attempts to upload a file before the operation fails. Failures a storage may recover from, " +
+                    "e.g. throttling or a broken connection, are retried after a growing, randomised delay. Default is 3.",
+            defaultValue = "3")
+    @Min(value = 1, message = "--transfer-attempts has to be greater than 0")
+    public Integer transferAttempts = 3;
+
+    @Option(names = {"--multipart-threshold"},
+            description = "Files of this size or bigger are uploaded in parts, in parallel, to S3 and Azure, e.g. 128MB. " +
+                    "Google Cloud Storage has --gcp-composite-threshold instead. Default is 64MB.",
+            converter = DataSizeTypeConverter.class,
+            defaultValue = "64MB")
+    @Min(value = 1, message = "--multipart-threshold has to be greater than 0")
+    public Long multipartThreshold;
+
+    @Option(names = {"--part-size"},
+            description = "Size of a part of a file uploaded in parts, e.g. 16MB. It is increased when a storage limits the number of parts. Default is 64MB.",
+            converter = DataSizeTypeConverter.class,
+            defaultValue = "64MB")
+    @Min(value = 1, message = "--part-size has to be greater than 0")
+    public Long partSize;
+
+    @Option(names = {"--part-concurrency"},
+            description = "Number of parts of one file to upload concurrently. Default is 4.",
+            defaultValue = "4")
+    @Min(value = 1, message = "--part-concurrency has to be greater than 0")
+    public Integer partConcurrency;
+
+    @Option(names = {"--gcp-write-chunk-size"},
+            description = "Google Cloud Storage only: size of chunks files are written in, e.g. 16MB. It is rounded to a multiple of 256KB. " +
+                    "Bigger chunks mean less requests per file. Default is the default of the client library.",
+            converter = DataSizeTypeConverter.class)
+    public Long gcpWriteChunkSize;
+
+    @Option(names = {"--gcp-composite-threshold"},
+            description = "Google Cloud Storage only: files of this size or bigger are uploaded as parallel composite uploads, e.g. 256MB. " +
+                    "Slices of a file are uploaded concurrently as temporary objects, composed into the file and deleted. " +
+                    "Deleted slices are billed for the minimum storage duration of Nearline, Coldline and Archive buckets, " +
+                    "so use it with Standard buckets only. Composite uploads are not used by default.",
+            converter = DataSizeTypeConverter.class)
+    @Min(value = 1, message = "--gcp-composite-threshold has to be greater than 0")
+    public Long gcpCompositeThreshold;
+
+    @Option(names = {"--gcp-composite-slice-size"},
+            description = "Google Cloud Storage only: size of a slice of a composite upload, e.g. 32MB. " +
+                    "It is increased when a file would have more than 32 slices. Default is 64MB.",
+            converter = DataSizeTypeConverter.class,
+            defaultValue = "64MB")
+    @Min(value = 1, message = "--gcp-composite-slice-size has to be greater than 0")
+    public Long gcpCompositeSliceSize;
+
+    @Option(names = {"--skip-freshen"},
+            description = "Do not freshen (touch) already uploaded files. The remote node prefix is listed once and only files " +
+                    "missing there are uploaded. Retention of uploaded files is then driven by manifests referencing them, " +
+                    "not by their last modification time, so age based lifecycle rules must not be set on the bucket.")
+    public boolean skipFreshen;
+
+    @Option(names = {"--compress"},
+            description = "Compress files which compress well before they are uploaded, e.g. index and summary components of SSTables " +
+                    "or commit logs. Data of compressed tables is uploaded as it is, compressibility of other files is tested on a sample. " +
+                    "A file is compressed to a copy under <shared-path>/tmp/cassandra-operator/compressed which is removed once it is uploaded, " +
+                    "so there has to be free disk space for compressed copies of all files uploaded at once. " +
+                    "Compressed files are restored by any restore, regardless of this option.")
+    public boolean compress;
+
     @Option(names = {"--lock-file"},
             description = "Directory which will be used for locking purposes for backups")
     public Path lockFile;
 
+    @Option(names = {"--metrics-file"},
+            description = "File metrics of transfers are written to in Prometheus text format, periodically and once the operation is done, " +
+                    "e.g. /var/lib/node_exporter/textfile/cassandra_backup.prom to be collected by node_exporter. Not written by default.")
+    public Path metricsFile;
+
     @Option(names = {"-w", "--waitForLock"},
             description = "Wait to acquire the global transfer lock (which prevents more than one backup or restore from running).")
     public Boolean waitForLock = true;
@@ -93,21 +180,45 @@ public class BaseBackupOperationRequest extends OperationRequest implements Kube
     public BaseBackupOperationRequest(final StorageLocation storageLocation,
                                       final Time duration,
                                       final DataRate bandwidth,
+                                      final Long bandwidthBurst,
                                       final Integer concurrentConnections,
+                                      final boolean adaptiveConcurrency,
+                                      final Integer transferAttempts,
+                                      final Long multipartThreshold,
+                                      final Long partSize,
+                                      final Integer partConcurrency,
+                                      final Long gcpWriteChunkSize,
+                                      final Long gcpCompositeThreshold,
+                                      final Long gcpCompositeSliceSize,
                                       final boolean waitForLock,
                                       final Path cassandraDirectory,
                                       final Path sharedContainerPath,
                                       final Path lockFile,
+                                      final Path metricsFile,
+                                      final boolean skipFreshen,
+                                      final boolean compress,
                                       final String k8sNamespace,
                                       final String k8sBackupSecretName) {
         this.storageLocation = storageLocation;
         this.duration = duration;
         this.bandwidth = bandwidth;
+        this.bandwidthBurst = bandwidthBurst;
         this.sharedContainerPath = sharedContainerPath == null ? Paths.get("/") : sharedContainerPath;
         this.cassandraDirectory = cassandraDirectory == null ? Paths.get("/var/lib/cassandra") : cassandraDirectory;
         this.concurrentConnections = concurrentConnections == null ? 10 : concurrentConnections;
+        this.adaptiveConcurrency = adaptiveConcurrency;
+        this.transferAttempts = transferAttempts == null ? 3 : transferAttempts;
+        this.multipartThreshold = multipartThreshold == null ? DEFAULT_MULTIPART_THRESHOLD : multipartThreshold;
+        this.partSize = partSize == null ? DEFAULT_PART_SIZE : partSize;
+        this.partConcurrency = partConcurrency == null ? 4 : partConcurrency;
+        this.gcpWriteChunkSize = gcpWriteChunkSize;
+        this.gcpCompositeThreshold = gcpCompositeThreshold;
+        this.gcpCompositeSliceSize = gcpCompositeSliceSize == null ? DEFAULT_GCP_COMPOSITE_SLICE_SIZE : gcpCompositeSliceSize;
         this.waitForLock = waitForLock;
         this.lockFile = lockFile;
+        this.metricsFile = metricsFile;
+        this.skipFreshen = skipFreshen;
+        this.compress = compress;
         this.k8sNamespace = k8sNamespace;
         this.k8sBackupSecretName = k8sBackupSecretName;
     }
@@ -0,0 +1,143 @@
+package com.instaclustr.cassandra.backup.impl.backup;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.SSTableUtils;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates manifest entries of SSTables Cassandra has linked into directories of incremental backups
+ * (incremental_backups: true), /data/keyspace/table/backups and /data/keyspace/table/backups/.index.
+ * <p>
+ * Object keys are the same as those of a snapshot, so an SSTable uploaded by a snapshot is not uploaded again
+ * and the other way around. SSTables whose components are still being linked are left for the next run.
+ */
+public class IncrementalManifestGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalManifestGenerator.class);
+
+    private static final String BACKUPS = "backups";
+
+    private final Path cassandraDataDirectory;
+    private final List<String> keyspaces;
+    private final String table;
+    private final Long packThreshold;
+    private final boolean compress;
+
+    /**
+     * @param cassandraDataDirectory /var/lib/cassandra/data
+     * @param keyspaces              keyspaces to generate manifest for, all of them if empty
+     * @param table                  table of the single keyspace to generate manifest for, all of them if null
+     * @param packThreshold          size in bytes components of SSTables are packed into bundles below, if null, nothing is packed
+     * @param compress               if true, object keys of files worth compressing get the suffix of their codec
+     */
+    public IncrementalManifestGenerator(final Path cassandraDataDirectory,
+                                        final List<String> keyspaces,
+                                        final String table,
+                                        final Long packThreshold,
+                                        final boolean compress) {
+        this.cassandraDataDirectory = cassandraDataDirectory;
+        this.keyspaces = keyspaces == null ? Collections.emptyList() : keyspaces;
+        this.table = table;
+        this.packThreshold = packThreshold;
+        this.compress = compress;
+    }
+
+    public List<ManifestEntry> generate() throws IOException {
+        final List<ManifestEntry> manifest = new ArrayList<>();
+
+        if (!Files.isDirectory(cassandraDataDirectory)) {
+            return manifest;
+        }
+
+        for (final Path keyspaceDirectory : directories(cassandraDataDirectory)) {
+            final String keyspace = keyspaceDirectory.getFileName().toString();
+
+            if (!keyspaces.isEmpty() && !keyspaces.contains(keyspace)) {
+                continue;
+            }
+
+            for (final Path tableDirectory : directories(keyspaceDirectory)) {
+                final String tableDirectoryName = tableDirectory.getFileName().toString();
+
+                // table directories of Cassandra 2.2 and newer are suffixed with table id
+                if (table != null && !tableDirectoryName.equals(table) && !tableDirectoryName.startsWith(table + "-")) {
+                    continue;
+                }
+
+                final Path bucketKey = Paths.get("data").resolve(Paths.get(keyspace, tableDirectoryName));
+
+                // backups of secondary indexes are in /backups/.index, listed with those of their table
+                manifest.addAll(backupsManifest(tableDirectory.resolve(BACKUPS), bucketKey));
+            }
+        }
+
+        return manifest;
+    }
+
+    private List<ManifestEntry> backupsManifest(final Path backupsDirectory, final Path bucketKey) throws IOException {
+        if (!Files.isDirectory(backupsDirectory)) {
+            return Collections.emptyList();
+        }
+
+        // the filter is called for each component, an SSTable is checked once
+        final Map<Path, Boolean> isComplete = new HashMap<>();
+        final List<ManifestEntry> entries;
+
+        try (final Stream<ManifestEntry> backupsEntries = SSTableUtils.ssTableManifest(backupsDirectory,
+                                                                                       bucketKey,
+                                                                                       packThreshold,
+                                                                                       descriptor -> isComplete.computeIfAbsent(descriptor, this::isComplete))) {
+            entries = backupsEntries.collect(toList());
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        if (compress) {
+            for (int i = 0; i < entries.size(); i++) {
+                entries.set(i, StreamCompression.compressed(entries.get(i)));
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            logger.debug("Found {} files in incremental backups {}", entries.size(), backupsDirectory);
+        }
+
+        return entries;
+    }
+
+    private boolean isComplete(final Path descriptor) {
+        try {
+            if (SSTableUtils.isComplete(descriptor)) {
+                return true;
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        logger.info("SSTable {} is not complete yet, it is left for the next incremental backup.", descriptor);
+
+        return false;
+    }
+
+    private static List<Path> directories(final Path directory) throws IOException {
+        try (final Stream<Path> children = Files.list(directory)) {
+            return children.filter(Files::isDirectory).sorted().collect(toList());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.instaclustr.cassandra.backup.impl.backup;
+
+import static java.lang.String.format;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.google.common.base.Joiner;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+
+/**
+ * Collects lines of a manifest file as its entries are generated and writes them on {@link #close()}.
+ * Each line holds the size and the object key of an entry, packed components are followed by the key of their bundle.
+ * Entries may be written from multiple threads at once, their lines are kept encoded and sorted by object key, so only
+ * lines are kept in memory, not entries, and a manifest of the same files is always the same.
+ */
+public class ManifestWriter implements AutoCloseable {
+
+    private final Path manifestFilePath;
+
+    // encoded lines of each entry written so far, by object key of the entry
+    private final SortedMap<String, byte[]> lines = new TreeMap<>();
+
+    private int entries;
+    private boolean dataFiles;
+
+    public ManifestWriter(final Path manifestFilePath) throws IOException {
+        this.manifestFilePath = manifestFilePath;
+
+        Files.deleteIfExists(manifestFilePath);
+
+        // TODO - clean this up! dont wait until jvm is shut down, what if this runs in sidecar?
+        manifestFilePath.toFile().deleteOnExit();
+    }
+
+    public synchronized void write(final ManifestEntry manifestEntry) {
+        final ByteArrayOutputStream entryLines = new ByteArrayOutputStream();
+
+        try (final PrintStream writer = new PrintStream(entryLines)) {
+            if (manifestEntry.type == ManifestEntry.Type.BUNDLE) {
+                // packed components are listed as any other, followed by the key of their bundle
+                for (final ManifestEntry component : manifestEntry.components) {
+                    writer.println(Joiner.on(' ').join(component.size, component.objectKey, manifestEntry.objectKey));
+                    dataFiles |= isDataFile(component);
+                }
+            } else {
+                writer.println(Joiner.on(' ').join(manifestEntry.size, manifestEntry.objectKey));
+                dataFiles |= isDataFile(manifestEntry);
+            }
+        }
+
+        lines.put(manifestEntry.objectKey.toString(), entryLines.toByteArray());
+
+        entries++;
+    }
+
+    /**
+     * @return number of entries written so far, a bundle counts as one
+     */
+    public synchronized int getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return true if any entry written so far is a Data.db component of an SSTable
+     */
+    public synchronized boolean hasDataFiles() {
+        return dataFiles;
+    }
+
+    /**
+     * @return entry of the manifest file to upload under the object key, once the writer is closed
+     */
+    public ManifestEntry manifestEntry(final Path objectKey) throws IOException {
+        return new ManifestEntry(objectKey, manifestFilePath, ManifestEntry.Type.MANIFEST_FILE);
+    }
+
+    /**
+     * Writes lines of all entries to the manifest file, ordered by object key of their entries.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try (final OutputStream manifest = new BufferedOutputStream(Files.newOutputStream(manifestFilePath))) {
+            for (final byte[] entryLines : lines.values()) {
+                manifest.write(entryLines);
+            }
+        } catch (final IOException ex) {
+            throw new IOException(format("Failed to write manifest file %s.", manifestFilePath), ex);
+        }
+
+        lines.clear();
+    }
+
+    private static boolean isDataFile(final ManifestEntry manifestEntry) {
+        return manifestEntry.localFile.toString().contains("-Data.db");
+    }
+}
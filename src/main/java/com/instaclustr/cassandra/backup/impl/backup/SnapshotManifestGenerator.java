@@ -0,0 +1,200 @@
+package com.instaclustr.cassandra.backup.impl.backup;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.SSTableUtils;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates manifest entries of all files of a snapshot.
+ * <p>
+ * Keyspace and table directories are walked in parallel in a fork-join pool, entries of a table are
+ * computed (hashing, sizes) by the task which found its snapshot directory. Resulting manifest is ordered
+ * deterministically by keyspace and table name regardless of the order tables are finished in.
+ */
+public class SnapshotManifestGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotManifestGenerator.class);
+
+    private final Path cassandraDataDirectory;
+    private final String snapshotTag;
+    private final Consumer<List<ManifestEntry>> tableManifestConsumer;
+    private final int parallelism;
+    private final Long packThreshold;
+    private final boolean compress;
+
+    private final AtomicInteger snapshotDirectories = new AtomicInteger();
+
+    /**
+     * @param cassandraDataDirectory /var/lib/cassandra/data
+     * @param snapshotTag            name of snapshot to generate manifest for
+     * @param tableManifestConsumer  called with entries of each table as soon as they are generated, possibly
+     *                               from multiple threads at once, in no particular order
+     * @param parallelism            number of threads to walk directories with
+     */
+    public SnapshotManifestGenerator(final Path cassandraDataDirectory,
+                                     final String snapshotTag,
+                                     final Consumer<List<ManifestEntry>> tableManifestConsumer,
+                                     final int parallelism) {
+        this(cassandraDataDirectory, snapshotTag, tableManifestConsumer, parallelism, null, false);
+    }
+
+    /**
+     * @param packThreshold size in bytes components of SSTables are packed into bundles below, if null, nothing is packed,
+     *                      see {@link SSTableUtils#ssTableManifest(Path, Path, Long)}
+     * @param compress      if true, object keys of files worth compressing get the suffix of their codec,
+     *                      see {@link StreamCompression#compressed(ManifestEntry)}
+     */
+    public SnapshotManifestGenerator(final Path cassandraDataDirectory,
+                                     final String snapshotTag,
+                                     final Consumer<List<ManifestEntry>> tableManifestConsumer,
+                                     final int parallelism,
+                                     final Long packThreshold,
+                                     final boolean compress) {
+        this.cassandraDataDirectory = cassandraDataDirectory;
+        this.snapshotTag = snapshotTag;
+        this.tableManifestConsumer = tableManifestConsumer;
+        this.parallelism = parallelism;
+        this.packThreshold = packThreshold;
+        this.compress = compress;
+    }
+
+    public List<ManifestEntry> generate() throws IOException {
+        return walk(true);
+    }
+
+    /**
+     * Walks the snapshot as {@link #generate()} does, but entries are only passed to the consumer of tables, so they
+     * are not kept in memory until all tables are walked.
+     */
+    public void consume() throws IOException {
+        walk(false);
+    }
+
+    private List<ManifestEntry> walk(final boolean retainEntries) throws IOException {
+        if (!Files.isDirectory(cassandraDataDirectory)) {
+            return Collections.emptyList();
+        }
+
+        snapshotDirectories.set(0);
+
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+
+        try {
+            return forkJoinPool.invoke(new DirectoryTask(cassandraDataDirectory, 0, retainEntries));
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            forkJoinPool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return number of table snapshot directories found by last {@link #generate()}
+     */
+    public int getSnapshotDirectories() {
+        return snapshotDirectories.get();
+    }
+
+    private class DirectoryTask extends RecursiveTask<List<ManifestEntry>> {
+
+        private static final long serialVersionUID = 1L;
+
+        // /data /<keyspace> /<column family> /snapshots /<snapshot>
+        private static final int TABLE_DEPTH = 2;
+
+        private final Path directory;
+        private final int depth;
+        private final boolean retainEntries;
+
+        DirectoryTask(final Path directory, final int depth, final boolean retainEntries) {
+            this.directory = directory;
+            this.depth = depth;
+            this.retainEntries = retainEntries;
+        }
+
+        @Override
+        protected List<ManifestEntry> compute() {
+            if (depth == TABLE_DEPTH) {
+                return tableManifest();
+            }
+
+            final List<DirectoryTask> subtasks;
+
+            try (final Stream<Path> children = Files.list(directory)) {
+                subtasks = children.filter(Files::isDirectory)
+                    .sorted()
+                    .map(child -> new DirectoryTask(child, depth + 1, retainEntries))
+                    .collect(toList());
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            invokeAll(subtasks);
+
+            final List<ManifestEntry> entries = new ArrayList<>();
+
+            for (final DirectoryTask subtask : subtasks) {
+                entries.addAll(subtask.join());
+            }
+
+            return entries;
+        }
+
+        private List<ManifestEntry> tableManifest() {
+            final Path snapshotDirectory = directory.resolve("snapshots").resolve(snapshotTag);
+
+            if (!Files.isDirectory(snapshotDirectory)) {
+                return Collections.emptyList();
+            }
+
+            snapshotDirectories.incrementAndGet();
+
+            final String keyspace = directory.getParent().getFileName().toString();
+            final String table = directory.getFileName().toString();
+
+            logger.debug("Found snapshot [{} {} {}]", snapshotDirectory, keyspace, table);
+
+            final Path bucketKey = Paths.get("data").resolve(Paths.get(keyspace, table));
+
+            final List<ManifestEntry> entries;
+
+            try (final Stream<ManifestEntry> tableEntries = SSTableUtils.ssTableManifest(snapshotDirectory, bucketKey, packThreshold)) {
+                entries = tableEntries.collect(toList());
+
+                if (compress) {
+                    for (int i = 0; i < entries.size(); i++) {
+                        entries.set(i, StreamCompression.compressed(entries.get(i)));
+                    }
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            if (!entries.isEmpty()) {
+                // the consumer may block until there is a space in a queue of uploads, at most as many
+                // walkers as the pool has threads wait for it, no thread is added to compensate
+                tableManifestConsumer.accept(entries);
+            }
+
+            return retainEntries ? entries : Collections.emptyList();
+        }
+    }
+}
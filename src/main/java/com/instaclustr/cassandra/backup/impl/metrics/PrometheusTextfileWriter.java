@@ -0,0 +1,156 @@
+package com.instaclustr.cassandra.backup.impl.metrics;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes metrics of transfers to a file in Prometheus text format, to be collected by the textfile collector
+ * of node_exporter, so nothing has to listen on the network. The file is written periodically while it is open
+ * and once more when it is closed. It is replaced atomically so the collector never reads a half written file.
+ */
+public class PrometheusTextfileWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusTextfileWriter.class);
+
+    private static final long PERIOD_SECONDS = 15;
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99, 1.0};
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+    private final TransferMetrics transferMetrics;
+    private final Path file;
+    private final ScheduledExecutorService executorService;
+
+    public PrometheusTextfileWriter(final TransferMetrics transferMetrics, final Path file) {
+        this.transferMetrics = transferMetrics;
+        this.file = file;
+        this.executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("metrics-textfile-%d").build());
+        this.executorService.scheduleWithFixedDelay(this::writeQuietly, PERIOD_SECONDS, PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void write() throws IOException {
+        final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        Files.write(tempFile, text().getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+        writeQuietly();
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (final Exception ex) {
+            logger.warn("Unable to write metrics to {}.", file, ex);
+        }
+    }
+
+    private String text() {
+        final StringBuilder text = new StringBuilder();
+
+        family(text, "cassandra_backup_transfer_duration_seconds", "summary",
+               "Duration of transfers of whole files, including all their parts and retried requests, and of freshens and listings of a storage.");;
+
+        forEachRequest((provider, requestType, requestMetrics) -> {
+            final Histogram durations = requestMetrics.getDurations();
+            final String labels = labels(provider, "request", requestType.name().toLowerCase());
+
+            for (final double quantile : QUANTILES) {
+                text.append("cassandra_backup_transfer_duration_seconds{").append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(durations.getValueAtPercentile(quantile * 100) / MICROS_PER_SECOND).append('\n');
+            }
+
+            text.append("cassandra_backup_transfer_duration_seconds_sum{").append(labels).append("} ").append(requestMetrics.getTotalDuration() / MICROS_PER_SECOND).append('\n');
+            text.append("cassandra_backup_transfer_duration_seconds_count{").append(labels).append("} ").append(durations.getTotalCount()).append('\n');
+        });
+
+        family(text, "cassandra_backup_transfer_errors_total", "counter", "Number of failed transfers, freshens and listings of a storage.");
+
+        forEachRequest((provider, requestType, requestMetrics) -> sample(text,
+                                                                         "cassandra_backup_transfer_errors_total",
+                                                                         labels(provider, "request", requestType.name().toLowerCase()),
+                                                                         requestMetrics.getErrors()));
+
+        family(text, "cassandra_backup_bytes_total", "counter", "Number of bytes transferred from or to a storage.");
+
+        for (final StorageMetrics storage : transferMetrics.getStorages()) {
+            sample(text, "cassandra_backup_bytes_total", labels(storage.getProvider(), "direction", "upload"), storage.getBytesUploaded());
+            sample(text, "cassandra_backup_bytes_total", labels(storage.getProvider(), "direction", "download"), storage.getBytesDownloaded());
+        }
+
+        family(text, "cassandra_backup_bytes_per_second", "gauge", "Bytes transferred from or to a storage per second, averaged over the last minute.");
+
+        for (final StorageMetrics storage : transferMetrics.getStorages()) {
+            sample(text, "cassandra_backup_bytes_per_second", labels(storage.getProvider(), "direction", "upload"), storage.getUploadRate());
+            sample(text, "cassandra_backup_bytes_per_second", labels(storage.getProvider(), "direction", "download"), storage.getDownloadRate());
+        }
+
+        storageFamily(text, "cassandra_backup_retries_total", "counter", "Number of retried requests to a storage.", StorageMetrics::getRetries);
+        storageFamily(text, "cassandra_backup_throttle_responses_total", "counter", "Number of requests a storage responded to it is overloaded or throttling.", StorageMetrics::getThrottleResponses);
+        storageFamily(text, "cassandra_backup_queue_depth", "gauge", "Number of files waiting for a transfer from or to a storage.", StorageMetrics::getQueueDepth);
+
+        return text.toString();
+    }
+
+    @FunctionalInterface
+    private interface RequestMetricsConsumer {
+
+        void accept(final String provider, final RequestType requestType, final RequestMetrics requestMetrics);
+    }
+
+    private void forEachRequest(final RequestMetricsConsumer consumer) {
+        for (final StorageMetrics storage : transferMetrics.getStorages()) {
+            for (final Map.Entry<RequestType, RequestMetrics> request : storage.getRequests().entrySet()) {
+                consumer.accept(storage.getProvider(), request.getKey(), request.getValue());
+            }
+        }
+    }
+
+    private void storageFamily(final StringBuilder text, final String name, final String type, final String help, final ToDoubleFunction<StorageMetrics> value) {
+        family(text, name, type, help);
+
+        for (final StorageMetrics storage : transferMetrics.getStorages()) {
+            sample(text, name, labels(storage.getProvider()), value.applyAsDouble(storage));
+        }
+    }
+
+    private static void family(final StringBuilder text, final String name, final String type, final String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(final StringBuilder text, final String name, final String labels, final double value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String labels(final String provider) {
+        return "provider=\"" + provider + "\"";
+    }
+
+    private static String labels(final String provider, final String label, final String value) {
+        return labels(provider) + "," + label + "=\"" + value + "\"";
+    }
+}
@@ -0,0 +1,62 @@
+package com.instaclustr.cassandra.backup.impl.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter with its exponentially weighted moving rate per second, over a window of one minute.
+ * The rate is sampled at most once every {@link #SAMPLE_NANOS} by whichever thread marks or reads it.
+ */
+public class RateMeter {
+
+    private static final long SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final double WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LongAdder count = new LongAdder();
+    private final AtomicReference<Sample> lastSample = new AtomicReference<>(new Sample(System.nanoTime(), 0, 0));
+
+    public void mark(final long n) {
+        count.add(n);
+        sample(System.nanoTime());
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getRate() {
+        sample(System.nanoTime());
+
+        return (long) lastSample.get().rate;
+    }
+
+    private void sample(final long now) {
+        final Sample sample = lastSample.get();
+        final long elapsed = now - sample.nanos;
+
+        if (elapsed < SAMPLE_NANOS) {
+            return;
+        }
+
+        final long count = this.count.sum();
+        final double rate = (double) (count - sample.count) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+        final double alpha = 1 - Math.exp(-elapsed / WINDOW_NANOS);
+
+        // losing the race means another thread has just taken the sample
+        lastSample.compareAndSet(sample, new Sample(now, count, sample.rate + alpha * (rate - sample.rate)));
+    }
+
+    private static final class Sample {
+
+        final long nanos;
+        final long count;
+        final double rate;
+
+        Sample(final long nanos, final long count, final double rate) {
+            this.nanos = nanos;
+            this.count = count;
+            this.rate = rate;
+        }
+    }
+}
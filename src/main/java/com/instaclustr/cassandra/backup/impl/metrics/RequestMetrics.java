@@ -0,0 +1,82 @@
+package com.instaclustr.cassandra.backup.impl.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Histogram of durations of one type of requests to one storage, recorded in microseconds with 3 significant digits.
+ * An upload or a download is timed as a whole, from its first to its last byte, including all its parts and retried
+ * requests, so its duration is not the latency of a single request. Durations of failed requests are recorded as well,
+ * failures are counted separately.
+ */
+public class RequestMetrics implements RequestMetricsMBean {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Histogram durations = new ConcurrentHistogram(3);
+    private final LongAdder totalDuration = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public void record(final long nanos, final boolean failed) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+
+        durations.recordValue(micros);
+        totalDuration.add(micros);
+
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * @return consistent copy of the histogram of durations, in microseconds
+     */
+    public Histogram getDurations() {
+        return durations.copy();
+    }
+
+    /**
+     * @return sum of all recorded durations, in microseconds
+     */
+    public long getTotalDuration() {
+        return totalDuration.sum();
+    }
+
+    @Override
+    public long getCount() {
+        return durations.getTotalCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getDurationMean() {
+        return durations.getMean() / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getDuration50thPercentile() {
+        return durations.getValueAtPercentile(50.0) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getDuration95thPercentile() {
+        return durations.getValueAtPercentile(95.0) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getDuration99thPercentile() {
+        return durations.getValueAtPercentile(99.0) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getDurationMax() {
+        return durations.getMaxValue() / MICROS_PER_MILLI;
+    }
+}
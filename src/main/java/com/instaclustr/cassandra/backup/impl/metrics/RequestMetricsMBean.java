@@ -0,0 +1,21 @@
+package com.instaclustr.cassandra.backup.impl.metrics;
+
+/**
+ * Durations of one type of requests to one storage, of whole transfers for uploads and downloads, in milliseconds.
+ */
+public interface RequestMetricsMBean {
+
+    long getCount();
+
+    long getErrors();
+
+    double getDurationMean();
+
+    double getDuration50thPercentile();
+
+    double getDuration95thPercentile();
+
+    double getDuration99thPercentile();
+
+    double getDurationMax();
+}
@@ -0,0 +1,111 @@
+package com.instaclustr.cassandra.backup.impl.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of transfers from and to one storage provider, shared by all backups and restores using it.
+ */
+public class StorageMetrics implements StorageMetricsMBean {
+
+    public enum RequestType {
+        UPLOAD,
+        FRESHEN,
+        DOWNLOAD,
+        LIST
+    }
+
+    private final String provider;
+    private final Map<RequestType, RequestMetrics> requests;
+
+    private final RateMeter bytesUploaded = new RateMeter();
+    private final RateMeter bytesDownloaded = new RateMeter();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder throttleResponses = new LongAdder();
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    public StorageMetrics(final String provider) {
+        this.provider = provider;
+
+        final Map<RequestType, RequestMetrics> requests = new EnumMap<>(RequestType.class);
+
+        for (final RequestType requestType : RequestType.values()) {
+            requests.put(requestType, new RequestMetrics());
+        }
+
+        this.requests = Collections.unmodifiableMap(requests);
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public RequestMetrics request(final RequestType requestType) {
+        return requests.get(requestType);
+    }
+
+    public Map<RequestType, RequestMetrics> getRequests() {
+        return requests;
+    }
+
+    public void bytesUploaded(final long bytes) {
+        bytesUploaded.mark(bytes);
+    }
+
+    public void bytesDownloaded(final long bytes) {
+        bytesDownloaded.mark(bytes);
+    }
+
+    public void retried() {
+        retries.increment();
+    }
+
+    public void throttled() {
+        throttleResponses.increment();
+    }
+
+    /**
+     * @param delta number of files queued for a transfer, negative once their transfer starts
+     */
+    public void queued(final int delta) {
+        queueDepth.addAndGet(delta);
+    }
+
+    @Override
+    public long getBytesUploaded() {
+        return bytesUploaded.getCount();
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return bytesDownloaded.getCount();
+    }
+
+    @Override
+    public long getUploadRate() {
+        return bytesUploaded.getRate();
+    }
+
+    @Override
+    public long getDownloadRate() {
+        return bytesDownloaded.getRate();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getThrottleResponses() {
+        return throttleResponses.sum();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+}
@@ -0,0 +1,27 @@
+package com.instaclustr.cassandra.backup.impl.metrics;
+
+/**
+ * Transfers from and to one storage provider.
+ */
+public interface StorageMetricsMBean {
+
+    long getBytesUploaded();
+
+    long getBytesDownloaded();
+
+    /**
+     * @return bytes uploaded per second, averaged over the last minute
+     */
+    long getUploadRate();
+
+    /**
+     * @return bytes downloaded per second, averaged over the last minute
+     */
+    long getDownloadRate();
+
+    long getRetries();
+
+    long getThrottleResponses();
+
+    long getQueueDepth();
+}
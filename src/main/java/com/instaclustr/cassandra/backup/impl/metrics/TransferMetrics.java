@@ -0,0 +1,78 @@
+package com.instaclustr.cassandra.backup.impl.metrics;
+
+import static java.lang.String.format;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of metrics of transfers, per storage provider, for the whole process. Metrics of a provider are registered
+ * as MBeans once it is used for the first time:
+ * <ul>
+ * <li>com.instaclustr.cassandra.backup:type=Storage,provider=s3 - bytes, rates, retries, throttle responses and queue depth</li>
+ * <li>com.instaclustr.cassandra.backup:type=Request,provider=s3,request=upload - durations of requests of a type</li>
+ * </ul>
+ * They are exported to a file in Prometheus text format by {@link PrometheusTextfileWriter} as well.
+ */
+public class TransferMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferMetrics.class);
+
+    public static final String DOMAIN = "com.instaclustr.cassandra.backup";
+
+    private static final TransferMetrics INSTANCE = new TransferMetrics(ManagementFactory.getPlatformMBeanServer());
+
+    private final MBeanServer mBeanServer;
+    private final ConcurrentMap<String, StorageMetrics> storages = new ConcurrentHashMap<>();
+
+    /**
+     * @param mBeanServer server metrics are registered to, null if they are not to be registered
+     */
+    public TransferMetrics(final MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    public static TransferMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public StorageMetrics storage(final String provider) {
+        return storages.computeIfAbsent(provider, p -> {
+            final StorageMetrics storageMetrics = new StorageMetrics(p);
+
+            register(storageMetrics, format("%s:type=Storage,provider=%s", DOMAIN, p));
+
+            for (final Map.Entry<RequestType, RequestMetrics> request : storageMetrics.getRequests().entrySet()) {
+                register(request.getValue(), format("%s:type=Request,provider=%s,request=%s", DOMAIN, p, request.getKey().name().toLowerCase()));
+            }
+
+            return storageMetrics;
+        });
+    }
+
+    public Collection<StorageMetrics> getStorages() {
+        return Collections.unmodifiableCollection(storages.values());
+    }
+
+    private void register(final Object mBean, final String name) {
+        if (mBeanServer == null) {
+            return;
+        }
+
+        try {
+            mBeanServer.registerMBean(mBean, new ObjectName(name));
+        } catch (final Exception ex) {
+            logger.warn("Unable to register MBean {}, metrics are not available over JMX.", name, ex);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.instaclustr.cassandra.backup.impl.restore;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import java.nio.file.Path;
@@ -8,17 +9,23 @@ import java.nio.file.Paths;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.instaclustr.cassandra.backup.impl.DataSizeTypeConverter;
 import com.instaclustr.cassandra.backup.impl.KubernetesAwareRequest;
 import com.instaclustr.cassandra.backup.impl.StorageLocation;
 import com.instaclustr.cassandra.backup.impl.StorageLocation.StorageLocationDeserializer;
 import com.instaclustr.cassandra.backup.impl.StorageLocation.StorageLocationSerializer;
 import com.instaclustr.cassandra.backup.impl.StorageLocation.StorageLocationTypeConverter;
 import com.instaclustr.cassandra.backup.impl.StorageLocation.ValidStorageLocation;
+import com.instaclustr.measure.DataRate;
 import com.instaclustr.operations.OperationRequest;
+import com.instaclustr.picocli.typeconverter.DataRateMeasureTypeConverter;
 import picocli.CommandLine.Option;
 
 public class BaseRestoreOperationRequest extends OperationRequest implements KubernetesAwareRequest {
 
+    public static final long DEFAULT_RANGE_THRESHOLD = 64L * 1024 * 1024;
+    public static final long DEFAULT_RANGE_SIZE = 64L * 1024 * 1024;
+
     @Option(names = {"--sl", "--storage-location"},
             converter = StorageLocationTypeConverter.class,
             description = "Location from which files will be fetched for restore, in form " +
@@ -38,6 +45,61 @@ public class BaseRestoreOperationRequest extends OperationRequest implements Kub
     )
     public Integer concurrentConnections = 10;
 
+    @Option(names = {"--adaptive-concurrency"},
+            description = "Adapt the number of concurrent downloads to throughput and throttling of the storage, separately for small and large files. " +
+                    "--concurrent-connections is then the upper bound of each, so set it higher than usual, e.g. 64.")
+    public boolean adaptiveConcurrency;
+
+    @Option(names = {"--transfer-attempts"},
+            description = "Number of attempts to download a file before the operation fails. Failures a storage may recover from, " +
+                    "e.g. throttling or a broken connection, are retried after a growing, randomised delay. Default is 3.",
+            defaultValue = "3")
+    @Min(value = 1, message = "--transfer-attempts has to be greater than 0")
+    public Integer transferAttempts = 3;
+
+    @Option(names = {"-b", "--bandwidth"},
+            description = "Maximum download throughput. The limit is shared by all concurrent downloads.",
+            converter = DataRateMeasureTypeConverter.class)
+    public DataRate bandwidth;
+
+    @Option(names = {"--bandwidth-burst"},
+            description = "Number of bytes downloads may receive at once before --bandwidth is enforced, e.g. 16MB. " +
+                    "Default is one second worth of bandwidth.",
+            converter = DataSizeTypeConverter.class)
+    public Long bandwidthBurst;
+
+    @Option(names = {"--disk-write-rate"},
+            description = "Maximum throughput of writes of downloaded files to disk, shared by all concurrent downloads. " +
+                    "Use it to leave disk throughput to Cassandra running on the same disk.",
+            converter = DataRateMeasureTypeConverter.class)
+    public DataRate diskWriteRate;
+
+    @Option(names = {"--disk-write-iops"},
+            description = "Maximum number of writes of downloaded files to disk per second, shared by all concurrent downloads. " +
+                    "A single write is of 64KB at most.")
+    @Min(value = 1, message = "--disk-write-iops has to be greater than 0")
+    public Integer diskWriteIops;
+
+    @Option(names = {"--range-threshold"},
+            description = "Files of this size or bigger are downloaded in byte ranges, in parallel, e.g. 128MB. Default is 64MB.",
+            converter = DataSizeTypeConverter.class,
+            defaultValue = "64MB")
+    @Min(value = 1, message = "--range-threshold has to be greater than 0")
+    public Long rangeThreshold = DEFAULT_RANGE_THRESHOLD;
+
+    @Option(names = {"--range-size"},
+            description = "Size of a byte range of a file downloaded in ranges, e.g. 16MB. Default is 64MB.",
+            converter = DataSizeTypeConverter.class,
+            defaultValue = "64MB")
+    @Min(value = 1, message = "--range-size has to be greater than 0")
+    public Long rangeSize = DEFAULT_RANGE_SIZE;
+
+    @Option(names = {"--range-concurrency"},
+            description = "Number of byte ranges of one file to download concurrently. Default is 4.",
+            defaultValue = "4")
+    @Min(value = 1, message = "--range-concurrency has to be greater than 0")
+    public Integer rangeConcurrency = 4;
+
     @Option(names = {"-w", "--waitForLock"},
             description = "Wait to acquire the global transfer lock (which prevents more than one backup or restore from running)."
     )
@@ -47,6 +109,11 @@ public class BaseRestoreOperationRequest extends OperationRequest implements Kub
         description = "Directory which will be used for locking purposes for backups")
     public Path lockFile;
 
+    @Option(names = {"--metrics-file"},
+            description = "File metrics of transfers are written to in Prometheus text format, periodically and once the operation is done, " +
+                    "e.g. /var/lib/node_exporter/textfile/cassandra_backup.prom to be collected by node_exporter. Not written by default.")
+    public Path metricsFile;
+
     @Option(names = {"--k8s-namespace"},
         description = "Name of Kubernetes namespace backup tool runs in, if any.",
         defaultValue = "default")
@@ -62,14 +129,34 @@ public class BaseRestoreOperationRequest extends OperationRequest implements Kub
 
     public BaseRestoreOperationRequest(final StorageLocation storageLocation,
                                        final Integer concurrentConnections,
+                                       final boolean adaptiveConcurrency,
+                                       final Integer transferAttempts,
+                                       final DataRate bandwidth,
+                                       final Long bandwidthBurst,
+                                       final DataRate diskWriteRate,
+                                       final Integer diskWriteIops,
+                                       final Long rangeThreshold,
+                                       final Long rangeSize,
+                                       final Integer rangeConcurrency,
                                        final boolean waitForLock,
                                        final Path lockFile,
+                                       final Path metricsFile,
                                        final String k8sNamespace,
                                        final String k8sSecretName) {
         this.storageLocation = storageLocation;
         this.concurrentConnections = concurrentConnections;
+        this.adaptiveConcurrency = adaptiveConcurrency;
+        this.transferAttempts = transferAttempts == null ? 3 : transferAttempts;
+        this.bandwidth = bandwidth;
+        this.bandwidthBurst = bandwidthBurst;
+        this.diskWriteRate = diskWriteRate;
+        this.diskWriteIops = diskWriteIops;
+        this.rangeThreshold = rangeThreshold == null ? DEFAULT_RANGE_THRESHOLD : rangeThreshold;
+        this.rangeSize = rangeSize == null ? DEFAULT_RANGE_SIZE : rangeSize;
+        this.rangeConcurrency = rangeConcurrency == null ? 4 : rangeConcurrency;
         this.waitForLock = waitForLock;
         this.lockFile = lockFile;
+        this.metricsFile = metricsFile;
         this.k8sNamespace = k8sNamespace;
         this.k8sBackupSecretName = k8sSecretName;
     }
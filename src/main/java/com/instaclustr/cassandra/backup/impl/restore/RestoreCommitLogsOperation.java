@@ -23,12 +23,16 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.instaclustr.cassandra.backup.guice.RestorerFactory;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
 import com.instaclustr.operations.Operation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +43,10 @@ public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOpera
 
     private final static String CASSANDRA_COMMIT_LOGS = "commitlog";
 
+    // bytes transferred, throughput and ETA, exposed as a snapshot along with progress of the operation
+    @JsonIgnore
+    public final OperationProgressTracker progressTracker = new OperationProgressTracker(this);
+
     private final Map<String, RestorerFactory> restorerFactoryMap;
 
     private final Path commitlogsPath;
@@ -52,6 +60,11 @@ public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOpera
         commitlogsPath = request.cassandraDirectory.resolve(CASSANDRA_COMMIT_LOGS);
     }
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public OperationProgressTracker.Snapshot getTransferProgress() {
+        return progressTracker.snapshot();
+    }
+
     @Override
     protected void run0() throws Exception {
         try (final Restorer restorer = restorerFactoryMap.get(request.storageLocation.storageProvider).createCommitLogRestorer(request)) {
@@ -86,14 +99,15 @@ public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOpera
 
     private void downloadCommitLogs(final Restorer restorer) throws Exception {
         final RemoteObjectReference remoteObjectReference = restorer.objectKeyToRemoteReference(Paths.get("commitlog"));
-        final Pattern commitlogPattern = Pattern.compile(".*(CommitLog-\\d+-\\d+\\.log)\\.(\\d+)");
+        // compressed commit logs end with the suffix of their codec
+        final Pattern commitlogPattern = Pattern.compile(".*(CommitLog-\\d+-\\d+\\.log)\\.(\\d+)(?:" + Pattern.quote(StreamCompression.Codec.DEFLATE.suffix) + ")?");
         final HashSet<ManifestEntry> parsedCommitlogList = new HashSet<>();
 
         logger.info("Commencing processing of commit log listing");
         final AtomicReference<ManifestEntry> overhangingManifestEntry = new AtomicReference<>();
         final AtomicLong overhangingTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        restorer.consumeFiles(remoteObjectReference, commitlogFile -> {
+        restorer.listFiles(remoteObjectReference, commitlogFile -> {
 
             final Matcher matcherCommitlog = commitlogPattern.matcher(commitlogFile.getObjectKey().toString());
 
@@ -126,7 +140,9 @@ public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOpera
             return;
         }
 
-        restorer.downloadFiles(parsedCommitlogList);
+        restorer.downloadFiles(parsedCommitlogList,
+                               new RestoreJournal(request.cassandraDirectory.resolve(RestoreJournal.DIRECTORY)),
+                               progressTracker);
     }
 
     private void updateCommitLogArchivingProperties() {
@@ -14,6 +14,7 @@ import com.google.common.collect.Multimap;
 import com.instaclustr.cassandra.backup.impl.StorageLocation;
 import com.instaclustr.jackson.PathDeserializer;
 import com.instaclustr.jackson.PathSerializer;
+import com.instaclustr.measure.DataRate;
 import com.instaclustr.picocli.typeconverter.KeyspaceTablePairsConverter;
 import com.instaclustr.picocli.typeconverter.PathTypeConverter;
 import picocli.CommandLine.Option;
@@ -73,8 +74,18 @@ public class RestoreCommitLogsOperationRequest extends BaseRestoreOperationReque
     @JsonCreator
     public RestoreCommitLogsOperationRequest(@JsonProperty("storageLocation") final StorageLocation storageLocation,
                                              @JsonProperty("concurrentConnections") final Integer concurrentConnections,
+                                             @JsonProperty("adaptiveConcurrency") final boolean adaptiveConcurrency,
+                                             @JsonProperty("transferAttempts") final Integer transferAttempts,
+                                             @JsonProperty("bandwidth") final DataRate bandwidth,
+                                             @JsonProperty("bandwidthBurst") final Long bandwidthBurst,
+                                             @JsonProperty("diskWriteRate") final DataRate diskWriteRate,
+                                             @JsonProperty("diskWriteIops") final Integer diskWriteIops,
+                                             @JsonProperty("rangeThreshold") final Long rangeThreshold,
+                                             @JsonProperty("rangeSize") final Long rangeSize,
+                                             @JsonProperty("rangeConcurrency") final Integer rangeConcurrency,
                                              @JsonProperty("waitForLock") final Boolean waitForLock,
                                              @JsonProperty("lockFile") final Path lockFile,
+                                             @JsonProperty("metricsFile") final Path metricsFile,
                                              @JsonProperty("cassandraDirectory") final Path cassandraDirectory,
                                              @JsonProperty("sharedContainerPath") final Path sharedContainerPath,
                                              @JsonProperty("cassandraConfigDirectory") final Path cassandraConfigDirectory,
@@ -84,7 +95,7 @@ public class RestoreCommitLogsOperationRequest extends BaseRestoreOperationReque
                                              @JsonProperty("keyspaceTables") final Multimap<String, String> keyspaceTables,
                                              @JsonProperty("k8sNamespace") final String k8sNamespace,
                                              @JsonProperty("k8sSecretName") final String k8sSecretName) {
-        super(storageLocation, concurrentConnections, waitForLock, lockFile, k8sNamespace, k8sSecretName);
+        super(storageLocation, concurrentConnections, adaptiveConcurrency, transferAttempts, bandwidth, bandwidthBurst, diskWriteRate, diskWriteIops, rangeThreshold, rangeSize, rangeConcurrency, waitForLock, lockFile, metricsFile, k8sNamespace, k8sSecretName);
         this.cassandraDirectory = cassandraDirectory == null ? Paths.get("/var/lib/cassandra") : cassandraDirectory;
         this.sharedContainerPath = sharedContainerPath == null ? Paths.get("/") : sharedContainerPath;
         this.cassandraConfigDirectory = cassandraConfigDirectory == null ? Paths.get("/etc/cassandra") : cassandraConfigDirectory;
@@ -99,8 +110,18 @@ public class RestoreCommitLogsOperationRequest extends BaseRestoreOperationReque
         return MoreObjects.toStringHelper(this)
                           .add("storageLocation", storageLocation)
                           .add("concurrentConnections", concurrentConnections)
+                          .add("adaptiveConcurrency", adaptiveConcurrency)
+                          .add("transferAttempts", transferAttempts)
+                          .add("bandwidth", bandwidth)
+                          .add("bandwidthBurst", bandwidthBurst)
+                          .add("diskWriteRate", diskWriteRate)
+                          .add("diskWriteIops", diskWriteIops)
+                          .add("rangeThreshold", rangeThreshold)
+                          .add("rangeSize", rangeSize)
+                          .add("rangeConcurrency", rangeConcurrency)
                           .add("waitForLock", waitForLock)
                           .add("lockFile", lockFile)
+                          .add("metricsFile", metricsFile)
                           .add("cassandraDirectory", cassandraDirectory)
                           .add("sharedContainerPath", sharedContainerPath)
                           .add("cassandraConfigDirectory", cassandraConfigDirectory)
@@ -0,0 +1,166 @@
+package com.instaclustr.cassandra.backup.impl.restore;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local journal of downloads to partial files, so a download interrupted e.g. by a restart of a pod
+ * is resumed by the next restore instead of being started over. There is one json file per partial file,
+ * written before the first byte of the partial file, rewritten after each downloaded range and removed once
+ * the partial file is moved into place.
+ * <p>
+ * A partial file is resumed only if its journal is of the same object, a partial file at the same path
+ * may have been left by a restore of another snapshot or node. Downloads of a single stream have no ranges,
+ * they are resumed from the size of their partial file.
+ */
+public class RestoreJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestoreJournal.class);
+
+    // directory of the journal in the Cassandra directory
+    public static final String DIRECTORY = "restore-journal";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public RestoreJournal(final Path directory) {
+        this.directory = directory;
+    }
+
+    public static class Download {
+
+        public String objectKey;
+        public String localFile;
+        public long size;
+        // 0 for a download of a single stream
+        public long rangeSize;
+        public SortedSet<Long> downloadedRanges = new TreeSet<>();
+
+        public Download() {
+            // for jackson
+        }
+
+        Download(final String objectKey, final Path localFile, final long size, final long rangeSize) {
+            this.objectKey = objectKey;
+            this.localFile = localFile.toString();
+            this.size = size;
+            this.rangeSize = rangeSize;
+        }
+
+        public boolean isDownloadOf(final String objectKey, final long size) {
+            return isDownloadOf(objectKey, size, 0);
+        }
+
+        public boolean isDownloadOf(final String objectKey, final long size, final long rangeSize) {
+            return this.objectKey.equals(objectKey) && this.size == size && this.rangeSize == rangeSize;
+        }
+
+        public boolean isDownloaded(final long rangeOffset) {
+            synchronized (this) {
+                return downloadedRanges.contains(rangeOffset);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("objectKey", objectKey)
+                .add("localFile", localFile)
+                .add("size", size)
+                .add("rangeSize", rangeSize)
+                .add("downloadedRanges", downloadedRanges.size())
+                .toString();
+        }
+    }
+
+    /**
+     * @return download journaled for a local file, if any
+     */
+    public Optional<Download> find(final Path localFile) {
+        final Path journalFile = journalFile(localFile);
+
+        if (!Files.exists(journalFile)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(objectMapper.readValue(journalFile.toFile(), Download.class));
+        } catch (final IOException ex) {
+            logger.warn("Unable to read journal {}, download of {} will not be resumed.", journalFile, localFile, ex);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Journals a download of a single stream, of an object or of a component of a bundle.
+     */
+    public Download create(final Path localFile, final String objectKey, final long size) throws IOException {
+        return create(localFile, objectKey, size, 0);
+    }
+
+    public Download create(final Path localFile, final String objectKey, final long size, final long rangeSize) throws IOException {
+        final Download download = new Download(objectKey, localFile, size, rangeSize);
+
+        save(download);
+
+        return download;
+    }
+
+    public void rangeDownloaded(final Download download, final long rangeOffset) throws IOException {
+        synchronized (download) {
+            download.downloadedRanges.add(rangeOffset);
+            save(download);
+        }
+    }
+
+    public void remove(final Path localFile) throws IOException {
+        Files.deleteIfExists(journalFile(localFile));
+    }
+
+    /**
+     * Removes the directory of the journal once there is no download in progress.
+     */
+    public void cleanup() {
+        try {
+            Files.deleteIfExists(directory);
+        } catch (final DirectoryNotEmptyException ex) {
+            logger.info("Keeping journal {} of downloads which have not been completed.", directory);
+        } catch (final IOException ex) {
+            logger.warn("Unable to remove journal {}.", directory, ex);
+        }
+    }
+
+    private void save(final Download download) throws IOException {
+        Files.createDirectories(directory);
+
+        final Path journalFile = journalFile(download.localFile);
+        final Path tempFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+
+        Files.write(tempFile, objectMapper.writeValueAsBytes(download));
+        Files.move(tempFile, journalFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private Path journalFile(final Path localFile) {
+        return journalFile(localFile.toString());
+    }
+
+    private Path journalFile(final String localFile) {
+        return directory.resolve(Hashing.sha256().hashString(localFile, StandardCharsets.UTF_8).toString() + ".json");
+    }
+}
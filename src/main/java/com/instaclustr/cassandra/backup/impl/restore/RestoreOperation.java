@@ -13,18 +13,26 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.instaclustr.cassandra.backup.guice.RestorerFactory;
+import com.instaclustr.cassandra.backup.impl.ComponentBundle;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.SSTableUtils;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
 import com.instaclustr.io.FileUtils;
 import com.instaclustr.io.GlobalLock;
 import com.instaclustr.operations.Operation;
@@ -37,6 +45,16 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> {
 
     private final static String CASSANDRA_DATA = "data";
 
+    // system_schema goes first so a restored node knows its schema as soon as possible, the rest from the largest file
+    // so the last files to download are small and downloads of all connections end at about the same time
+    private static final Comparator<ManifestEntry> DOWNLOAD_ORDER =
+        Comparator.comparing((ManifestEntry entry) -> !entry.objectKey.startsWith(Paths.get(CASSANDRA_DATA, "system_schema")))
+            .thenComparing(entry -> entry.size, Comparator.reverseOrder());
+
+    // bytes transferred, throughput and ETA, exposed as a snapshot along with progress of the operation
+    @JsonIgnore
+    public final OperationProgressTracker progressTracker = new OperationProgressTracker(this);
+
     private final Map<String, RestorerFactory> restorerFactoryMap;
 
     private final Path cassandraYaml;
@@ -51,6 +69,11 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> {
         tokens = request.cassandraDirectory.resolve("tokens.yaml");
     }
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public OperationProgressTracker.Snapshot getTransferProgress() {
+        return progressTracker.snapshot();
+    }
+
     @Override
     protected void run0() throws Exception {
         try (final Restorer restorer = restorerFactoryMap.get(request.storageLocation.storageProvider).createRestorer(request)) {
@@ -74,6 +97,64 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> {
 
         new GlobalLock(request.lockFile).waitForLock(request.waitForLock);
 
+        final RestorePlan plan = plan(restorer);
+
+        // 6. Clean out old data
+        cleanDirectory(request.cassandraDirectory.resolve("hints"));
+        cleanDirectory(request.cassandraDirectory.resolve("saved_caches"));
+
+        // 7. Delete SSTables which are not in the snapshot
+        plan.obsoleteSstables.forEach(sstablePath -> {
+            logger.info("Deleting existing sstable {}", sstablePath);
+            if (!sstablePath.toFile().delete()) {
+                logger.warn("Failed to delete {}", sstablePath);
+            }
+        });
+
+        final RestoreJournal journal = new RestoreJournal(request.cassandraDirectory.resolve(RestoreJournal.DIRECTORY));
+
+        // partial files left by a previous restore of something else will not be resumed
+        for (final Path partialFile : plan.partialFiles) {
+            logger.info("Deleting partial file {}", partialFile);
+            if (!partialFile.toFile().delete()) {
+                logger.warn("Failed to delete {}", partialFile);
+            }
+
+            journal.remove(Restorer.localFile(partialFile));
+        }
+
+        // 8. Download files in the manifest
+        restorer.downloadFiles(plan.downloads, journal, progressTracker);
+
+        // 9. download tokens
+        downloadTokens(restorer);
+    }
+
+    /**
+     * Files a restore has to download and local files it has to delete.
+     */
+    public static class RestorePlan {
+
+        // in the order they are to be downloaded
+        public final List<ManifestEntry> downloads;
+        // SSTables present locally which are not in the snapshot
+        public final Set<Path> obsoleteSstables;
+        // files staged by downloads of a previous restore which will not be resumed
+        public final Set<Path> partialFiles;
+
+        RestorePlan(final List<ManifestEntry> downloads, final Set<Path> obsoleteSstables, final Set<Path> partialFiles) {
+            this.downloads = downloads;
+            this.obsoleteSstables = obsoleteSstables;
+            this.partialFiles = partialFiles;
+        }
+    }
+
+    /**
+     * Downloads the manifest of the snapshot and compares it with SSTables present locally. Nothing but the manifest
+     * is written to disk, so it may be used to see what a restore would do as well.
+     */
+    public RestorePlan plan(final Restorer restorer) throws Exception {
+
         // 2. Determine if just restoring a subset of tables
         final boolean isTableSubsetOnly = request.keyspaceTables.size() > 0;
 
@@ -84,25 +165,25 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> {
 
         restorer.downloadFile(localManifest, restorer.objectKeyToRemoteReference(sourceManifest));
 
-        // 4. Clean out old data
-        cleanDirectory(request.cassandraDirectory.resolve("hints"));
-        cleanDirectory(request.cassandraDirectory.resolve("saved_caches"));
-
-        // 5. Build a list of all SSTables currently present, that are candidates for deleting
+        // 4. Build a list of all SSTables currently present, that are candidates for deleting
         final Set<Path> existingSstableList = new HashSet<>();
+        // files staged by downloads of a previous restore which has failed
+        final Set<Path> partialFiles = new HashSet<>();
         final int skipBackupsAndSnapshotsFolders = 4;
 
         final Path cassandraSstablesDirectory = request.cassandraDirectory.resolve(CASSANDRA_DATA);
 
         if (cassandraSstablesDirectory.toFile().exists()) {
             try (Stream<Path> paths = Files.walk(cassandraSstablesDirectory, skipBackupsAndSnapshotsFolders)) {
-                if (isTableSubsetOnly) {
-                    paths.filter(Files::isRegularFile)
-                        .filter(isSubsetTable(request.keyspaceTables))
-                        .forEach(existingSstableList::add);
-                } else {
-                    paths.filter(Files::isRegularFile).forEach(existingSstableList::add);
-                }
+                final Predicate<Path> isSubsetTable = isSubsetTable(request.keyspaceTables);
+
+                paths.filter(Files::isRegularFile).forEach(path -> {
+                    if (Restorer.isPartialFile(path)) {
+                        partialFiles.add(path);
+                    } else if (!isTableSubsetOnly || isSubsetTable.test(path)) {
+                        existingSstableList.add(path);
+                    }
+                });
             }
         }
 
@@ -110,7 +191,10 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> {
         logger.info("Restoring to existing cluster? {}", isRestoringToExistingCluster);
 
         // 5. Parse the manifest
-        final LinkedList<ManifestEntry> downloadManifest = new LinkedList<>();
+        final List<ManifestEntry> downloadManifest = new ArrayList<>();
+        // components packed into a bundle by the key of the bundle, all of them and those to download
+        final Map<Path, List<ManifestEntry>> bundles = new LinkedHashMap<>();
+        final Map<Path, List<ManifestEntry>> bundleDownloads = new LinkedHashMap<>();
 
         try (final BufferedReader manifestStream = Files.newBufferedReader(localManifest)) {
             final List<String> filteredManifest;
@@ -143,8 +227,15 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> {
                 final Path manifestPath = Paths.get(lineArray[1]);
                 final int hashPathPart = isSecondaryIndexManifest(manifestPath) ? 4 : 3;
 
-                //strip check hash from path
-                final Path localPath = request.cassandraDirectory.resolve(manifestPath.subpath(0, hashPathPart).resolve(manifestPath.getFileName()));
+                //strip check hash and codec suffix, if any, from path
+                final Path localPath = request.cassandraDirectory.resolve(manifestPath.subpath(0, hashPathPart).resolve(StreamCompression.uncompressedFileName(manifestPath)));
+
+                final ManifestEntry entry = new ManifestEntry(manifestPath, localPath, ManifestEntry.Type.FILE, Long.parseLong(lineArray[0]));
+                final Path bundleKey = lineArray.length > 2 ? Paths.get(lineArray[2]) : null;
+
+                if (bundleKey != null) {
+                    bundles.computeIfAbsent(bundleKey, key -> new ArrayList<>()).add(entry);
+                }
 
                 if (isAnExistingSstable(localPath, manifestPath.getName(hashPathPart).toString())) {
                     logger.info("Keeping existing sstable " + localPath);
@@ -153,23 +244,27 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> {
                 }
 
                 logger.info("Not keeping existing sstable {}", localPath);
-                downloadManifest.add(new ManifestEntry(manifestPath, localPath, ManifestEntry.Type.FILE, 0));
+
+                if (bundleKey != null) {
+                    bundleDownloads.computeIfAbsent(bundleKey, key -> new ArrayList<>()).add(entry);
+                } else {
+                    downloadManifest.add(entry);
+                }
+
+                // kept for the download to resume it, if the journal shows it is of the same object
+                partialFiles.remove(Restorer.partialFile(localPath));
             }
         }
 
-        // 6. Delete any entries left in existingSstableList
-        existingSstableList.forEach(sstablePath -> {
-            logger.info("Deleting existing sstable {}", sstablePath);
-            if (!sstablePath.toFile().delete()) {
-                logger.warn("Failed to delete {}", sstablePath);
-            }
-        });
+        // a bundle is downloaded whole, by a single request, so its size covers its components kept locally as well
+        bundleDownloads.forEach((bundleKey, components) -> downloadManifest.add(new ManifestEntry(bundleKey,
+                                                                                                  SSTableUtils.sstableDescriptor(components.get(0).localFile),
+                                                                                                  ComponentBundle.size(bundles.get(bundleKey)),
+                                                                                                  components)));
 
-        // 7. Download files in the manifest
-        restorer.downloadFiles(downloadManifest);
+        downloadManifest.sort(DOWNLOAD_ORDER);
 
-        // 8. download tokens
-        downloadTokens(restorer);
+        return new RestorePlan(downloadManifest, existingSstableList, partialFiles);
     }
 
     /**
@@ -61,7 +61,8 @@ class RestorePredicates {
     private static Path getManifestPath(final String manifestLine) {
         final String[] lineArray = manifestLine.trim().split(" ");
 
-        if (lineArray.length != 2) {
+        // components packed into a bundle are followed by the key of their bundle
+        if (lineArray.length != 2 && lineArray.length != 3) {
             throw new IllegalArgumentException(String.format("Invalid snapshot manifest line: %s", manifestLine));
         }
 
@@ -1,22 +1,60 @@
 package com.instaclustr.cassandra.backup.impl.restore;
 
+import static com.instaclustr.cassandra.backup.impl.SSTableUtils.sstableDescriptor;
+import static com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType.DOWNLOAD;
+import static com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType.LIST;
 import static com.instaclustr.cassandra.backup.impl.restore.Restorer.CompareFilesResult.DOWNLOAD_REQUIRED;
-import static java.util.concurrent.TimeUnit.MINUTES;
+import static com.instaclustr.cassandra.backup.impl.restore.Restorer.CompareFilesResult.MATCHING;
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.CountDownLatch;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-import com.google.common.util.concurrent.Futures;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimitedInputStream;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimiter;
+import com.instaclustr.cassandra.backup.impl.ComponentBundle;
+import com.instaclustr.cassandra.backup.impl.ConcurrencyLimiter;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+import com.instaclustr.cassandra.backup.impl.RetryPolicy;
 import com.instaclustr.cassandra.backup.impl.StorageInteractor;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
+import com.instaclustr.cassandra.backup.impl.TransferPipeline;
+import com.instaclustr.cassandra.backup.impl.metrics.PrometheusTextfileWriter;
+import com.instaclustr.cassandra.backup.impl.metrics.TransferMetrics;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreJournal.Download;
+import com.instaclustr.measure.DataSize;
 import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,15 +62,47 @@ import org.slf4j.LoggerFactory;
 public abstract class Restorer extends StorageInteractor {
     private static final Logger logger = LoggerFactory.getLogger(Restorer.class);
 
+    private static final int QUEUED_DOWNLOADS_PER_CONNECTION = 2;
+
+    public static final String PARTIAL_FILE_SUFFIX = ".partial";
+
+    // size of buffer each range is copied to a file through
+    private static final int RANGE_BUFFER_SIZE = 64 * 1024;
+
     protected final BaseRestoreOperationRequest request;
     private final ExecutorServiceSupplier executorServiceSupplier;
+    private final ExecutorService rangeExecutorService;
+
+    // limits shared by all downloads of this restorer, null if not limited
+    private final BandwidthLimiter bandwidthLimiter;
+    private final BandwidthLimiter diskWriteRateLimiter;
+    private final BandwidthLimiter diskWriteIopsLimiter;
+
+    // null if metrics are not written to a file
+    private final PrometheusTextfileWriter metricsFileWriter;
 
     public Restorer(final BaseRestoreOperationRequest request,
                     final ExecutorServiceSupplier executorServiceSupplier) {
         super(request.storageLocation);
         this.request = request;
         this.executorServiceSupplier = executorServiceSupplier;
+        this.rangeExecutorService = executorServiceSupplier.get(request.concurrentConnections * request.rangeConcurrency);
+
+        this.bandwidthLimiter = request.bandwidth == null ? null : new BandwidthLimiter(request.bandwidth.asBytesPerSecond().value, request.bandwidthBurst);
+        this.diskWriteRateLimiter = request.diskWriteRate == null ? null : new BandwidthLimiter(request.diskWriteRate.asBytesPerSecond().value, null);
+        // a write costs a single "byte" of the limiter
+        this.diskWriteIopsLimiter = request.diskWriteIops == null ? null : new BandwidthLimiter(request.diskWriteIops, null);
+        this.metricsFileWriter = request.metricsFile == null ? null : new PrometheusTextfileWriter(TransferMetrics.getInstance(), request.metricsFile);
 
+        if (bandwidthLimiter != null) {
+            logger.info("Download bandwidth capped at {} in total, burst {}.", request.bandwidth, DataSize.bytesToHumanReadable(bandwidthLimiter.getBurstBytes()));
+        }
+
+        if (diskWriteRateLimiter != null || diskWriteIopsLimiter != null) {
+            logger.info("Disk writes capped at {} and {} writes per second in total.",
+                        request.diskWriteRate == null ? "unlimited rate" : request.diskWriteRate,
+                        request.diskWriteIops == null ? "unlimited" : request.diskWriteIops);
+        }
     }
 
     public enum CompareFilesResult {
@@ -44,59 +114,611 @@ public abstract class Restorer extends StorageInteractor {
         if ((!localFilePath.toFile().exists()) || (Files.size(localFilePath) != size))
             return DOWNLOAD_REQUIRED;
 
-        return CompareFilesResult.MATCHING;
+        return MATCHING;
     }
 
     public abstract void downloadFile(final Path localPath, final RemoteObjectReference objectReference) throws Exception;
 
+    /**
+     * @return size of a remote object in bytes
+     */
+    public abstract long getRemoteObjectSize(final RemoteObjectReference objectReference) throws Exception;
+
+    /**
+     * Opens a stream of a byte range of a remote object.
+     *
+     * @param objectReference object to read
+     * @param offset          position in the object the range starts at
+     * @param length          number of bytes of the range, the stream may end once they are read
+     * @return stream starting at the offset of the object, closed by the caller
+     */
+    protected abstract InputStream readRange(final RemoteObjectReference objectReference, final long offset, final long length) throws Exception;
+
     public abstract void consumeFiles(final RemoteObjectReference prefix, final Consumer<RemoteObjectReference> consumer) throws Exception;
 
-    public void downloadFiles(final Collection<ManifestEntry> manifest) throws Exception {
-        logger.info("{} files to download.", manifest.size());
+    /**
+     * Lists files under a prefix by {@link #consumeFiles(RemoteObjectReference, Consumer)}, recording the listing to metrics of the storage.
+     */
+    public void listFiles(final RemoteObjectReference prefix, final Consumer<RemoteObjectReference> consumer) throws Exception {
+        timed(LIST, () -> {
+            consumeFiles(prefix, consumer);
+            return null;
+        });
+    }
 
-        final CountDownLatch completionLatch = new CountDownLatch(manifest.size());
+    /**
+     * @return file a download to a local file is staged in until it is complete
+     */
+    public static Path partialFile(final Path localFile) {
+        return localFile.resolveSibling(localFile.getFileName() + PARTIAL_FILE_SUFFIX);
+    }
 
-        final ExecutorService executorService = executorServiceSupplier.get(request.concurrentConnections);
+    /**
+     * @return local file a download is staged in the partial file for
+     */
+    public static Path localFile(final Path partialFile) {
+        final String fileName = partialFile.getFileName().toString();
+        return partialFile.resolveSibling(fileName.substring(0, fileName.length() - PARTIAL_FILE_SUFFIX.length()));
+    }
 
-        final Iterable<Future<?>> downloadResults = manifest.stream().map((entry) -> {
-            try {
-                return executorService.submit(() -> {
-                    RemoteObjectReference remoteObjectReference = objectKeyToRemoteReference(entry.objectKey);
-                    try {
-                        logger.info("Downloading file \"{}\" to \"{}\". {} files to go.", remoteObjectReference.getObjectKey(), entry.localFile, completionLatch.getCount());
+    public static boolean isPartialFile(final Path path) {
+        return path.getFileName().toString().endsWith(PARTIAL_FILE_SUFFIX);
+    }
+
+    /**
+     * Downloads files to partial files next to them first, resuming partial files left by a previous failed restore.
+     * Once all downloaded components of an SSTable are complete, they are renamed to their place, so a failed restore
+     * leaves only complete SSTables and partial files behind, and its rerun downloads only what is missing.
+     *
+     * Files are downloaded in the order of the manifest.
+     *
+     * @param manifest                 files to download
+     * @param journal                  journal of objects partial files are downloaded from
+     * @param operationProgressTracker tracker of downloaded files and bytes
+     */
+    public void downloadFiles(final Collection<ManifestEntry> manifest,
+                              final RestoreJournal journal,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        final long filesSizeSum = manifest.stream().mapToLong(entry -> entry.size).sum();
+
+        logger.info("{} files to download. Total size {}.", manifest.size(), DataSize.bytesToHumanReadable(filesSizeSum));
+
+        operationProgressTracker.addEventsToComplete(manifest.size());
+        operationProgressTracker.addBytesToComplete(filesSizeSum);
+
+        // files not downloaded yet, for progress in logs
+        final AtomicInteger remainingFiles = new AtomicInteger(manifest.size());
+
+        // downloaded components of an SSTable, or just a file if it is not a component, and those not downloaded yet
+        final Map<Path, PendingSSTable> sstables = new HashMap<>();
+
+        manifest.stream()
+            .flatMap(entry -> files(entry).stream())
+            .collect(groupingBy(entry -> sstableDescriptor(entry.localFile)))
+            .forEach((descriptor, components) -> sstables.put(descriptor, new PendingSSTable(components)));
+
+        // with an adaptive limit, concurrent connections are the upper bound of concurrent downloads of small and of large files
+        final ConcurrencyLimiter concurrencyLimiter = request.adaptiveConcurrency ? ConcurrencyLimiter.forStorage(request.concurrentConnections, metrics) : null;
+
+        final ExecutorService executorService = executorServiceSupplier.get(TransferPipeline.threads(request.concurrentConnections, concurrencyLimiter));
+
+        // files waiting for a download, those left by a failed download are removed from the queue depth at the end
+        final AtomicInteger queued = new AtomicInteger();
+
+        try (final TransferPipeline<ManifestEntry> pipeline = new TransferPipeline<>(executorService,
+                                                                                     request.concurrentConnections,
+                                                                                     request.concurrentConnections * QUEUED_DOWNLOADS_PER_CONNECTION,
+                                                                                     concurrencyLimiter,
+                                                                                     entry -> entry.size,
+                                                                                     new RetryPolicy(request.transferAttempts, this::isRetryable),
+                                                                                     entry -> {
+                                                                                         queued.decrementAndGet();
+                                                                                         metrics.queued(-1);
+
+                                                                                         try {
+                                                                                             downloadEntry(entry, sstables, remainingFiles, journal, operationProgressTracker);
+                                                                                         } catch (final Exception ex) {
+                                                                                             // waiting for a retry, if any
+                                                                                             queued.incrementAndGet();
+                                                                                             metrics.queued(1);
+                                                                                             throw ex;
+                                                                                         }
+                                                                                     })) {
+            for (final ManifestEntry entry : manifest) {
+                queued.incrementAndGet();
+                metrics.queued(1);
+                pipeline.submit(entry);
+            }
+
+            pipeline.finish();
+        } finally {
+            executorService.shutdownNow();
+            metrics.queued(-queued.getAndSet(0));
+
+            if (concurrencyLimiter != null) {
+                logger.info("Adaptive concurrency of downloads: {}", concurrencyLimiter);
+            }
+        }
+
+        journal.cleanup();
+    }
+
+    /**
+     * Bytes an attempt has reported are taken back if it fails, the next attempt reports them again, e.g. as skipped
+     * bytes of journaled ranges. Moving an SSTable into place is a part of the attempt which completes its last component,
+     * if it fails, the next attempt finds the component downloaded and moves the SSTable again.
+     */
+    private void downloadEntry(final ManifestEntry entry,
+                               final Map<Path, PendingSSTable> sstables,
+                               final AtomicInteger remainingFiles,
+                               final RestoreJournal journal,
+                               final OperationProgressTracker tracker) throws Exception {
+        final RemoteObjectReference remoteObjectReference = objectKeyToRemoteReference(entry.objectKey);
+        final OperationProgressTracker.Attempt operationProgressTracker = tracker.attempt();
+
+        try {
+            logger.info("Downloading file \"{}\" to \"{}\". {} files to go.", remoteObjectReference.getObjectKey(), entry.localFile, remainingFiles.get());
+
+            if (entry.type == ManifestEntry.Type.BUNDLE) {
+                this.downloadBundle(entry, remoteObjectReference, journal, operationProgressTracker);
+            } else if (StreamCompression.Codec.of(entry.objectKey) != StreamCompression.Codec.NONE) {
+                this.downloadCompressedFile(entry, remoteObjectReference, journal, operationProgressTracker);
+            } else {
+                this.downloadFile(entry, remoteObjectReference, journal, operationProgressTracker);
+            }
+
+            for (final ManifestEntry file : files(entry)) {
+                sstables.get(sstableDescriptor(file.localFile)).downloaded(file.localFile, journal);
+            }
+
+            operationProgressTracker.update();
+        } catch (final Exception ex) {
+            logger.error("Failed to download file \"{}\".", remoteObjectReference.getObjectKey(), ex);
+            operationProgressTracker.rollback();
+            throw ex;
+        }
 
-                        this.downloadFile(entry.localFile, remoteObjectReference);
+        remainingFiles.decrementAndGet();
 
-                        logger.info("Successfully downloaded file \"{}\" to \"{}\".", remoteObjectReference.getObjectKey(), entry.localFile);
+        logger.info("Successfully downloaded file \"{}\" to \"{}\". Downloaded {} of {} at {}/s, {} remaining.",
+                    remoteObjectReference.getObjectKey(),
+                    entry.localFile,
+                    DataSize.bytesToHumanReadable(operationProgressTracker.getBytesCompleted()),
+                    DataSize.bytesToHumanReadable(operationProgressTracker.getBytesToComplete()),
+                    DataSize.bytesToHumanReadable(operationProgressTracker.getThroughput()),
+                    operationProgressTracker.getEtaSeconds() == null ? "unknown time" : Duration.ofSeconds(operationProgressTracker.getEtaSeconds()));
+    }
+
+    /**
+     * Components of an SSTable which are not downloaded yet, a component downloaded by a retry again is counted once.
+     */
+    private final class PendingSSTable {
+
+        private final List<ManifestEntry> components;
+        private final Set<Path> pending;
+        private boolean placed;
+
+        PendingSSTable(final List<ManifestEntry> components) {
+            this.components = components;
+            this.pending = components.stream().map(component -> component.localFile).collect(toSet());
+        }
+
+        /**
+         * Moves the SSTable into place once its last component is downloaded, unless it is there already.
+         */
+        synchronized void downloaded(final Path localFile, final RestoreJournal journal) throws IOException {
+            pending.remove(localFile);
+
+            if (pending.isEmpty() && !placed) {
+                moveIntoPlace(components, journal);
+                placed = true;
+            }
+        }
+    }
+
+    /**
+     * @return local files an entry is downloaded to, components of a bundle or the file of an entry
+     */
+    private static List<ManifestEntry> files(final ManifestEntry entry) {
+        return entry.type == ManifestEntry.Type.BUNDLE ? entry.components : Collections.singletonList(entry);
+    }
+
+    /**
+     * Downloads a bundle of small components of an SSTable by a single request and unpacks the components to download
+     * to their partial files. Other components of the bundle, kept locally, are skipped. Partial files of components
+     * are journaled with the key of the bundle, so only those unpacked from the same bundle are found downloaded.
+     */
+    private void downloadBundle(final ManifestEntry bundle,
+                                final RemoteObjectReference objectReference,
+                                final RestoreJournal journal,
+                                final OperationProgressTracker operationProgressTracker) throws Exception {
+        final String bundleKey = objectReference.getObjectKey().toString();
+
+        if (bundle.components.stream().allMatch(component -> {
+            final Path partialFile = partialFile(component.localFile);
+            return partialFile.toFile().length() == component.size
+                && Files.exists(partialFile)
+                && journal.find(component.localFile).map(download -> download.isDownloadOf(bundleKey, component.size)).orElse(false);
+        })) {
+            // unpacked by a previous restore already, but not moved into place as some other component was missing
+            logger.info("Bundle \"{}\" is already downloaded.", objectReference.getObjectKey());
+            operationProgressTracker.bytesSkipped(bundle.size);
+            return;
+        }
+
+        final Map<String, ManifestEntry> components = bundle.components.stream()
+            .collect(toMap(component -> component.localFile.getFileName().toString(), component -> component));
 
-                        return null;
-                    } catch (final Throwable t) {
-                        logger.error("Failed to download file \"{}\".", remoteObjectReference.getObjectKey(), t);
+        Files.createDirectories(bundle.localFile.getParent());
 
-                        executorService.shutdownNow(); // prevent new tasks or other tasks from running
+        final AtomicLong unpackedBytes = new AtomicLong();
 
-                        throw t;
+        timed(DOWNLOAD, () -> {
+            try (final InputStream bundleStream = limitBandwidth(readRange(objectReference, 0, bundle.size))) {
+                ComponentBundle.unpack(bundleStream, (fileName, size, content) -> {
+                    final ManifestEntry component = components.remove(fileName);
 
-                    } finally {
-                        completionLatch.countDown();
+                    if (component != null) {
+                        journal.create(component.localFile, bundleKey, component.size);
+                        copyToFile(content, partialFile(component.localFile), operationProgressTracker);
+                        unpackedBytes.addAndGet(size);
                     }
                 });
-            } catch (final RejectedExecutionException e) {
-                return Futures.immediateFailedFuture(e);
             }
-        }).collect(toList());
 
-        // wait for uploads to finish
-        executorService.shutdown();
+            return null;
+        });
+
+        if (!components.isEmpty()) {
+            throw new IOException(format("Bundle %s has no components %s.", objectReference.getObjectKey(), components.keySet()));
+        }
+
+        // index and components kept locally are downloaded as well
+        operationProgressTracker.bytesTransferred(bundle.size - unpackedBytes.get());
+        metrics.bytesDownloaded(bundle.size - unpackedBytes.get());
+    }
+
+    /**
+     * Writes the stream to the file, replacing its content, while counting written bytes as downloaded.
+     */
+    private void copyToFile(final InputStream content,
+                            final Path partialFile,
+                            final OperationProgressTracker operationProgressTracker) throws Exception {
+        final byte[] buffer = new byte[RANGE_BUFFER_SIZE];
+
+        try (final OutputStream outputStream = Files.newOutputStream(partialFile)) {
+            int bytesRead;
+
+            while ((bytesRead = content.read(buffer)) != -1) {
+                limitDiskWrite(bytesRead);
+
+                outputStream.write(buffer, 0, bytesRead);
+
+                operationProgressTracker.bytesTransferred(bytesRead);
+                metrics.bytesDownloaded(bytesRead);
+            }
+        }
+    }
+
+    /**
+     * Downloads a compressed object as a single stream, decompressed while it is written to a partial file. Ranges
+     * of a compressed object do not map to ranges of the file, so an interrupted download starts over.
+     */
+    private void downloadCompressedFile(final ManifestEntry entry,
+                                        final RemoteObjectReference objectReference,
+                                        final RestoreJournal journal,
+                                        final OperationProgressTracker operationProgressTracker) throws Exception {
+        // size of a decompressed file is known only from a manifest, commit logs have none
+        if (entry.size > 0 && compareRemoteObject(entry.size, entry.localFile, objectReference) == MATCHING) {
+            logger.info("File \"{}\" is already downloaded.", entry.localFile);
+            operationProgressTracker.bytesSkipped(entry.size);
+            return;
+        }
+
+        final Path partialFile = partialFile(entry.localFile);
+
+        Files.createDirectories(partialFile.getParent());
+
+        if (journal.find(entry.localFile).isPresent()) {
+            journal.remove(entry.localFile);
+        }
+
+        timed(DOWNLOAD, () -> {
+            final long compressedSize = getRemoteObjectSize(objectReference);
+
+            try (final InputStream inputStream = StreamCompression.decompress(limitBandwidth(readRange(objectReference, 0, compressedSize)),
+                                                                              StreamCompression.Codec.of(entry.objectKey))) {
+                copyToFile(inputStream, partialFile, operationProgressTracker);
+            }
+
+            return null;
+        });
+
+        final long downloadedSize = Files.size(partialFile);
+
+        if (entry.size > 0 && downloadedSize != entry.size) {
+            Files.delete(partialFile);
+            throw new IOException(format("Decompressed file %s has %s bytes but %s bytes were expected.", entry.localFile, downloadedSize, entry.size));
+        }
+    }
+
+    private void downloadFile(final ManifestEntry entry,
+                              final RemoteObjectReference objectReference,
+                              final RestoreJournal journal,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        final long size = entry.size > 0 ? entry.size : getRemoteObjectSize(objectReference);
 
-        while (true) {
-            if (executorService.awaitTermination(1, MINUTES))
-                break;
+        if (compareRemoteObject(size, entry.localFile, objectReference) == MATCHING) {
+            logger.info("File \"{}\" is already downloaded.", entry.localFile);
+            operationProgressTracker.bytesSkipped(size);
+            return;
         }
 
-        // rethrow any exception caused by a download task so we exit with failure
-        for (final Future<?> result : downloadResults) {
-            result.get();
+        final Path partialFile = partialFile(entry.localFile);
+
+        Files.createDirectories(partialFile.getParent());
+
+        timed(DOWNLOAD, () -> {
+            if (size >= request.rangeThreshold) {
+                downloadFileInRanges(entry.localFile, objectReference, size, journal, operationProgressTracker);
+            } else {
+                downloadFileInStream(entry.localFile, objectReference, size, journal, operationProgressTracker);
+            }
+
+            return null;
+        });
+
+        final long downloadedSize = Files.size(partialFile);
+
+        if (downloadedSize != size) {
+            Files.delete(partialFile);
+            journal.remove(entry.localFile);
+            throw new IOException(format("Downloaded file %s has %s bytes but %s bytes were expected.", entry.localFile, downloadedSize, size));
+        }
+    }
+
+    /**
+     * Downloads an object as a single stream to a partial file, or downloads just the rest of the object to the partial file
+     * left by an interrupted download of the same object.
+     */
+    private void downloadFileInStream(final Path localFile,
+                                      final RemoteObjectReference objectReference,
+                                      final long size,
+                                      final RestoreJournal journal,
+                                      final OperationProgressTracker operationProgressTracker) throws Exception {
+        final Path partialFile = partialFile(localFile);
+        final String objectKey = objectReference.getObjectKey().toString();
+
+        // partial file of another object, or of a download in ranges which has its final size already, is not resumed
+        final boolean resumable = journal.find(localFile).map(download -> download.isDownloadOf(objectKey, size)).orElse(false);
+
+        final long downloadedSize = resumable && Files.exists(partialFile) ? Files.size(partialFile) : 0;
+
+        if (downloadedSize > 0 && downloadedSize <= size) {
+            operationProgressTracker.bytesSkipped(downloadedSize);
+
+            if (downloadedSize < size) {
+                logger.info("Resuming download of \"{}\" from byte {}.", objectReference.getObjectKey(), downloadedSize);
+
+                try (final FileChannel fileChannel = FileChannel.open(partialFile, WRITE)) {
+                    downloadRange(fileChannel, objectReference, downloadedSize, size - downloadedSize, operationProgressTracker);
+                }
+            }
+
+            return;
+        }
+
+        Files.deleteIfExists(partialFile);
+        // journaled before the first byte of the partial file, see above
+        journal.create(localFile, objectKey, size);
+
+        if (isThrottled()) {
+            // downloads of providers can not be throttled, the object is read as a single range instead
+            try (final FileChannel fileChannel = FileChannel.open(partialFile, CREATE, WRITE)) {
+                downloadRange(fileChannel, objectReference, 0, size, operationProgressTracker);
+            }
+        } else {
+            downloadFile(partialFile, objectReference, size, operationProgressTracker);
+        }
+    }
+
+    /**
+     * Downloads an object to a partial file as a single stream, bytes are reported chunk by chunk as they are written.
+     * Providers which transfer a file without streaming it, e.g. by a link, override it.
+     */
+    protected void downloadFile(final Path partialFile,
+                                final RemoteObjectReference objectReference,
+                                final long size,
+                                final OperationProgressTracker operationProgressTracker) throws Exception {
+        try (final FileChannel fileChannel = FileChannel.open(partialFile, CREATE, WRITE)) {
+            downloadRange(fileChannel, objectReference, 0, size, operationProgressTracker);
+        }
+    }
+
+    /**
+     * Downloads an object as byte ranges fetched concurrently, each written by positional writes
+     * to its place in a partial file preallocated to the size of the object. Ranges are journaled
+     * once they are written so only missing ranges are downloaded when an interrupted download is resumed.
+     */
+    protected void downloadFileInRanges(final Path localFile,
+                                        final RemoteObjectReference objectReference,
+                                        final long size,
+                                        final RestoreJournal journal,
+                                        final OperationProgressTracker operationProgressTracker) throws Exception {
+        final Path partialFile = partialFile(localFile);
+        final String objectKey = objectReference.getObjectKey().toString();
+
+        final Optional<Download> journaledDownload = journal.find(localFile);
+
+        final Download download;
+
+        if (journaledDownload.isPresent() && journaledDownload.get().isDownloadOf(objectKey, size, request.rangeSize) && Files.exists(partialFile)) {
+            download = journaledDownload.get();
+            logger.info("Resuming download of \"{}\", {} of {} ranges are downloaded.", objectKey, download.downloadedRanges.size(), (size + request.rangeSize - 1) / request.rangeSize);
+        } else {
+            Files.deleteIfExists(partialFile);
+            // journaled before the file is preallocated, see above
+            download = journal.create(localFile, objectKey, size, request.rangeSize);
+        }
+
+        logger.debug("Downloading {} in {} ranges of {}.", objectReference.canonicalPath, (size + request.rangeSize - 1) / request.rangeSize, request.rangeSize);
+
+        final Semaphore permits = new Semaphore(request.rangeConcurrency);
+        final AtomicReference<Exception> rangeFailure = new AtomicReference<>();
+        final List<Future<?>> ranges = new ArrayList<>();
+
+        try (final FileChannel fileChannel = FileChannel.open(partialFile, CREATE, WRITE)) {
+            if (fileChannel.size() < size) {
+                fileChannel.write(ByteBuffer.allocate(1), size - 1);
+            }
+
+            try {
+                for (long offset = 0; offset < size && rangeFailure.get() == null; offset += request.rangeSize) {
+                    final long rangeOffset = offset;
+                    final long length = Math.min(request.rangeSize, size - offset);
+
+                    if (download.isDownloaded(offset)) {
+                        operationProgressTracker.bytesSkipped(length);
+                        continue;
+                    }
+
+                    permits.acquire();
+
+                    ranges.add(rangeExecutorService.submit(() -> {
+                        try {
+                            downloadRange(fileChannel, objectReference, rangeOffset, length, operationProgressTracker);
+                            fileChannel.force(false);
+                            journal.rangeDownloaded(download, rangeOffset);
+                            return null;
+                        } catch (final Exception ex) {
+                            rangeFailure.compareAndSet(null, ex);
+                            throw ex;
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+
+                for (final Future<?> range : ranges) {
+                    try {
+                        range.get();
+                    } catch (final ExecutionException ex) {
+                        // the first failure is the cause, the others may be just closed channel of the interrupted ranges
+                        throw rangeFailure.get() != null ? rangeFailure.get() : ex;
+                    }
+                }
+            } finally {
+                // stops ranges of a failed or interrupted download, no-op otherwise
+                ranges.forEach(range -> range.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Renames downloaded components of an SSTable from their partial files to their place. Data and TOC go last,
+     * Cassandra discovers an SSTable by them, so it does not see an SSTable until all its other components are in place.
+     * If a restore dies halfway, the next one finds components already in place by their size and downloads the rest.
+     */
+    private void moveIntoPlace(final List<ManifestEntry> components, final RestoreJournal journal) throws IOException {
+        final List<ManifestEntry> orderedComponents = components.stream()
+            .sorted(comparing(component -> placementOrder(component.localFile)))
+            .collect(toList());
+
+        for (final ManifestEntry component : orderedComponents) {
+            final Path partialFile = partialFile(component.localFile);
+
+            // files found already downloaded have no partial file
+            if (Files.exists(partialFile)) {
+                move(partialFile, component.localFile);
+            }
+
+            journal.remove(component.localFile);
+        }
+    }
+
+    /**
+     * Moves a downloaded partial file to its place.
+     */
+    protected void move(final Path partialFile, final Path localFile) throws IOException {
+        Files.move(partialFile, localFile, ATOMIC_MOVE);
+    }
+
+    private static int placementOrder(final Path localFile) {
+        final String fileName = localFile.getFileName().toString();
+
+        if (fileName.endsWith("-TOC.txt")) {
+            return 2;
+        }
+
+        return fileName.endsWith("-Data.db") ? 1 : 0;
+    }
+
+    private void downloadRange(final FileChannel fileChannel,
+                               final RemoteObjectReference objectReference,
+                               final long offset,
+                               final long length,
+                               final OperationProgressTracker operationProgressTracker) throws Exception {
+        if (length == 0) {
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(RANGE_BUFFER_SIZE, length));
+        final long end = offset + length;
+
+        long position = offset;
+
+        try (final InputStream rangeStream = limitBandwidth(readRange(objectReference, offset, length))) {
+            while (position < end) {
+                final int bytesRead = rangeStream.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), end - position));
+
+                if (bytesRead == -1) {
+                    throw new IOException(format("Range of %s from %s of %s bytes has ended after %s bytes.",
+                                                 objectReference.canonicalPath, offset, length, position - offset));
+                }
+
+                limitDiskWrite(bytesRead);
+
+                buffer.clear();
+                buffer.limit(bytesRead);
+
+                while (buffer.hasRemaining()) {
+                    position += fileChannel.write(buffer, position);
+                }
+
+                operationProgressTracker.bytesTransferred(bytesRead);
+                metrics.bytesDownloaded(bytesRead);
+            }
+        }
+    }
+
+    private boolean isThrottled() {
+        return bandwidthLimiter != null || diskWriteRateLimiter != null || diskWriteIopsLimiter != null;
+    }
+
+    private InputStream limitBandwidth(final InputStream inputStream) {
+        return bandwidthLimiter == null ? inputStream : new BandwidthLimitedInputStream(inputStream, bandwidthLimiter);
+    }
+
+    private void limitDiskWrite(final int bytes) throws InterruptedException {
+        if (diskWriteRateLimiter != null) {
+            diskWriteRateLimiter.acquire(bytes);
+        }
+
+        if (diskWriteIopsLimiter != null) {
+            diskWriteIopsLimiter.acquire(1);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            rangeExecutorService.shutdownNow();
+
+            if (metricsFileWriter != null) {
+                metricsFileWriter.close();
+            }
         }
     }
 }
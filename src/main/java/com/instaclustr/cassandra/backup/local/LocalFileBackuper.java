@@ -5,9 +5,12 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
@@ -18,6 +21,8 @@ import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
 
 public class LocalFileBackuper extends Backuper {
 
+    private final LocalFileCopier copier = new LocalFileCopier();
+
     @AssistedInject
     public LocalFileBackuper(final ExecutorServiceSupplier executorServiceSupplier,
                              @Assisted final BackupOperationRequest request) {
@@ -39,10 +44,17 @@ public class LocalFileBackuper extends Backuper {
         return new LocalFileObjectReference(objectKey, resolveRemotePath(objectKey));
     }
 
+    /**
+     * A linked object is not touched, its modification time is the one of the live SSTable component.
+     */
     @Override
     public FreshenResult freshenRemoteObject(final RemoteObjectReference object) throws Exception {
         final File fullRemoteObject = resolveFullRemoteObjectPath(object).toFile();
         if (fullRemoteObject.exists()) {
+            if (LocalFileCopier.isLinked(fullRemoteObject.toPath())) {
+                return FreshenResult.FRESHENED;
+            }
+
             //if we can't update modified time for whatever reason, then we will re-upload
             if (fullRemoteObject.setLastModified(System.currentTimeMillis())) {
                 return FreshenResult.FRESHENED;
@@ -65,6 +77,46 @@ public class LocalFileBackuper extends Backuper {
         }
     }
 
+    /**
+     * Links or copies the file by {@link LocalFileCopier}, unless uploads are limited by bandwidth, which only a stream
+     * can be.
+     */
+    @Override
+    protected void uploadFile(final ManifestEntry manifestEntry,
+                              final RemoteObjectReference object,
+                              final OperationProgressTracker operationProgressTracker) throws Exception {
+        if (request.bandwidth != null) {
+            super.uploadFile(manifestEntry, object, operationProgressTracker);
+            return;
+        }
+
+        try {
+            copier.copy(manifestEntry.localFile, resolveFullRemoteObjectPath(object));
+
+            operationProgressTracker.bytesTransferred(manifestEntry.size);
+            metrics.bytesUploaded(manifestEntry.size);
+        } finally {
+            operationProgressTracker.update();
+        }
+    }
+
+    @Override
+    public void consumeRemoteObjectKeys(final Consumer<Path> consumer) throws Exception {
+        final Path nodePath = request.storageLocation.fileBackupDirectory
+            .resolve(request.storageLocation.bucket)
+            .resolve(request.storageLocation.clusterId)
+            .resolve(request.storageLocation.datacenterId)
+            .resolve(request.storageLocation.nodeId);
+
+        if (!Files.exists(nodePath)) {
+            return;
+        }
+
+        try (final Stream<Path> paths = Files.walk(nodePath)) {
+            paths.filter(Files::isRegularFile).forEach(path -> consumer.accept(nodePath.relativize(path)));
+        }
+    }
+
     @Override
     public void cleanup() throws Exception {
         //No clean up required
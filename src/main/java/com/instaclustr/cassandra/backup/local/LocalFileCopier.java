@@ -0,0 +1,101 @@
+package com.instaclustr.cassandra.backup.local;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.instaclustr.cassandra.backup.impl.SSTableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies files between a node and a local storage without passing their bytes through the JVM.
+ * <p>
+ * Components of SSTables are never modified once they are written, so they are hard linked if the storage is on the same
+ * file system, which takes no time nor space regardless of their size. Other files, e.g. commit logs which are recycled
+ * by Cassandra, and files on other file systems are copied by {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * so the kernel copies them.
+ * <p>
+ * A linked file shares its inode with the SSTable component, see {@link #isLinked(Path)}.
+ */
+class LocalFileCopier {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileCopier.class);
+
+    // pairs of source and target file stores a link has failed between, e.g. different file systems, so a link
+    // is not attempted for every file between them
+    private final Set<List<FileStore>> unlinkableFileStores = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Replaces the target file, if any, by a copy or a link of the source file.
+     */
+    void copy(final Path source, final Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+
+        if (isSSTableComponent(source)) {
+            final List<FileStore> fileStores = Arrays.asList(Files.getFileStore(source), Files.getFileStore(target.getParent()));
+
+            if (!unlinkableFileStores.contains(fileStores)) {
+                try {
+                    Files.createLink(target, source);
+                    return;
+                } catch (final IOException | UnsupportedOperationException ex) {
+                    unlinkableFileStores.add(fileStores);
+                    logger.info("Files can not be hard linked from {} to {}, they are copied instead: {}", fileStores.get(0), fileStores.get(1), ex.toString());
+                }
+            }
+        }
+
+        transfer(source, target);
+    }
+
+    private static void transfer(final Path source, final Path target) throws IOException {
+        try (final FileChannel sourceChannel = FileChannel.open(source, READ);
+            final FileChannel targetChannel = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            final long size = sourceChannel.size();
+
+            long position = 0;
+
+            // a single transfer may copy less than requested
+            while (position < size) {
+                final long transferred = sourceChannel.transferTo(position, size - position, targetChannel);
+
+                if (transferred == 0) {
+                    throw new IOException(format("File %s has ended after %s of %s bytes.", source, position, size));
+                }
+
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * @return true if the file has other hard links, e.g. a backup of an SSTable component linked to the component,
+     * whose modification time is then the modification time of the component as well
+     */
+    static boolean isLinked(final Path file) throws IOException {
+        try {
+            return ((Number) Files.getAttribute(file, "unix:nlink")).intValue() > 1;
+        } catch (final UnsupportedOperationException | IllegalArgumentException ex) {
+            // file systems without links
+            return false;
+        }
+    }
+
+    private static boolean isSSTableComponent(final Path file) {
+        return !SSTableUtils.sstableDescriptor(file).equals(file);
+    }
+}
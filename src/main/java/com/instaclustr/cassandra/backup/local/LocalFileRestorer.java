@@ -2,14 +2,19 @@ package com.instaclustr.cassandra.backup.local;
 
 import static java.util.stream.Collectors.toList;
 
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.function.Consumer;
 
+import com.google.common.io.ByteStreams;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
 import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreCommitLogsOperationRequest;
 import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
@@ -18,6 +23,8 @@ import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
 
 public class LocalFileRestorer extends Restorer {
 
+    private final LocalFileCopier copier = new LocalFileCopier();
+
     @AssistedInject
     public LocalFileRestorer(final ExecutorServiceSupplier executorServiceSupplier,
                              @Assisted final RestoreOperationRequest request) {
@@ -35,16 +42,44 @@ public class LocalFileRestorer extends Restorer {
         return new LocalFileObjectReference(objectKey, resolveRemotePath(objectKey));
     }
 
+    /**
+     * Links or copies the file by {@link LocalFileCopier}. Throttled downloads are read as streams by {@link Restorer} instead.
+     */
     @Override
     public void downloadFile(final Path localFilePath, final RemoteObjectReference objectReference) throws Exception {
-        final Path remoteFilePath = request.storageLocation.fileBackupDirectory
-            .resolve(request.storageLocation.bucket)
-            .resolve(Paths.get(((LocalFileObjectReference) objectReference).canonicalPath));
-
         //Assume that any path passed in to this function is a file
-        Files.createDirectories(localFilePath.getParent());
+        copier.copy(remoteFilePath(objectReference), localFilePath);
+    }
 
-        Files.copy(remoteFilePath, localFilePath);
+    /**
+     * Links or copies the file at once, by the kernel, so its bytes are reported once it is there.
+     */
+    @Override
+    protected void downloadFile(final Path partialFile,
+                                final RemoteObjectReference objectReference,
+                                final long size,
+                                final OperationProgressTracker operationProgressTracker) throws Exception {
+        downloadFile(partialFile, objectReference);
+        operationProgressTracker.bytesTransferred(size);
+        metrics.bytesDownloaded(size);
+    }
+
+    @Override
+    public long getRemoteObjectSize(final RemoteObjectReference objectReference) throws Exception {
+        return Files.size(remoteFilePath(objectReference));
+    }
+
+    @Override
+    protected InputStream readRange(final RemoteObjectReference objectReference, final long offset, final long length) throws Exception {
+        final FileChannel fileChannel = FileChannel.open(remoteFilePath(objectReference));
+
+        return ByteStreams.limit(Channels.newInputStream(fileChannel.position(offset)), length);
+    }
+
+    private Path remoteFilePath(final RemoteObjectReference objectReference) {
+        return request.storageLocation.fileBackupDirectory
+            .resolve(request.storageLocation.bucket)
+            .resolve(Paths.get(((LocalFileObjectReference) objectReference).canonicalPath));
     }
 
     @Override
@@ -0,0 +1,91 @@
+package com.instaclustr.cassandra.backup.sim;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
+import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
+import com.instaclustr.cassandra.backup.impl.backup.Backuper;
+import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
+
+public class SimulatedBackuper extends Backuper {
+
+    private final SimulatedStorage storage;
+
+    @AssistedInject
+    public SimulatedBackuper(final ExecutorServiceSupplier executorServiceSupplier,
+                             final SimulatedStorage storage,
+                             @Assisted final BackupOperationRequest request) {
+        super(request, executorServiceSupplier);
+        this.storage = storage;
+    }
+
+    @AssistedInject
+    public SimulatedBackuper(final ExecutorServiceSupplier executorServiceSupplier,
+                             final SimulatedStorage storage,
+                             @Assisted final BackupCommitLogsOperationRequest request) {
+        super(request, executorServiceSupplier);
+        this.storage = storage;
+    }
+
+    @Override
+    public RemoteObjectReference objectKeyToRemoteReference(final Path objectKey) {
+        return new SimulatedObjectReference(objectKey, resolveRemotePath(objectKey));
+    }
+
+    @Override
+    public FreshenResult freshenRemoteObject(final RemoteObjectReference object) throws Exception {
+        if (storage.touch(request.storageLocation.bucket, object.canonicalPath)) {
+            return FreshenResult.FRESHENED;
+        }
+
+        return FreshenResult.UPLOAD_REQUIRED;
+    }
+
+    @Override
+    public void uploadFile(final long size,
+                           final InputStream localFileStream,
+                           final RemoteObjectReference object,
+                           final OperationProgressTracker operationProgressTracker) throws Exception {
+        try {
+            storage.put(request.storageLocation.bucket, object.canonicalPath, localFileStream);
+        } finally {
+            operationProgressTracker.update();
+        }
+    }
+
+    @Override
+    public void consumeRemoteObjectKeys(final Consumer<Path> consumer) throws Exception {
+        final Path nodePath = Paths.get(request.storageLocation.clusterId)
+            .resolve(request.storageLocation.datacenterId)
+            .resolve(request.storageLocation.nodeId);
+
+        storage.list(request.storageLocation.bucket, nodePath.toString(), key -> consumer.accept(nodePath.relativize(Paths.get(key))));
+    }
+
+    @Override
+    protected boolean isThrottleResponse(final Throwable throwable) {
+        return SimulatedModule.isThrottleResponse(throwable);
+    }
+
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        // responses of the storage are I/O failures as well, so they are told apart first
+        if (SimulatedModule.isStorageResponse(throwable)) {
+            return SimulatedModule.isRetryable(throwable);
+        }
+
+        return super.isRetryable(throwable);
+    }
+
+    @Override
+    public void cleanup() {
+        // Nothing to cleanup
+    }
+}
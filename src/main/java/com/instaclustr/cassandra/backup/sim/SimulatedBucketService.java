@@ -0,0 +1,57 @@
+package com.instaclustr.cassandra.backup.sim;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import com.instaclustr.cassandra.backup.impl.BucketService;
+import com.instaclustr.cassandra.backup.impl.backup.BackupCommitLogsOperationRequest;
+import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
+import com.instaclustr.cassandra.backup.sim.SimulatedModule.SimulatedModuleException;
+
+public class SimulatedBucketService implements BucketService {
+
+    private final SimulatedStorage storage;
+
+    @AssistedInject
+    public SimulatedBucketService(final SimulatedStorage storage,
+                                  @Assisted final BackupOperationRequest request) {
+        this.storage = storage;
+    }
+
+    @AssistedInject
+    public SimulatedBucketService(final SimulatedStorage storage,
+                                  @Assisted final BackupCommitLogsOperationRequest request) {
+        this.storage = storage;
+    }
+
+    @Override
+    public boolean doesExist(final String bucketName) {
+        return storage.bucketExists(bucketName);
+    }
+
+    @Override
+    public void create(final String bucketName) {
+        try {
+            storage.createBucket(bucketName);
+        } catch (final IOException ex) {
+            throw new SimulatedModuleException(format("Unable to create bucket %s", bucketName), ex);
+        }
+    }
+
+    @Override
+    public void delete(final String bucketName) {
+        try {
+            storage.deleteBucket(bucketName);
+        } catch (final IOException ex) {
+            throw new SimulatedModuleException(format("Unable to delete bucket %s", bucketName), ex);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+
+    }
+}
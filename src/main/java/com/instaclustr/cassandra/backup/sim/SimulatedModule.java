@@ -0,0 +1,61 @@
+package com.instaclustr.cassandra.backup.sim;
+
+import static com.instaclustr.cassandra.backup.guice.BackupRestoreBindings.installBindings;
+
+import com.google.common.base.Throwables;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+
+/**
+ * Storage for load testing, see {@link SimulatedStorage}. Locations are like sim://bucket/cluster/dc/node.
+ */
+public class SimulatedModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        installBindings(binder(),
+                        "sim",
+                        SimulatedRestorer.class,
+                        SimulatedBackuper.class,
+                        SimulatedBucketService.class);
+    }
+
+    /**
+     * @return true if the simulated storage responded it is throttling requests (503 SlowDown)
+     */
+    static boolean isThrottleResponse(final Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream()
+            .filter(SimulatedStorageException.class::isInstance)
+            .anyMatch(cause -> ((SimulatedStorageException) cause).isThrottle());
+    }
+
+    /**
+     * @return true if the simulated storage responded with a failure of a request, rather than a local file failed
+     */
+    static boolean isStorageResponse(final Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream().anyMatch(SimulatedStorageException.class::isInstance);
+    }
+
+    /**
+     * @return true if the simulated storage failed on its side (5xx), its other responses, e.g. 404, are final
+     */
+    static boolean isRetryable(final Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream()
+            .filter(SimulatedStorageException.class::isInstance)
+            .anyMatch(cause -> ((SimulatedStorageException) cause).getStatusCode() >= 500);
+    }
+
+    @Provides
+    @Singleton
+    SimulatedStorage provideSimulatedStorage() {
+        return new SimulatedStorage(SimulatedStorage.Configuration.fromEnvironment());
+    }
+
+    public static final class SimulatedModuleException extends RuntimeException {
+
+        public SimulatedModuleException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.instaclustr.cassandra.backup.sim;
+
+import java.nio.file.Path;
+
+import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+
+public class SimulatedObjectReference extends RemoteObjectReference {
+
+    public SimulatedObjectReference(final Path objectKey, final String canonicalPath) {
+        super(objectKey, canonicalPath);
+    }
+
+    @Override
+    public Path getObjectKey() {
+        return objectKey;
+    }
+}
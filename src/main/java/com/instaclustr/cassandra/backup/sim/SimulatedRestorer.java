@@ -0,0 +1,91 @@
+package com.instaclustr.cassandra.backup.sim;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreCommitLogsOperationRequest;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
+import com.instaclustr.cassandra.backup.impl.restore.Restorer;
+import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
+
+public class SimulatedRestorer extends Restorer {
+
+    private final SimulatedStorage storage;
+
+    @AssistedInject
+    public SimulatedRestorer(final ExecutorServiceSupplier executorServiceSupplier,
+                             final SimulatedStorage storage,
+                             @Assisted final RestoreOperationRequest request) {
+        super(request, executorServiceSupplier);
+        this.storage = storage;
+    }
+
+    @AssistedInject
+    public SimulatedRestorer(final ExecutorServiceSupplier executorServiceSupplier,
+                             final SimulatedStorage storage,
+                             @Assisted final RestoreCommitLogsOperationRequest request) {
+        super(request, executorServiceSupplier);
+        this.storage = storage;
+    }
+
+    @Override
+    public RemoteObjectReference objectKeyToRemoteReference(final Path objectKey) {
+        return new SimulatedObjectReference(objectKey, resolveRemotePath(objectKey));
+    }
+
+    @Override
+    public void downloadFile(final Path localFilePath, final RemoteObjectReference objectReference) throws Exception {
+        Files.createDirectories(localFilePath.getParent());
+
+        try (final InputStream inputStream = storage.read(request.storageLocation.bucket, objectReference.canonicalPath, 0, Long.MAX_VALUE)) {
+            Files.copy(inputStream, localFilePath, REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public long getRemoteObjectSize(final RemoteObjectReference objectReference) throws Exception {
+        return storage.size(request.storageLocation.bucket, objectReference.canonicalPath);
+    }
+
+    @Override
+    protected InputStream readRange(final RemoteObjectReference objectReference, final long offset, final long length) throws Exception {
+        return storage.read(request.storageLocation.bucket, objectReference.canonicalPath, offset, length);
+    }
+
+    @Override
+    public void consumeFiles(final RemoteObjectReference prefix, final Consumer<RemoteObjectReference> consumer) throws Exception {
+        final Path nodePath = Paths.get(request.storageLocation.clusterId)
+            .resolve(request.storageLocation.datacenterId)
+            .resolve(request.storageLocation.nodeId);
+
+        storage.list(request.storageLocation.bucket, prefix.canonicalPath, key -> consumer.accept(objectKeyToRemoteReference(nodePath.relativize(Paths.get(key)))));
+    }
+
+    @Override
+    protected boolean isThrottleResponse(final Throwable throwable) {
+        return SimulatedModule.isThrottleResponse(throwable);
+    }
+
+    @Override
+    protected boolean isRetryable(final Throwable throwable) {
+        // responses of the storage are I/O failures as well, so they are told apart first
+        if (SimulatedModule.isStorageResponse(throwable)) {
+            return SimulatedModule.isRetryable(throwable);
+        }
+
+        return super.isRetryable(throwable);
+    }
+
+    @Override
+    public void cleanup() {
+        // Nothing to cleanup
+    }
+}
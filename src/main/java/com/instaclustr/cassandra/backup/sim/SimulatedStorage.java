@@ -0,0 +1,405 @@
+package com.instaclustr.cassandra.backup.sim;
+
+import static com.instaclustr.cassandra.backup.sim.SimulatedStorageException.INTERNAL_ERROR;
+import static com.instaclustr.cassandra.backup.sim.SimulatedStorageException.NOT_FOUND;
+import static com.instaclustr.cassandra.backup.sim.SimulatedStorageException.SLOW_DOWN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimitedInputStream;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimiter;
+import com.instaclustr.cassandra.backup.impl.DataSizeTypeConverter;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Object storage living in this process, for load testing of backups and restores without a cloud account.
+ * Objects are either stored in a directory or their content is discarded and only their sizes are kept, in which
+ * case they read back as zeros. Every request is delayed by a configured latency and may be refused with
+ * 503 SlowDown or fail with 500 InternalError, the same way a real storage would, and transfers are capped
+ * per connection and in aggregate.
+ * <p>
+ * Whether a request fails depends only on the seed, the request, the object and the number of the attempt since
+ * the last successful one, so a run can be repeated with the very same failures.
+ */
+public class SimulatedStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedStorage.class);
+
+    private static final String UPLOAD_SUFFIX = ".sim-upload";
+
+    private final Configuration configuration;
+    private final HashFunction hashFunction;
+    private final BandwidthLimiter bandwidthLimiter;
+
+    // sizes of objects when their content is discarded
+    private final ConcurrentMap<String, Long> objects = new ConcurrentHashMap<>();
+    // attempts of requests which have failed so far, by request and object, dropped once the request succeeds
+    private final ConcurrentMap<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final Set<String> buckets = ConcurrentHashMap.newKeySet();
+
+    private long requestsWindow;
+    private int requestsInWindow;
+
+    public SimulatedStorage(final Configuration configuration) {
+        this.configuration = configuration;
+        this.hashFunction = Hashing.murmur3_128((int) configuration.seed);
+        this.bandwidthLimiter = configuration.bandwidth == null ? null : new BandwidthLimiter(configuration.bandwidth, null);
+
+        logger.info("Simulating storage {}", configuration);
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public boolean bucketExists(final String bucket) {
+        if (configuration.directory == null) {
+            return buckets.contains(bucket);
+        }
+
+        return Files.isDirectory(configuration.directory.resolve(bucket));
+    }
+
+    public void createBucket(final String bucket) throws IOException {
+        if (configuration.directory == null) {
+            buckets.add(bucket);
+            return;
+        }
+
+        Files.createDirectories(configuration.directory.resolve(bucket));
+    }
+
+    public void deleteBucket(final String bucket) throws IOException {
+        if (configuration.directory == null) {
+            buckets.remove(bucket);
+            objects.keySet().removeIf(name -> name.startsWith(objectName(bucket, "")));
+            return;
+        }
+
+        FileUtils.deleteDirectory(configuration.directory.resolve(bucket).toFile());
+    }
+
+    public void put(final String bucket, final String key, final InputStream inputStream) throws IOException, InterruptedException {
+        request("PUT", bucket, key);
+
+        final InputStream limitedStream = limit(inputStream);
+
+        if (configuration.directory == null) {
+            objects.put(objectName(bucket, key), ByteStreams.exhaust(limitedStream));
+            return;
+        }
+
+        final Path object = objectPath(bucket, key);
+        final Path upload = object.resolveSibling(object.getFileName() + UPLOAD_SUFFIX);
+
+        Files.createDirectories(object.getParent());
+
+        try {
+            Files.copy(limitedStream, upload, REPLACE_EXISTING);
+            // an object is either there as a whole or not at all
+            Files.move(upload, object, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    /**
+     * Updates the modification time of an object, as a copy of an object to itself does.
+     *
+     * @return false if there is no such object
+     */
+    public boolean touch(final String bucket, final String key) throws IOException, InterruptedException {
+        request("COPY", bucket, key);
+
+        if (configuration.directory == null) {
+            return objects.containsKey(objectName(bucket, key));
+        }
+
+        final Path object = objectPath(bucket, key);
+
+        if (!Files.isRegularFile(object)) {
+            return false;
+        }
+
+        Files.setLastModifiedTime(object, FileTime.fromMillis(System.currentTimeMillis()));
+
+        return true;
+    }
+
+    public long size(final String bucket, final String key) throws IOException, InterruptedException {
+        request("HEAD", bucket, key);
+
+        return objectSize(bucket, key);
+    }
+
+    public InputStream read(final String bucket, final String key, final long offset, final long length) throws IOException, InterruptedException {
+        request("GET", bucket, key);
+
+        final long rangeLength = Math.max(0, Math.min(length, objectSize(bucket, key) - offset));
+
+        if (configuration.directory == null) {
+            return limit(ByteStreams.limit(new ZeroInputStream(), rangeLength));
+        }
+
+        final FileChannel fileChannel = FileChannel.open(objectPath(bucket, key));
+
+        return limit(ByteStreams.limit(Channels.newInputStream(fileChannel.position(offset)), rangeLength));
+    }
+
+    /**
+     * Lists keys of objects under a prefix, which is a path as the keys of this tool are.
+     */
+    public void list(final String bucket, final String prefix, final Consumer<String> consumer) throws IOException, InterruptedException {
+        request("LIST", bucket, prefix);
+
+        if (configuration.directory == null) {
+            // a prefix is a directory, "node1" does not list "node10/..."
+            final String bucketPrefix = objectName(bucket, prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + '/');
+
+            objects.keySet().stream()
+                .filter(name -> name.startsWith(bucketPrefix))
+                .sorted()
+                .forEach(name -> consumer.accept(name.substring(bucket.length() + 1)));
+
+            return;
+        }
+
+        final Path bucketPath = configuration.directory.resolve(bucket);
+        final Path prefixPath = bucketPath.resolve(prefix);
+
+        if (!Files.isDirectory(prefixPath)) {
+            return;
+        }
+
+        try (final Stream<Path> paths = Files.walk(prefixPath)) {
+            paths.filter(Files::isRegularFile)
+                .filter(path -> !path.getFileName().toString().endsWith(UPLOAD_SUFFIX))
+                .forEach(path -> consumer.accept(bucketPath.relativize(path).toString()));
+        }
+    }
+
+    /**
+     * Delays a request by the configured latency and decides whether it fails.
+     */
+    private void request(final String request, final String bucket, final String key) throws SimulatedStorageException, InterruptedException {
+        final long latency = configuration.latencyMillis
+            + (configuration.latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(configuration.latencyJitterMillis + 1) : 0);
+
+        if (latency > 0) {
+            TimeUnit.MILLISECONDS.sleep(latency);
+        }
+
+        if (overRequestRate()) {
+            throw new SimulatedStorageException(SLOW_DOWN, "SlowDown", key);
+        }
+
+        final String attempt = request + ' ' + objectName(bucket, key);
+        final int number = attempts.computeIfAbsent(attempt, a -> new AtomicInteger()).incrementAndGet();
+
+        if (draw(attempt, number, "throttle") < configuration.throttleProbability) {
+            throw new SimulatedStorageException(SLOW_DOWN, "SlowDown", key);
+        }
+
+        if (draw(attempt, number, "failure") < configuration.failureProbability) {
+            throw new SimulatedStorageException(INTERNAL_ERROR, "InternalError", key);
+        }
+
+        attempts.remove(attempt);
+    }
+
+    private long objectSize(final String bucket, final String key) throws IOException {
+        if (configuration.directory == null) {
+            final Long size = objects.get(objectName(bucket, key));
+
+            if (size == null) {
+                throw new SimulatedStorageException(NOT_FOUND, "NoSuchKey", key);
+            }
+
+            return size;
+        }
+
+        final Path object = objectPath(bucket, key);
+
+        if (!Files.isRegularFile(object)) {
+            throw new SimulatedStorageException(NOT_FOUND, "NoSuchKey", key);
+        }
+
+        return Files.size(object);
+    }
+
+    private synchronized boolean overRequestRate() {
+        if (configuration.requestsPerSecond == null) {
+            return false;
+        }
+
+        final long window = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+
+        if (window != requestsWindow) {
+            requestsWindow = window;
+            requestsInWindow = 0;
+        }
+
+        return ++requestsInWindow > configuration.requestsPerSecond;
+    }
+
+    /**
+     * @return number in [0, 1) which is the same for the same attempt of a request
+     */
+    private double draw(final String attempt, final int number, final String outcome) {
+        final long hash = hashFunction.newHasher()
+            .putString(attempt, UTF_8)
+            .putInt(number)
+            .putString(outcome, UTF_8)
+            .hash()
+            .asLong();
+
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private InputStream limit(final InputStream inputStream) {
+        InputStream limitedStream = inputStream;
+
+        if (configuration.connectionBandwidth != null) {
+            limitedStream = new BandwidthLimitedInputStream(limitedStream, new BandwidthLimiter(configuration.connectionBandwidth, null));
+        }
+
+        if (bandwidthLimiter != null) {
+            limitedStream = new BandwidthLimitedInputStream(limitedStream, bandwidthLimiter);
+        }
+
+        return limitedStream;
+    }
+
+    private Path objectPath(final String bucket, final String key) {
+        return configuration.directory.resolve(bucket).resolve(key);
+    }
+
+    private static String objectName(final String bucket, final String key) {
+        return bucket + '/' + key;
+    }
+
+    private static class ZeroInputStream extends InputStream {
+
+        @Override
+        public int read() {
+            return 0;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            Arrays.fill(b, off, off + len, (byte) 0);
+            return len;
+        }
+    }
+
+    /**
+     * Behaviour of the simulated storage. It is read from system properties or environment variables of the same
+     * name, the same way credentials of the other storages are, since there is nowhere else to configure a storage.
+     */
+    public static class Configuration {
+
+        public static final String DIRECTORY = "SIM_DIRECTORY";
+        public static final String LATENCY_MS = "SIM_LATENCY_MS";
+        public static final String LATENCY_JITTER_MS = "SIM_LATENCY_JITTER_MS";
+        public static final String CONNECTION_BANDWIDTH = "SIM_CONNECTION_BANDWIDTH";
+        public static final String BANDWIDTH = "SIM_BANDWIDTH";
+        public static final String REQUESTS_PER_SECOND = "SIM_REQUESTS_PER_SECOND";
+        public static final String THROTTLE_PROBABILITY = "SIM_THROTTLE_PROBABILITY";
+        public static final String FAILURE_PROBABILITY = "SIM_FAILURE_PROBABILITY";
+        public static final String SEED = "SIM_SEED";
+
+        // directory objects are stored in, if null, their content is discarded
+        public Path directory;
+
+        public long latencyMillis;
+
+        public long latencyJitterMillis;
+
+        // bytes per second of a single transfer
+        public Long connectionBandwidth;
+
+        // bytes per second of all transfers together
+        public Long bandwidth;
+
+        // requests over this number in a second are refused with 503 SlowDown
+        public Integer requestsPerSecond;
+
+        public double throttleProbability;
+
+        public double failureProbability;
+
+        public long seed;
+
+        public static Configuration fromEnvironment() {
+            final DataSizeTypeConverter sizeConverter = new DataSizeTypeConverter();
+            final Configuration configuration = new Configuration();
+
+            final String directory = value(DIRECTORY);
+            final String connectionBandwidth = value(CONNECTION_BANDWIDTH);
+            final String bandwidth = value(BANDWIDTH);
+            final String requestsPerSecond = value(REQUESTS_PER_SECOND);
+
+            configuration.directory = directory == null ? null : Paths.get(directory);
+            configuration.latencyMillis = Long.parseLong(value(LATENCY_MS, "0"));
+            configuration.latencyJitterMillis = Long.parseLong(value(LATENCY_JITTER_MS, "0"));
+            configuration.connectionBandwidth = sizeConverter.convert(connectionBandwidth);
+            configuration.bandwidth = sizeConverter.convert(bandwidth);
+            configuration.requestsPerSecond = requestsPerSecond == null ? null : Integer.parseInt(requestsPerSecond);
+            configuration.throttleProbability = Double.parseDouble(value(THROTTLE_PROBABILITY, "0"));
+            configuration.failureProbability = Double.parseDouble(value(FAILURE_PROBABILITY, "0"));
+            configuration.seed = Long.parseLong(value(SEED, "0"));
+
+            return configuration;
+        }
+
+        private static String value(final String name) {
+            return value(name, null);
+        }
+
+        private static String value(final String name, final String defaultValue) {
+            final String value = System.getProperty(name, System.getenv(name));
+
+            return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("directory", directory)
+                .add("latencyMillis", latencyMillis)
+                .add("latencyJitterMillis", latencyJitterMillis)
+                .add("connectionBandwidth", connectionBandwidth)
+                .add("bandwidth", bandwidth)
+                .add("requestsPerSecond", requestsPerSecond)
+                .add("throttleProbability", throttleProbability)
+                .add("failureProbability", failureProbability)
+                .add("seed", seed)
+                .toString();
+        }
+    }
+}
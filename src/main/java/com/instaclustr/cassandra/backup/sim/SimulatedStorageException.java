@@ -0,0 +1,30 @@
+package com.instaclustr.cassandra.backup.sim;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+
+/**
+ * Error response of the simulated storage, modelled on responses of S3.
+ */
+public class SimulatedStorageException extends IOException {
+
+    public static final int NOT_FOUND = 404;
+    public static final int INTERNAL_ERROR = 500;
+    public static final int SLOW_DOWN = 503;
+
+    private final int statusCode;
+
+    public SimulatedStorageException(final int statusCode, final String errorCode, final String objectKey) {
+        super(format("%s %s for %s", statusCode, errorCode, objectKey));
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isThrottle() {
+        return statusCode == SLOW_DOWN;
+    }
+}
@@ -1,24 +1,36 @@
 package com.instaclustr.cassandra.backup;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import com.instaclustr.cassandra.CassandraVersion;
+import com.instaclustr.cassandra.backup.impl.ComponentBundle;
 import com.instaclustr.cassandra.backup.impl.ManifestEntry;
 import com.instaclustr.cassandra.backup.impl.SSTableUtils;
+import com.instaclustr.cassandra.backup.impl.backup.IncrementalManifestGenerator;
+import com.instaclustr.cassandra.backup.impl.backup.ManifestWriter;
+import com.instaclustr.cassandra.backup.impl.backup.SnapshotManifestGenerator;
+import org.apache.commons.io.FileUtils;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeTest;
@@ -138,6 +150,131 @@ public class BackupRestoreTest {
         }
     }
 
+    @Test(description = "Test that snapshot manifest is generated in parallel, in deterministic order and per table")
+    public void testSnapshotManifestGenerator() throws Exception {
+        hardResetTestDirs();
+        for (TestFileConfig testFileConfig : versionsToTest) {
+            final Path dataPath = tempDirs.get(testFileConfig.cassandraVersion.toString()).resolve("data");
+
+            final List<List<ManifestEntry>> tableManifests = Collections.synchronizedList(new ArrayList<>());
+
+            final SnapshotManifestGenerator generator = new SnapshotManifestGenerator(dataPath, testSnapshotName, tableManifests::add, 4);
+
+            final List<ManifestEntry> manifest = generator.generate();
+
+            assertEquals(generator.getSnapshotDirectories(), 2);
+            assertEquals(tableManifests.size(), 2);
+            assertEquals(manifest.size(), tableManifests.stream().mapToInt(List::size).sum());
+
+            final long table1Files;
+            try (final Stream<Path> files = Files.list(dataPath.resolve("keyspace1/table1/snapshots").resolve(testSnapshotName))) {
+                table1Files = files.count();
+            }
+
+            // entries of table1 go first, all of them
+            for (int i = 0; i < manifest.size(); i++) {
+                assertEquals(manifest.get(i).objectKey.startsWith(Paths.get("data/keyspace1/table1")), i < table1Files);
+            }
+
+            final List<Path> objectKeys = manifest.stream().map(e -> e.objectKey).collect(Collectors.toList());
+
+            assertEquals(new SnapshotManifestGenerator(dataPath, testSnapshotName, entries -> {}, 1).generate().stream().map(e -> e.objectKey).collect(Collectors.toList()),
+                         objectKeys);
+
+            // manifest file written as tables are walked is the same whatever order tables finish in
+            final Path manifestDirectory = Files.createTempDirectory("manifests");
+
+            try {
+                assertEquals(Files.readAllBytes(writeManifest(dataPath, manifestDirectory.resolve("parallelism-4"), 4)),
+                             Files.readAllBytes(writeManifest(dataPath, manifestDirectory.resolve("parallelism-1"), 1)));
+            } finally {
+                FileUtils.deleteDirectory(manifestDirectory.toFile());
+            }
+        }
+    }
+
+    private Path writeManifest(final Path dataPath, final Path manifestFilePath, final int parallelism) throws IOException {
+        try (final ManifestWriter manifestWriter = new ManifestWriter(manifestFilePath)) {
+            new SnapshotManifestGenerator(dataPath, testSnapshotName, entries -> entries.forEach(manifestWriter::write), parallelism).consume();
+        }
+
+        return manifestFilePath;
+    }
+
+    @Test(description = "Test that small components of an SSTable are packed into a bundle which unpacks to the same files")
+    public void testSSTableComponentsArePacked() throws Exception {
+        for (TestFileConfig testFileConfig : versionsToTest) {
+            final Path backupRoot = Paths.get("/backupRoot/keyspace1");
+            final Path table1Path = tempDirs.get(testFileConfig.cassandraVersion.toString()).resolve("data/keyspace1/table1");
+            final long packThreshold = 1024L;
+
+            final List<ManifestEntry> manifest = SSTableUtils.ssTableManifest(table1Path, backupRoot.resolve(table1Path.getFileName()), packThreshold)
+                .collect(Collectors.toList());
+
+            final List<ManifestEntry> bundles = manifest.stream().filter(e -> e.type == ManifestEntry.Type.BUNDLE).collect(Collectors.toList());
+
+            // all components of test SSTables are below the threshold
+            assertEquals(bundles.size(), manifest.size());
+
+            for (final ManifestEntry bundle : bundles) {
+                assertTrue(bundle.objectKey.getFileName().toString().endsWith("-Bundle-" + packThreshold + ".db"));
+                assertEquals(bundle.size, ComponentBundle.size(bundle.components));
+
+                final List<String> unpacked = new ArrayList<>();
+
+                try (final InputStream bundleStream = ComponentBundle.open(bundle.components)) {
+                    ComponentBundle.unpack(bundleStream, (fileName, size, content) -> {
+                        final Path localFile = table1Path.resolve(fileName);
+
+                        assertEquals(size, Files.size(localFile));
+                        assertEquals(ByteStreams.toByteArray(content), Files.readAllBytes(localFile));
+
+                        unpacked.add(fileName);
+                    });
+                }
+
+                assertEquals(unpacked, bundle.components.stream().map(e -> e.localFile.getFileName().toString()).collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @Test(description = "Test that complete SSTables of incremental backups are listed under the same keys as in a snapshot")
+    public void testIncrementalManifestGenerator() throws Exception {
+        for (TestFileConfig testFileConfig : versionsToTest) {
+            final Path dataPath = tempDirs.get(testFileConfig.cassandraVersion.toString()).resolve("data");
+            final Path backupsPath = dataPath.resolve("keyspace1/table1/backups");
+            final String prefix = testFileConfig.getSstablePrefix("keyspace1", "table1");
+
+            try {
+                Files.createDirectories(backupsPath);
+
+                // all components listed in TOC are linked
+                Files.write(backupsPath.resolve(prefix + "-4-big-TOC.txt"), ImmutableList.of("Data.db", "Digest.crc32", "TOC.txt"));
+                Files.write(backupsPath.resolve(prefix + "-4-big-Data.db"), BackupRestoreTestUtils.testData);
+                Files.write(backupsPath.resolve(prefix + "-4-big-Digest.crc32"), testFileConfig.getChecksum("keyspace1", "table1").getBytes());
+
+                // Index.db is not linked yet
+                Files.write(backupsPath.resolve(prefix + "-5-big-TOC.txt"), ImmutableList.of("Data.db", "Index.db", "TOC.txt"));
+                Files.write(backupsPath.resolve(prefix + "-5-big-Data.db"), BackupRestoreTestUtils.testData);
+
+                final List<ManifestEntry> manifest = new IncrementalManifestGenerator(dataPath, ImmutableList.of(), null, null, false).generate();
+
+                assertEquals(manifest.stream().map(e -> e.objectKey.getFileName().toString()).sorted().collect(Collectors.toList()),
+                             ImmutableList.of(prefix + "-4-big-Data.db", prefix + "-4-big-Digest.crc32", prefix + "-4-big-TOC.txt"));
+
+                for (final ManifestEntry entry : manifest) {
+                    assertEquals(entry.objectKey.getParent(), Paths.get("data/keyspace1/table1/4-" + testFileConfig.getChecksum("keyspace1", "table1")));
+                    assertEquals(entry.localFile.getParent(), backupsPath);
+                }
+
+                assertTrue(new IncrementalManifestGenerator(dataPath, ImmutableList.of("keyspace2"), null, null, false).generate().isEmpty());
+                assertTrue(new IncrementalManifestGenerator(dataPath, ImmutableList.of("keyspace1"), "table2", null, false).generate().isEmpty());
+                assertFalse(new IncrementalManifestGenerator(dataPath, ImmutableList.of("keyspace1"), "table1", null, false).generate().isEmpty());
+            } finally {
+                FileUtils.deleteDirectory(backupsPath.toFile());
+            }
+        }
+    }
 
     @AfterClass(alwaysRun = true)
     public void cleanUp() throws IOException {
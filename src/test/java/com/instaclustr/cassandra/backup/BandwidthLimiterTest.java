@@ -0,0 +1,84 @@
+package com.instaclustr.cassandra.backup;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.io.ByteStreams;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimitedInputStream;
+import com.instaclustr.cassandra.backup.impl.BandwidthLimiter;
+import com.instaclustr.cassandra.backup.impl.DataSizeTypeConverter;
+import org.testng.annotations.Test;
+import picocli.CommandLine;
+
+public class BandwidthLimiterTest {
+
+    @Test
+    public void limiterIsSharedByConcurrentStreams() throws Exception {
+        final int bytesPerSecond = 1024 * 1024;
+        final int streams = 4;
+        final int streamSize = bytesPerSecond / 2;
+
+        // burst of 64KB, 4 x 512KB = 2MB over 1MB/s has to take at least ~1.9s in total
+        final BandwidthLimiter limiter = new BandwidthLimiter(bytesPerSecond, 64L * 1024);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(streams);
+
+        try {
+            final long start = System.nanoTime();
+
+            final List<Future<Long>> results = new ArrayList<>();
+
+            for (int i = 0; i < streams; i++) {
+                results.add(executorService.submit(() -> {
+                    try (final InputStream s = new BandwidthLimitedInputStream(new ByteArrayInputStream(new byte[streamSize]), limiter)) {
+                        return ByteStreams.exhaust(s);
+                    }
+                }));
+            }
+
+            for (final Future<Long> result : results) {
+                assertEquals(result.get().longValue(), (long) streamSize);
+            }
+
+            final long elapsedMillis = NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(elapsedMillis >= 1800, "Aggregate bandwidth was not limited, took " + elapsedMillis + "ms");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void dataSizeConversion() {
+        final DataSizeTypeConverter converter = new DataSizeTypeConverter();
+
+        assertEquals(converter.convert("512").longValue(), 512L);
+        assertEquals(converter.convert("64KB").longValue(), 64L * 1024);
+        assertEquals(converter.convert("16MB").longValue(), 16L * 1024 * 1024);
+        assertEquals(converter.convert("1g").longValue(), 1024L * 1024 * 1024);
+    }
+
+    @Test
+    public void dataSizeOverflowIsRejected() {
+        final DataSizeTypeConverter converter = new DataSizeTypeConverter();
+
+        for (final String size : new String[]{"8388608TB", "99999999999999999999"}) {
+            try {
+                converter.convert(size);
+                fail("Size " + size + " overflowed.");
+            } catch (final CommandLine.TypeConversionException ex) {
+                // expected
+            }
+        }
+    }
+}
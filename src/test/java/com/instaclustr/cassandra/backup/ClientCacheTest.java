@@ -0,0 +1,117 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Ticker;
+import com.instaclustr.cassandra.backup.impl.ClientCache;
+import com.instaclustr.cassandra.backup.impl.ClientCache.Lease;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ClientCacheTest {
+
+    private final AtomicInteger built = new AtomicInteger();
+    private final List<String> shutDown = new ArrayList<>();
+
+    private long nanos;
+    private ClientCache<String, String> cache;
+
+    @BeforeMethod
+    public void setup() {
+        built.set(0);
+        shutDown.clear();
+        nanos = 0;
+
+        cache = new ClientCache<>("test", shutDown::add, 10, 60, TimeUnit.MINUTES, new Ticker() {
+            @Override
+            public long read() {
+                return nanos;
+            }
+        });
+    }
+
+    @Test
+    public void clientIsSharedByKey() {
+        try (final Lease<String> first = lease("bucket-a");
+            final Lease<String> second = lease("bucket-a");
+            final Lease<String> other = lease("bucket-b")) {
+            assertEquals(first.get(), second.get());
+            assertFalse(first.get().equals(other.get()));
+        }
+
+        assertEquals(built.get(), 2);
+        assertTrue(shutDown.isEmpty());
+    }
+
+    @Test
+    public void idleClientIsShutDown() {
+        lease("bucket-a").close();
+
+        advance(5);
+        cache.evictIdle();
+        assertEquals(cache.size(), 1);
+
+        // a lease makes the client busy again, its idle time starts once it is closed
+        lease("bucket-a").close();
+        advance(9);
+        cache.evictIdle();
+        assertEquals(cache.size(), 1);
+
+        advance(1);
+        cache.evictIdle();
+        assertEquals(cache.size(), 0);
+        assertEquals(shutDown.size(), 1);
+        assertEquals(built.get(), 1);
+    }
+
+    @Test
+    public void leasedClientIsNotShutDown() {
+        final Lease<String> lease = lease("bucket-a");
+
+        advance(30);
+        cache.evictIdle();
+
+        assertEquals(cache.size(), 1);
+        assertTrue(shutDown.isEmpty());
+
+        lease.close();
+        // closing a lease twice does not release the client twice
+        lease.close();
+
+        assertTrue(shutDown.isEmpty());
+    }
+
+    @Test
+    public void oldClientIsRebuiltOnceReleased() {
+        final Lease<String> old = lease("bucket-a");
+
+        advance(60);
+
+        try (final Lease<String> fresh = lease("bucket-a")) {
+            assertFalse(fresh.get().equals(old.get()));
+            // the old client is still leased, so it is not shut down yet
+            assertTrue(shutDown.isEmpty());
+
+            old.close();
+            assertEquals(shutDown.size(), 1);
+            assertEquals(shutDown.get(0), old.get());
+        }
+
+        assertEquals(cache.size(), 1);
+    }
+
+    private Lease<String> lease(final String key) {
+        return cache.lease(key, () -> key + "-" + built.incrementAndGet());
+    }
+
+    private void advance(final long minutes) {
+        nanos += TimeUnit.MINUTES.toNanos(minutes);
+    }
+}
@@ -0,0 +1,98 @@
+package com.instaclustr.cassandra.backup;
+
+import static com.instaclustr.cassandra.backup.impl.ConcurrencyLimiter.TrafficClass.LARGE;
+import static com.instaclustr.cassandra.backup.impl.ConcurrencyLimiter.TrafficClass.SMALL;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.instaclustr.cassandra.backup.impl.ConcurrencyLimiter;
+import com.instaclustr.cassandra.backup.impl.ConcurrencyLimiter.Permit;
+import org.testng.annotations.Test;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long LARGE_OBJECT = ConcurrencyLimiter.SMALL_OBJECT_SIZE;
+
+    @Test
+    public void limitGrowsWhileThroughputImprovesAndHalvesOnThrottling() throws Exception {
+        final AtomicLong congestionSignals = new AtomicLong();
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, congestionSignals::get);
+
+        assertEquals(limiter.getLimit(LARGE), 4);
+
+        // all permits in use for a whole window and throughput better than before
+        final List<Permit> permits = acquire(limiter, 4);
+
+        TimeUnit.MILLISECONDS.sleep(1100);
+
+        release(permits);
+
+        assertEquals(limiter.getLimit(LARGE), 5);
+
+        // storage throttled some requests in the next window
+        congestionSignals.addAndGet(3);
+
+        final List<Permit> throttledPermits = acquire(limiter, 5);
+
+        TimeUnit.MILLISECONDS.sleep(1100);
+
+        release(throttledPermits);
+
+        assertEquals(limiter.getLimit(LARGE), 2);
+        assertEquals(limiter.getLimit(SMALL), 4);
+    }
+
+    @Test
+    public void failedTransferHalvesLimitOfItsTrafficClassOnce() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, () -> 0);
+
+        final Permit first = limiter.acquire(1024);
+        final Permit second = limiter.acquire(1024);
+
+        first.release(0, true);
+        // another failure of the same burst
+        second.release(0, true);
+
+        assertEquals(limiter.getLimit(SMALL), 4);
+        assertEquals(limiter.getLimit(LARGE), 8);
+    }
+
+    @Test
+    public void failedTransferCountedByStorageDecreasesLimitOnce() throws Exception {
+        final AtomicLong congestionSignals = new AtomicLong();
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, congestionSignals::get);
+
+        final Permit failed = limiter.acquire(1024);
+
+        // storage counts the failed request as well
+        congestionSignals.incrementAndGet();
+        failed.release(0, true);
+
+        assertEquals(limiter.getLimit(SMALL), 4);
+
+        TimeUnit.MILLISECONDS.sleep(1100);
+
+        // window ends with no other congestion signal
+        limiter.acquire(1024).release(1024, false);
+
+        assertEquals(limiter.getLimit(SMALL), 4);
+    }
+
+    private static List<Permit> acquire(final ConcurrencyLimiter limiter, final int permits) throws InterruptedException {
+        final List<Permit> acquired = new ArrayList<>();
+
+        for (int i = 0; i < permits; i++) {
+            acquired.add(limiter.acquire(LARGE_OBJECT));
+        }
+
+        return acquired;
+    }
+
+    private static void release(final List<Permit> permits) {
+        permits.forEach(permit -> permit.release(LARGE_OBJECT, false));
+    }
+}
@@ -0,0 +1,242 @@
+package com.instaclustr.cassandra.backup;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.instaclustr.cassandra.backup.aws.S3Backuper;
+import com.instaclustr.cassandra.backup.azure.AzureBackuper;
+import com.instaclustr.cassandra.backup.gcp.GCPBackuper;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.cassandra.backup.impl.StorageLocation;
+import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
+import com.instaclustr.cassandra.backup.local.LocalFileBackuper;
+import com.instaclustr.operations.Operation;
+import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class PartUploadTest {
+
+    private static final long MB = 1024L * 1024;
+
+    @Test
+    public void partsAreNumberedAndCoverFile() throws Exception {
+        final Path root = Files.createTempDirectory("part-upload");
+
+        try (final TestBackuper backuper = new TestBackuper(root, 2)) {
+            final byte[] content = content(root, 10_000);
+
+            final OperationProgressTracker tracker = new OperationProgressTracker(new TestOperation());
+
+            final List<String> results = backuper.upload(root.resolve("file"), 3000, Collections.emptyMap(), tracker);
+
+            assertEquals(results, Arrays.asList("part-1", "part-2", "part-3", "part-4"));
+            assertEquals(backuper.parts.get(4).length, 1000);
+
+            final ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+
+            for (int partNumber = 1; partNumber <= 4; partNumber++) {
+                uploaded.write(backuper.parts.get(partNumber));
+            }
+
+            assertEquals(uploaded.toByteArray(), content);
+            assertEquals(tracker.getBytesCompleted(), 10_000L);
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void uploadedPartsAreSkipped() throws Exception {
+        final Path root = Files.createTempDirectory("part-upload");
+
+        try (final TestBackuper backuper = new TestBackuper(root, 2)) {
+            content(root, 10_000);
+
+            final OperationProgressTracker tracker = new OperationProgressTracker(new TestOperation());
+
+            final List<String> results = backuper.upload(root.resolve("file"), 3000, ImmutableMap.of(2, "uploaded-2", 4, "uploaded-4"), tracker);
+
+            assertEquals(results, Arrays.asList("part-1", "uploaded-2", "part-3", "uploaded-4"));
+            assertEquals(backuper.parts.keySet(), ImmutableSet.of(1, 3));
+            // skipped parts count as completed
+            assertEquals(tracker.getBytesCompleted(), 10_000L);
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void failedPartCancelsRemainingParts() throws Exception {
+        final Path root = Files.createTempDirectory("part-upload");
+
+        try (final TestBackuper backuper = new TestBackuper(root, 2)) {
+            content(root, 10_000);
+
+            backuper.failingPart = 1;
+
+            final long start = System.nanoTime();
+
+            try {
+                backuper.upload(root.resolve("file"), 1000, Collections.emptyMap(), new OperationProgressTracker(new TestOperation()));
+                fail("Upload should fail with its failed part.");
+            } catch (final IOException ex) {
+                assertEquals(ex.getMessage(), "Part 1 failed.");
+            }
+
+            // part 2, in flight when part 1 failed, is interrupted instead of being waited for
+            assertTrue(backuper.interrupted.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertTrue(backuper.started.get() < 10);
+            assertTrue(backuper.parts.isEmpty());
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void s3PartSize() {
+        // at least the minimum part size of S3
+        assertEquals(S3Backuper.partSize(1, 100 * MB), 5 * MB);
+        assertEquals(S3Backuper.partSize(64 * MB, 100 * MB), 64 * MB);
+
+        // no more than 10000 parts
+        final long size = 5L * 1024 * 1024 * MB;
+        final long partSize = S3Backuper.partSize(64 * MB, size);
+
+        assertTrue(partSize > 64 * MB);
+        assertTrue((size + partSize - 1) / partSize <= 10000);
+    }
+
+    @Test
+    public void azureBlockSize() {
+        assertEquals(AzureBackuper.blockSize(64 * MB, 1024 * MB), 64 * MB);
+
+        // no more than 50000 blocks
+        final long size = 100L * 1024 * MB;
+        final long blockSize = AzureBackuper.blockSize(1 * MB, size);
+
+        assertTrue(blockSize > MB);
+        assertTrue((size + blockSize - 1) / blockSize <= 50000);
+
+        // no block bigger than the maximum block size
+        assertEquals(AzureBackuper.blockSize(1024 * MB, 1024 * MB), 100 * MB);
+    }
+
+    @Test
+    public void gcpSliceSize() {
+        assertEquals(GCPBackuper.sliceSize(64 * MB, 1024 * MB), 64 * MB);
+
+        // no more than 32 slices composed at once
+        assertEquals(GCPBackuper.sliceSize(1 * MB, 1024 * MB), 32 * MB);
+    }
+
+    private static byte[] content(final Path root, final int size) throws IOException {
+        final byte[] content = new byte[size];
+        new Random(0).nextBytes(content);
+
+        Files.write(root.resolve("file"), content);
+
+        return content;
+    }
+
+    /**
+     * Uploads parts of a file by a fake upload which keeps their bytes. If a part is set to fail, it fails once another
+     * part is in flight, the other parts block until they are interrupted.
+     */
+    private static class TestBackuper extends LocalFileBackuper {
+
+        final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        final AtomicInteger started = new AtomicInteger();
+        final CountDownLatch inFlight = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        volatile int failingPart;
+
+        TestBackuper(final Path root, final int partConcurrency) {
+            super(new ExecutorServiceSupplier() {
+                @Override
+                public ExecutorService get(final Integer concurrency) {
+                    return Executors.newFixedThreadPool(concurrency);
+                }
+            }, request(root, partConcurrency));
+        }
+
+        List<String> upload(final Path file,
+                            final long partSize,
+                            final Map<Integer, String> uploadedParts,
+                            final OperationProgressTracker tracker) throws Exception {
+            try (final FileChannel fileChannel = FileChannel.open(file, READ)) {
+                return uploadParts(fileChannel, Files.size(file), partSize, uploadedParts, tracker, (partNumber, partStream, length) -> {
+                    started.incrementAndGet();
+
+                    if (partNumber == failingPart) {
+                        inFlight.await(5, TimeUnit.SECONDS);
+                        throw new IOException("Part " + partNumber + " failed.");
+                    }
+
+                    if (failingPart != 0) {
+                        inFlight.countDown();
+
+                        try {
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                        } catch (final InterruptedException ex) {
+                            interrupted.countDown();
+                            throw ex;
+                        }
+                    }
+
+                    final byte[] bytes = ByteStreams.toByteArray(partStream);
+
+                    assertEquals(bytes.length, length);
+
+                    parts.put(partNumber, bytes);
+
+                    return "part-" + partNumber;
+                });
+            }
+        }
+
+        private static BackupOperationRequest request(final Path root, final int partConcurrency) {
+            final BackupOperationRequest request = new BackupOperationRequest();
+            request.storageLocation = new StorageLocation("file://" + root.resolve("bucket/cluster/dc/node"));
+            request.concurrentConnections = 1;
+            request.partConcurrency = partConcurrency;
+
+            return request;
+        }
+    }
+
+    private static class TestOperation extends Operation<BackupOperationRequest> {
+
+        TestOperation() {
+            super(new BackupOperationRequest());
+        }
+
+        @Override
+        protected void run0() {
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.cassandra.backup.impl.StorageLocation;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreJournal;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
+import com.instaclustr.cassandra.backup.impl.restore.Restorer;
+import com.instaclustr.cassandra.backup.local.LocalFileRestorer;
+import com.instaclustr.operations.Operation;
+import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class RangedDownloadTest {
+
+    private static final Path OBJECT_KEY = Paths.get("data/ks/tb/1-123/mc-1-big-Data.db");
+
+    @Test
+    public void fileIsDownloadedInRanges() throws Exception {
+        final Path root = Files.createTempDirectory("ranged-download");
+
+        try {
+            final byte[] content = content(root);
+
+            final Path localFile = root.resolve("restored/mc-1-big-Data.db");
+
+            try (final Restorer restorer = restorer(root, 1000L)) {
+                restorer.downloadFiles(Collections.singletonList(new ManifestEntry(OBJECT_KEY, localFile, ManifestEntry.Type.FILE, 0)), journal(root), new OperationProgressTracker(new TestOperation()));
+            }
+
+            assertEquals(Files.readAllBytes(localFile), content);
+            assertFalse(Files.exists(Restorer.partialFile(localFile)));
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void interruptedDownloadInRangesIsResumed() throws Exception {
+        final Path root = Files.createTempDirectory("ranged-download");
+
+        try {
+            final byte[] content = content(root);
+
+            final Path localFile = root.resolve("restored/mc-1-big-Data.db");
+            final RestoreJournal journal = journal(root);
+
+            // the first range is downloaded, the rest of the file is preallocated only
+            final byte[] partialContent = new byte[content.length];
+            System.arraycopy(content, 0, partialContent, 0, 777);
+
+            Files.createDirectories(localFile.getParent());
+            Files.write(Restorer.partialFile(localFile), partialContent);
+
+            journal.rangeDownloaded(journal.create(localFile, OBJECT_KEY.toString(), content.length, 777), 0);
+
+            final TestOperation operation = new TestOperation();
+            final OperationProgressTracker tracker = new OperationProgressTracker(operation);
+
+            try (final Restorer restorer = restorer(root, 1000L)) {
+                restorer.downloadFiles(Collections.singletonList(new ManifestEntry(OBJECT_KEY, localFile, ManifestEntry.Type.FILE, content.length)), journal, tracker);
+            }
+
+            assertEquals(Files.readAllBytes(localFile), content);
+            assertEquals(operation.progress, 1.0f);
+            // the journaled range is skipped, not downloaded again
+            assertEquals(tracker.getBytesCompleted(), (long) content.length);
+            assertFalse(journal.find(localFile).isPresent());
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void interruptedDownloadInStreamIsResumed() throws Exception {
+        final Path root = Files.createTempDirectory("ranged-download");
+
+        try {
+            final byte[] content = content(root);
+
+            final Path localFile = root.resolve("restored/mc-1-big-Data.db");
+
+            final RestoreJournal journal = journal(root);
+
+            Files.createDirectories(localFile.getParent());
+            Files.write(Restorer.partialFile(localFile), Arrays.copyOf(content, 12345));
+
+            journal.create(localFile, OBJECT_KEY.toString(), content.length);
+
+            try (final Restorer restorer = restorer(root, Long.MAX_VALUE)) {
+                restorer.downloadFiles(Collections.singletonList(new ManifestEntry(OBJECT_KEY, localFile, ManifestEntry.Type.FILE, content.length)), journal, new OperationProgressTracker(new TestOperation()));
+            }
+
+            assertEquals(Files.readAllBytes(localFile), content);
+            assertFalse(journal.find(localFile).isPresent());
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void partialFileOfAnotherObjectIsNotResumed() throws Exception {
+        final Path root = Files.createTempDirectory("ranged-download");
+
+        try {
+            final byte[] content = content(root);
+
+            final Path localFile = root.resolve("restored/mc-1-big-Data.db");
+            final RestoreJournal journal = journal(root);
+
+            // left by a restore of another snapshot, same file name in another hash directory
+            final byte[] otherContent = new byte[12345];
+            new Random(1).nextBytes(otherContent);
+
+            Files.createDirectories(localFile.getParent());
+            Files.write(Restorer.partialFile(localFile), otherContent);
+
+            journal.create(localFile, "data/ks/tb/2-456/mc-1-big-Data.db", content.length);
+
+            try (final Restorer restorer = restorer(root, Long.MAX_VALUE)) {
+                restorer.downloadFiles(Collections.singletonList(new ManifestEntry(OBJECT_KEY, localFile, ManifestEntry.Type.FILE, content.length)), journal, new OperationProgressTracker(new TestOperation()));
+            }
+
+            assertEquals(Files.readAllBytes(localFile), content);
+            assertFalse(journal.find(localFile).isPresent());
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void throttledDownloadIsComplete() throws Exception {
+        final Path root = Files.createTempDirectory("ranged-download");
+
+        try {
+            final byte[] content = content(root);
+
+            final Path localFile = root.resolve("restored/mc-1-big-Data.db");
+
+            try (final Restorer restorer = restorer(root, Long.MAX_VALUE, 1000)) {
+                restorer.downloadFiles(Collections.singletonList(new ManifestEntry(OBJECT_KEY, localFile, ManifestEntry.Type.FILE, content.length)), journal(root), new OperationProgressTracker(new TestOperation()));
+            }
+
+            assertEquals(Files.readAllBytes(localFile), content);
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void unthrottledDownloadOfComponentIsLinked() throws Exception {
+        final Path root = Files.createTempDirectory("ranged-download");
+
+        try {
+            final byte[] content = content(root);
+
+            final Path localFile = root.resolve("restored/mc-1-big-Data.db");
+
+            try (final Restorer restorer = restorer(root, Long.MAX_VALUE)) {
+                restorer.downloadFiles(Collections.singletonList(new ManifestEntry(OBJECT_KEY, localFile, ManifestEntry.Type.FILE, content.length)), journal(root), new OperationProgressTracker(new TestOperation()));
+            }
+
+            assertEquals(Files.readAllBytes(localFile), content);
+            // components of SSTables are immutable, so the restored one is the same file as the backed up one
+            assertTrue(Files.isSameFile(localFile, root.resolve("bucket/cluster/dc/node").resolve(OBJECT_KEY)));
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void sstableIsMovedIntoPlaceByRetryOfFailedMove() throws Exception {
+        final Path root = Files.createTempDirectory("ranged-download");
+
+        try {
+            final byte[] content = content(root);
+
+            final Path indexKey = OBJECT_KEY.resolveSibling("mc-1-big-Index.db");
+            Files.write(root.resolve("bucket/cluster/dc/node").resolve(indexKey), content);
+
+            final Path dataFile = root.resolve("restored/mc-1-big-Data.db");
+            final Path indexFile = root.resolve("restored/mc-1-big-Index.db");
+
+            final TestOperation operation = new TestOperation();
+            final OperationProgressTracker tracker = new OperationProgressTracker(operation);
+            final AtomicBoolean failed = new AtomicBoolean();
+
+            try (final Restorer restorer = new LocalFileRestorer(executorServiceSupplier(), request(root, Long.MAX_VALUE, null)) {
+                @Override
+                protected void move(final Path partialFile, final Path localFile) throws IOException {
+                    if (failed.compareAndSet(false, true)) {
+                        throw new IOException("Move failed once.");
+                    }
+
+                    super.move(partialFile, localFile);
+                }
+            }) {
+                restorer.downloadFiles(Arrays.asList(new ManifestEntry(OBJECT_KEY, dataFile, ManifestEntry.Type.FILE, content.length),
+                                                     new ManifestEntry(indexKey, indexFile, ManifestEntry.Type.FILE, content.length)),
+                                       journal(root),
+                                       tracker);
+            }
+
+            assertTrue(failed.get());
+            assertEquals(Files.readAllBytes(dataFile), content);
+            assertEquals(Files.readAllBytes(indexFile), content);
+            assertFalse(Files.exists(Restorer.partialFile(dataFile)));
+            assertFalse(Files.exists(Restorer.partialFile(indexFile)));
+            // bytes of the failed attempt are taken back, the retry reports them as skipped
+            assertEquals(tracker.getBytesCompleted(), 2L * content.length);
+            assertEquals(operation.progress, 1.0f);
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    private static byte[] content(final Path root) throws Exception {
+        final byte[] content = new byte[100_000];
+        new Random(0).nextBytes(content);
+
+        final Path remoteFile = root.resolve("bucket/cluster/dc/node").resolve(OBJECT_KEY);
+
+        Files.createDirectories(remoteFile.getParent());
+        Files.write(remoteFile, content);
+
+        return content;
+    }
+
+    private static Restorer restorer(final Path root, final long rangeThreshold) {
+        return restorer(root, rangeThreshold, null);
+    }
+
+    private static Restorer restorer(final Path root, final long rangeThreshold, final Integer diskWriteIops) {
+        return new LocalFileRestorer(executorServiceSupplier(), request(root, rangeThreshold, diskWriteIops));
+    }
+
+    private static RestoreOperationRequest request(final Path root, final long rangeThreshold, final Integer diskWriteIops) {
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.diskWriteIops = diskWriteIops;
+        request.storageLocation = new StorageLocation("file://" + root.resolve("bucket/cluster/dc/node"));
+        request.rangeThreshold = rangeThreshold;
+        request.rangeSize = 777L;
+        request.rangeConcurrency = 3;
+
+        return request;
+    }
+
+    private static ExecutorServiceSupplier executorServiceSupplier() {
+        return new ExecutorServiceSupplier() {
+            @Override
+            public ExecutorService get(final Integer concurrency) {
+                return Executors.newFixedThreadPool(concurrency);
+            }
+        };
+    }
+
+    private static class TestOperation extends Operation<RestoreOperationRequest> {
+
+        TestOperation() {
+            super(new RestoreOperationRequest());
+        }
+
+        @Override
+        protected void run0() {
+        }
+    }
+
+    private static RestoreJournal journal(final Path root) {
+        return new RestoreJournal(root.resolve(RestoreJournal.DIRECTORY));
+    }
+}
@@ -0,0 +1,77 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import com.instaclustr.cassandra.backup.aws.S3MultipartUploadJournal;
+import com.instaclustr.cassandra.backup.aws.S3MultipartUploadJournal.MultipartUpload;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class S3MultipartUploadJournalTest {
+
+    @Test
+    public void journaledUploadIsResumedOnlyForSameFile() throws Exception {
+        final Path journalDirectory = Files.createTempDirectory("journal");
+
+        try {
+            final S3MultipartUploadJournal journal = new S3MultipartUploadJournal(journalDirectory);
+            final Path localFile = Paths.get("/var/lib/cassandra/data/ks/tb/snapshots/tag/mc-1-big-Data.db");
+
+            final MultipartUpload upload = journal.create("bucket", "cluster/dc/node/data/ks/tb/1-123/mc-1-big-Data.db", "upload-1", localFile, 100, 10, 50);
+
+            journal.partUploaded(upload, 1, "etag-1");
+
+            // journal survives a restart
+            final S3MultipartUploadJournal reopenedJournal = new S3MultipartUploadJournal(journalDirectory);
+
+            final Optional<MultipartUpload> resumed = reopenedJournal.find("bucket", "cluster/dc/node/data/ks/tb/1-123/mc-1-big-Data.db", localFile, 100, 10, 50);
+
+            assertTrue(resumed.isPresent());
+            assertEquals(resumed.get().uploadId, "upload-1");
+            assertEquals(resumed.get().parts.get(1), "etag-1");
+            assertTrue(reopenedJournal.uploadIds().contains("upload-1"));
+
+            // modified file or different part size is not resumed
+            assertFalse(reopenedJournal.find("bucket", "cluster/dc/node/data/ks/tb/1-123/mc-1-big-Data.db", localFile, 100, 11, 50).isPresent());
+            assertFalse(reopenedJournal.find("bucket", "cluster/dc/node/data/ks/tb/1-123/mc-1-big-Data.db", localFile, 100, 10, 40).isPresent());
+
+            reopenedJournal.remove(resumed.get());
+
+            assertFalse(reopenedJournal.find("bucket", "cluster/dc/node/data/ks/tb/1-123/mc-1-big-Data.db", localFile, 100, 10, 50).isPresent());
+            assertTrue(reopenedJournal.uploadIds().isEmpty());
+        } finally {
+            FileUtils.deleteDirectory(journalDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void journaledUploadIsResumedFromSnapshotOfAnotherTag() throws Exception {
+        final Path journalDirectory = Files.createTempDirectory("journal");
+
+        try {
+            final S3MultipartUploadJournal journal = new S3MultipartUploadJournal(journalDirectory);
+            final String key = "cluster/dc/node/data/ks/tb/1-123/mc-1-big-Data.db";
+
+            final MultipartUpload upload = journal.create("bucket", key, "upload-1", Paths.get("/var/lib/cassandra/data/ks/tb/snapshots/autosnap-1/mc-1-big-Data.db"), 100, 10, 50);
+
+            journal.partUploaded(upload, 1, "etag-1");
+
+            // backup taken again after a restart snapshots the same SSTable under a new tag
+            final Optional<MultipartUpload> resumed = new S3MultipartUploadJournal(journalDirectory)
+                .find("bucket", key, Paths.get("/var/lib/cassandra/data/ks/tb/snapshots/autosnap-2/mc-1-big-Data.db"), 100, 10, 50);
+
+            assertTrue(resumed.isPresent());
+            assertEquals(resumed.get().uploadId, "upload-1");
+            assertEquals(resumed.get().parts.get(1), "etag-1");
+        } finally {
+            FileUtils.deleteDirectory(journalDirectory.toFile());
+        }
+    }
+}
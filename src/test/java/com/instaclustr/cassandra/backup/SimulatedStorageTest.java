@@ -0,0 +1,141 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.io.ByteStreams;
+import com.instaclustr.cassandra.backup.sim.SimulatedStorage;
+import com.instaclustr.cassandra.backup.sim.SimulatedStorage.Configuration;
+import com.instaclustr.cassandra.backup.sim.SimulatedStorageException;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class SimulatedStorageTest {
+
+    @Test
+    public void objectsAreStoredInDirectory() throws Exception {
+        final Path directory = Files.createTempDirectory("sim");
+
+        try {
+            final Configuration configuration = new Configuration();
+            configuration.directory = directory;
+
+            final SimulatedStorage storage = new SimulatedStorage(configuration);
+
+            storage.put("bucket", "cluster/dc/node/data/ks/tb/1-Data.db", stream("0123456789"));
+
+            assertTrue(storage.touch("bucket", "cluster/dc/node/data/ks/tb/1-Data.db"));
+            assertFalse(storage.touch("bucket", "cluster/dc/node/data/ks/tb/2-Data.db"));
+            assertEquals(storage.size("bucket", "cluster/dc/node/data/ks/tb/1-Data.db"), 10L);
+
+            try (final InputStream range = storage.read("bucket", "cluster/dc/node/data/ks/tb/1-Data.db", 3, 4)) {
+                assertEquals(new String(ByteStreams.toByteArray(range), StandardCharsets.UTF_8), "3456");
+            }
+
+            final List<String> keys = new ArrayList<>();
+            storage.list("bucket", "cluster/dc/node", keys::add);
+
+            assertEquals(keys.size(), 1);
+            assertEquals(keys.get(0), "cluster/dc/node/data/ks/tb/1-Data.db");
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    @Test
+    public void discardedObjectsReadAsZeros() throws Exception {
+        final SimulatedStorage storage = new SimulatedStorage(new Configuration());
+
+        storage.put("bucket", "cluster/dc/node/manifests/snapshot", stream("manifest"));
+
+        assertEquals(storage.size("bucket", "cluster/dc/node/manifests/snapshot"), 8L);
+
+        try (final InputStream object = storage.read("bucket", "cluster/dc/node/manifests/snapshot", 0, Long.MAX_VALUE)) {
+            assertEquals(ByteStreams.toByteArray(object), new byte[8]);
+        }
+
+        try {
+            storage.size("bucket", "cluster/dc/node/manifests/missing");
+            fail("Missing object has a size.");
+        } catch (final SimulatedStorageException ex) {
+            assertEquals(ex.getStatusCode(), SimulatedStorageException.NOT_FOUND);
+        }
+    }
+
+    @Test
+    public void listedPrefixIsDirectory() throws Exception {
+        final SimulatedStorage storage = new SimulatedStorage(new Configuration());
+
+        storage.put("bucket", "cluster/dc/node1/manifests/snapshot", stream("manifest"));
+        storage.put("bucket", "cluster/dc/node10/manifests/snapshot", stream("manifest"));
+
+        final List<String> keys = new ArrayList<>();
+        storage.list("bucket", "cluster/dc/node1", keys::add);
+
+        assertEquals(keys, Collections.singletonList("cluster/dc/node1/manifests/snapshot"));
+    }
+
+    @Test
+    public void failuresAreRepeatableForSameSeed() throws Exception {
+        final Configuration configuration = new Configuration();
+        configuration.throttleProbability = 0.3;
+        configuration.failureProbability = 0.2;
+        configuration.seed = 42;
+
+        final List<Integer> first = outcomes(new SimulatedStorage(configuration));
+        final List<Integer> second = outcomes(new SimulatedStorage(configuration));
+
+        assertEquals(first, second);
+        assertTrue(first.contains(SimulatedStorageException.SLOW_DOWN));
+        assertTrue(first.contains(SimulatedStorageException.INTERNAL_ERROR));
+        assertTrue(first.contains(200));
+    }
+
+    @Test
+    public void requestsOverRateAreThrottled() throws Exception {
+        final Configuration configuration = new Configuration();
+        configuration.requestsPerSecond = 1;
+
+        final SimulatedStorage storage = new SimulatedStorage(configuration);
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                storage.put("bucket", "object-" + i, stream("data"));
+            }
+
+            fail("Requests over rate were not throttled.");
+        } catch (final SimulatedStorageException ex) {
+            assertTrue(ex.isThrottle());
+        }
+    }
+
+    private static List<Integer> outcomes(final SimulatedStorage storage) throws Exception {
+        final List<Integer> outcomes = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            try {
+                storage.put("bucket", "object-" + (i % 10), stream("data"));
+                outcomes.add(200);
+            } catch (final SimulatedStorageException ex) {
+                outcomes.add(ex.getStatusCode());
+            }
+        }
+
+        return outcomes;
+    }
+
+    private static InputStream stream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,162 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.google.common.collect.ImmutableSet;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.cassandra.backup.impl.RemoteObjectReference;
+import com.instaclustr.cassandra.backup.impl.StorageLocation;
+import com.instaclustr.cassandra.backup.impl.backup.BackupOperationRequest;
+import com.instaclustr.cassandra.backup.local.LocalFileBackuper;
+import com.instaclustr.operations.Operation;
+import com.instaclustr.threading.Executors.ExecutorServiceSupplier;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class SkipFreshenTest {
+
+    private static final Path UPLOADED = Paths.get("data/ks/tb/1-1/mc-1-big-Data.db");
+    private static final Path MISSING = Paths.get("data/ks/tb/1-1/mc-1-big-Index.db");
+    private static final Path MANIFEST = Paths.get("manifests/snapshot");
+
+    @Test
+    public void onlyMissingFilesAreUploaded() throws Exception {
+        final Path root = Files.createTempDirectory("skip-freshen");
+
+        try (final TestBackuper backuper = new TestBackuper(root)) {
+            final List<ManifestEntry> entries = entries(root);
+            final OperationProgressTracker tracker = new OperationProgressTracker(new TestOperation());
+
+            backuper.uploadOrFreshenFiles(entries, tracker);
+
+            assertUploads(backuper, tracker, entries);
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void onlyMissingProducedFilesAreUploaded() throws Exception {
+        final Path root = Files.createTempDirectory("skip-freshen");
+
+        try (final TestBackuper backuper = new TestBackuper(root)) {
+            final List<ManifestEntry> entries = entries(root);
+            final OperationProgressTracker tracker = new OperationProgressTracker(new TestOperation());
+
+            backuper.uploadOrFreshenFiles(sink -> entries.forEach(sink), tracker);
+
+            assertUploads(backuper, tracker, entries);
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    private static void assertUploads(final TestBackuper backuper,
+                                      final OperationProgressTracker tracker,
+                                      final List<ManifestEntry> entries) {
+        // the node prefix is listed once instead of freshening files one by one
+        assertEquals(backuper.listings.get(), 1);
+        assertEquals(backuper.freshens.get(), 0);
+
+        // manifest files are uploaded even if they exist remotely
+        assertEquals(backuper.uploads, ImmutableSet.of(MISSING, MANIFEST));
+
+        assertEquals(tracker.getBytesCompleted(), entries.stream().mapToLong(entry -> entry.size).sum());
+    }
+
+    /**
+     * Local files of a snapshot, the Data component and the manifest of which are already uploaded.
+     */
+    private static List<ManifestEntry> entries(final Path root) throws Exception {
+        final Path remote = root.resolve("bucket/cluster/dc/node");
+
+        for (final Path objectKey : Arrays.asList(UPLOADED, MANIFEST)) {
+            Files.createDirectories(remote.resolve(objectKey).getParent());
+            Files.write(remote.resolve(objectKey), new byte[]{1});
+        }
+
+        final Path local = root.resolve("local");
+        Files.createDirectories(local);
+
+        Files.write(local.resolve("mc-1-big-Data.db"), new byte[100]);
+        Files.write(local.resolve("mc-1-big-Index.db"), new byte[10]);
+        Files.write(local.resolve("snapshot"), new byte[5]);
+
+        return Arrays.asList(new ManifestEntry(UPLOADED, local.resolve("mc-1-big-Data.db"), ManifestEntry.Type.FILE),
+                             new ManifestEntry(MISSING, local.resolve("mc-1-big-Index.db"), ManifestEntry.Type.FILE),
+                             new ManifestEntry(MANIFEST, local.resolve("snapshot"), ManifestEntry.Type.MANIFEST_FILE));
+    }
+
+    /**
+     * Counts listings of remote objects and freshens, and records uploaded objects.
+     */
+    private static class TestBackuper extends LocalFileBackuper {
+
+        final AtomicInteger listings = new AtomicInteger();
+        final AtomicInteger freshens = new AtomicInteger();
+        final Set<Path> uploads = ConcurrentHashMap.newKeySet();
+
+        TestBackuper(final Path root) {
+            super(new ExecutorServiceSupplier() {
+                @Override
+                public ExecutorService get(final Integer concurrency) {
+                    return Executors.newFixedThreadPool(concurrency);
+                }
+            }, request(root));
+        }
+
+        @Override
+        public void consumeRemoteObjectKeys(final Consumer<Path> consumer) throws Exception {
+            listings.incrementAndGet();
+            super.consumeRemoteObjectKeys(consumer);
+        }
+
+        @Override
+        public FreshenResult freshenRemoteObject(final RemoteObjectReference object) throws Exception {
+            freshens.incrementAndGet();
+            return super.freshenRemoteObject(object);
+        }
+
+        @Override
+        protected void uploadFile(final ManifestEntry manifestEntry,
+                                  final RemoteObjectReference object,
+                                  final OperationProgressTracker operationProgressTracker) throws Exception {
+            uploads.add(manifestEntry.objectKey);
+            super.uploadFile(manifestEntry, object, operationProgressTracker);
+        }
+
+        private static BackupOperationRequest request(final Path root) {
+            final BackupOperationRequest request = new BackupOperationRequest();
+            request.storageLocation = new StorageLocation("file://" + root.resolve("bucket/cluster/dc/node"));
+            request.concurrentConnections = 2;
+            request.partConcurrency = 1;
+            request.skipFreshen = true;
+
+            return request;
+        }
+    }
+
+    private static class TestOperation extends Operation<BackupOperationRequest> {
+
+        TestOperation() {
+            super(new BackupOperationRequest());
+        }
+
+        @Override
+        protected void run0() {
+        }
+    }
+}
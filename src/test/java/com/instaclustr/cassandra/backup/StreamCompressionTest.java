@@ -0,0 +1,115 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Random;
+
+import com.google.common.io.ByteStreams;
+import com.instaclustr.cassandra.backup.impl.ManifestEntry;
+import com.instaclustr.cassandra.backup.impl.StreamCompression;
+import com.instaclustr.cassandra.backup.impl.StreamCompression.Codec;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class StreamCompressionTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("stream-compression");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void codecIsChosenByComponentType() throws Exception {
+        final byte[] random = new byte[64 * 1024];
+        new Random(0).nextBytes(random);
+
+        // components known to compress well are not tested, even if they happen not to
+        assertEquals(codec(write("mc-1-big-Index.db", random)), Codec.DEFLATE);
+        assertEquals(codec(write("CommitLog-7-1.log", random)), Codec.DEFLATE);
+
+        // data of a compressed table is not compressed again
+        write("mc-1-big-CompressionInfo.db", new byte[16]);
+        assertEquals(codec(write("mc-1-big-Data.db", repetitive(64 * 1024))), Codec.NONE);
+
+        // data of an uncompressed table and other files are tested
+        assertEquals(codec(write("mc-2-big-Data.db", repetitive(64 * 1024))), Codec.DEFLATE);
+        assertEquals(codec(write("mc-3-big-Data.db", random)), Codec.NONE);
+
+        // small files are not worth it
+        assertEquals(codec(write("mc-4-big-Index.db", repetitive(100))), Codec.NONE);
+    }
+
+    @Test
+    public void compressedFilesAreRestoredByTheirKeys() throws Exception {
+        final Path file = write("mc-1-big-Summary.db", repetitive(1024 * 1024));
+
+        final ManifestEntry entry = StreamCompression.compressed(entry(file));
+
+        assertEquals(entry.objectKey, Paths.get("data/ks/tb/1-1234/mc-1-big-Summary.db.deflate"));
+        assertEquals(entry.size, Files.size(file));
+        assertEquals(StreamCompression.uncompressedFileName(entry.objectKey), "mc-1-big-Summary.db");
+
+        final byte[] compressed;
+
+        try (final InputStream inputStream = StreamCompression.compress(Files.newInputStream(file))) {
+            compressed = ByteStreams.toByteArray(inputStream);
+        }
+
+        final Path compressedFile = directory.resolve("mc-1-big-Summary.db.deflate");
+
+        assertEquals(StreamCompression.compress(file, compressedFile), (long) compressed.length);
+        assertEquals(Files.readAllBytes(compressedFile), compressed);
+
+        try (final InputStream inputStream = StreamCompression.decompress(new ByteArrayInputStream(compressed), Codec.of(entry.objectKey))) {
+            assertEquals(ByteStreams.toByteArray(inputStream), Files.readAllBytes(file));
+        }
+    }
+
+    @Test
+    public void bundlesAreNotCompressed() throws Exception {
+        final ManifestEntry bundle = new ManifestEntry(Paths.get("data/ks/tb/1-1234/mc-1-big-Bundle-65536.db"),
+                                                       directory.resolve("mc-1-big"),
+                                                       1024 * 1024,
+                                                       Collections.emptyList());
+
+        assertEquals(StreamCompression.compressed(bundle).objectKey, bundle.objectKey);
+    }
+
+    private Codec codec(final Path file) throws IOException {
+        return Codec.of(StreamCompression.compressed(entry(file)).objectKey);
+    }
+
+    private ManifestEntry entry(final Path file) throws IOException {
+        return new ManifestEntry(Paths.get("data/ks/tb/1-1234").resolve(file.getFileName()), file, ManifestEntry.Type.FILE);
+    }
+
+    private Path write(final String fileName, final byte[] content) throws IOException {
+        return Files.write(directory.resolve(fileName), content);
+    }
+
+    private static byte[] repetitive(final int size) {
+        final byte[] content = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + i % 7);
+        }
+
+        return content;
+    }
+}
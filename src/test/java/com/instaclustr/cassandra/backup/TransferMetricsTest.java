@@ -0,0 +1,62 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.instaclustr.cassandra.backup.impl.metrics.PrometheusTextfileWriter;
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics;
+import com.instaclustr.cassandra.backup.impl.metrics.StorageMetrics.RequestType;
+import com.instaclustr.cassandra.backup.impl.metrics.TransferMetrics;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class TransferMetricsTest {
+
+    @Test
+    public void metricsAreWrittenInPrometheusTextFormat() throws Exception {
+        final TransferMetrics transferMetrics = new TransferMetrics(null);
+        final StorageMetrics s3 = transferMetrics.storage("s3");
+
+        for (int i = 1; i <= 100; i++) {
+            s3.request(RequestType.UPLOAD).record(TimeUnit.MILLISECONDS.toNanos(i), i == 100);
+        }
+
+        s3.bytesUploaded(1024);
+        s3.retried();
+        s3.queued(3);
+
+        assertEquals(s3.request(RequestType.UPLOAD).getCount(), 100L);
+        assertEquals(s3.request(RequestType.UPLOAD).getErrors(), 1L);
+        assertEquals(s3.request(RequestType.UPLOAD).getDuration50thPercentile(), 50.0, 0.1);
+
+        final Path root = Files.createTempDirectory("metrics");
+
+        try {
+            final Path file = root.resolve("textfile/cassandra_backup.prom");
+
+            try (final PrometheusTextfileWriter writer = new PrometheusTextfileWriter(transferMetrics, file)) {
+                writer.write();
+            }
+
+            final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+            assertTrue(lines.contains("# TYPE cassandra_backup_transfer_duration_seconds summary"));
+            assertTrue(lines.contains("cassandra_backup_transfer_duration_seconds_count{provider=\"s3\",request=\"upload\"} 100"));
+            assertTrue(lines.contains("cassandra_backup_transfer_errors_total{provider=\"s3\",request=\"upload\"} 1.0"));
+            assertTrue(lines.contains("cassandra_backup_bytes_total{provider=\"s3\",direction=\"upload\"} 1024.0"));
+            assertTrue(lines.contains("cassandra_backup_retries_total{provider=\"s3\"} 1.0"));
+            assertTrue(lines.contains("cassandra_backup_queue_depth{provider=\"s3\"} 3.0"));
+
+            assertFalse(Files.exists(file.resolveSibling("cassandra_backup.prom.tmp")));
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.instaclustr.cassandra.backup;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.instaclustr.cassandra.backup.impl.ConcurrencyLimiter;
+import com.instaclustr.cassandra.backup.impl.OperationProgressTracker;
+import com.instaclustr.cassandra.backup.impl.RetryPolicy;
+import com.instaclustr.cassandra.backup.impl.TransferPipeline;
+import com.instaclustr.cassandra.backup.impl.restore.RestoreOperationRequest;
+import com.instaclustr.operations.Operation;
+import org.testng.annotations.Test;
+
+public class TransferPipelineTest {
+
+    @Test
+    public void allSubmittedItemsAreTransferred() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        final AtomicInteger transferred = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        try (final TransferPipeline<Integer> pipeline = new TransferPipeline<>(executorService, 4, 2, item -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(1);
+            inFlight.decrementAndGet();
+            transferred.incrementAndGet();
+        })) {
+            for (int i = 0; i < 200; i++) {
+                pipeline.submit(i);
+            }
+
+            pipeline.finish();
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(transferred.get(), 200);
+        assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void firstFailureFailsPipeline() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        final AtomicInteger transferred = new AtomicInteger();
+
+        try (final TransferPipeline<Integer> pipeline = new TransferPipeline<>(executorService, 2, 1, item -> {
+            if (item == 3) {
+                throw new IOException("failed " + item);
+            }
+            transferred.incrementAndGet();
+        })) {
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    pipeline.submit(i);
+                }
+                fail("Submit should fail once the pipeline has failed.");
+            } catch (final IllegalStateException ex) {
+                assertTrue(ex.getCause() instanceof IOException);
+            }
+
+            try {
+                pipeline.finish();
+                fail("Finish should rethrow failure of the pipeline.");
+            } catch (final IOException ex) {
+                assertEquals(ex.getMessage(), "failed 3");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertTrue(transferred.get() < 1000);
+    }
+
+    @Test
+    public void failedTransfersAreRetried() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        final ConcurrentMap<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        final AtomicInteger transferred = new AtomicInteger();
+
+        try (final TransferPipeline<Integer> pipeline = new TransferPipeline<>(executorService, 4, 2, null, item -> 0,
+                                                                               new RetryPolicy(3, 1, 10, t -> t instanceof IOException),
+                                                                               item -> {
+                                                                                   // every third item fails twice, transiently
+                                                                                   if (item % 3 == 0 && attempts.computeIfAbsent(item, i -> new AtomicInteger()).incrementAndGet() < 3) {
+                                                                                       throw new IOException("failed " + item);
+                                                                                   }
+                                                                                   transferred.incrementAndGet();
+                                                                               })) {
+            for (int i = 0; i < 100; i++) {
+                pipeline.submit(i);
+            }
+
+            pipeline.finish();
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(transferred.get(), 100);
+        assertEquals(attempts.get(3).get(), 3);
+    }
+
+    @Test
+    public void bytesOfFailedAttemptsAreNotCountedTwice() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        final TestOperation operation = new TestOperation();
+        final OperationProgressTracker tracker = new OperationProgressTracker(operation);
+        final ConcurrentMap<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        tracker.addEventsToComplete(10);
+        tracker.addBytesToComplete(10 * 100);
+
+        try (final TransferPipeline<Integer> pipeline = new TransferPipeline<>(executorService, 4, 2, null, item -> 100,
+                                                                               new RetryPolicy(3, 1, 10, t -> t instanceof IOException),
+                                                                               item -> {
+                                                                                   final OperationProgressTracker.Attempt attempt = tracker.attempt();
+
+                                                                                   try {
+                                                                                       if (attempts.computeIfAbsent(item, i -> new AtomicInteger()).incrementAndGet() == 1) {
+                                                                                           // the first attempt transfers a part and fails on the rest
+                                                                                           attempt.bytesTransferred(40);
+                                                                                           throw new IOException("failed " + item);
+                                                                                       }
+
+                                                                                       // the next one resumes from the transferred part
+                                                                                       attempt.bytesSkipped(40);
+                                                                                       attempt.bytesTransferred(60);
+                                                                                       attempt.update();
+                                                                                   } catch (final Exception ex) {
+                                                                                       attempt.rollback();
+                                                                                       throw ex;
+                                                                                   }
+                                                                               })) {
+            for (int i = 0; i < 10; i++) {
+                pipeline.submit(i);
+            }
+
+            pipeline.finish();
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(attempts.get(0).get(), 2);
+        assertEquals(tracker.getBytesCompleted(), 10L * 100);
+        assertEquals(operation.progress, 1.0f);
+    }
+
+    @Test
+    public void transfersWaitingForPermitDoNotHoldBackOtherTrafficClass() throws Exception {
+        // limit of one transfer of each traffic class
+        final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(2, () -> 0);
+        final ExecutorService executorService = Executors.newFixedThreadPool(TransferPipeline.threads(2, concurrencyLimiter));
+
+        final CountDownLatch largeTransferred = new CountDownLatch(1);
+        final AtomicBoolean smallWaited = new AtomicBoolean();
+
+        try (final TransferPipeline<Long> pipeline = new TransferPipeline<>(executorService, 2, 2, concurrencyLimiter, item -> item, null, item -> {
+            if (item >= ConcurrencyLimiter.SMALL_OBJECT_SIZE) {
+                largeTransferred.countDown();
+            } else if (item == 1) {
+                // the other small transfer waits for the permit meanwhile
+                smallWaited.set(largeTransferred.await(10, TimeUnit.SECONDS));
+            }
+        })) {
+            pipeline.submit(1L);
+            pipeline.submit(2L);
+            pipeline.submit(ConcurrencyLimiter.SMALL_OBJECT_SIZE);
+
+            pipeline.finish();
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertTrue(smallWaited.get());
+    }
+
+    @Test
+    public void failureNotWorthRetryFailsPipeline() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        try (final TransferPipeline<Integer> pipeline = new TransferPipeline<>(executorService, 2, 1, null, item -> 0,
+                                                                               new RetryPolicy(3, 1, 10, t -> !(t instanceof FileNotFoundException)),
+                                                                               item -> {
+                                                                                   attempts.incrementAndGet();
+                                                                                   throw new FileNotFoundException("missing " + item);
+                                                                               })) {
+            try {
+                // the worker may fail the pipeline before submit returns already
+                pipeline.submit(0);
+            } catch (final IllegalStateException ex) {
+                assertTrue(ex.getCause() instanceof FileNotFoundException);
+            }
+
+            try {
+                pipeline.finish();
+                fail("Finish should rethrow failure of the pipeline.");
+            } catch (final FileNotFoundException ex) {
+                assertEquals(ex.getMessage(), "missing 0");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(attempts.get(), 1);
+    }
+
+    @Test
+    public void retryDelaysAreBounded() {
+        final RetryPolicy retryPolicy = new RetryPolicy(5, 100, 1000, t -> true);
+
+        long delay = 0;
+
+        for (int attempt = 1; attempt < 20; attempt++) {
+            delay = retryPolicy.nextDelayMillis(delay);
+            assertTrue(delay >= 100 && delay <= 1000, "Delay " + delay + " is out of bounds.");
+        }
+
+        assertTrue(retryPolicy.shouldRetry(new IOException(), 4));
+        assertFalse(retryPolicy.shouldRetry(new IOException(), 5));
+        assertFalse(retryPolicy.shouldRetry(new IOException(new InterruptedException()), 1));
+    }
+
+    private static class TestOperation extends Operation<RestoreOperationRequest> {
+
+        TestOperation() {
+            super(new RestoreOperationRequest());
+        }
+
+        @Override
+        protected void run0() {
+        }
+    }
+}